@@ -0,0 +1,61 @@
+package com.pm.analyticsservice.config;
+
+import com.pm.analyticsservice.kafka.AuditRetryPublisher;
+import com.pm.analyticsservice.kafka.KafkaConsumer;
+import java.lang.reflect.Method;
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+
+// Registers KafkaConsumer.consumeRetries once per retry tier; the number of
+// tiers comes from analytics.ingest.retry.delays. Each tier gets its own
+// container, so a tier sleeping until its next record is due never holds
+// up a tier with a shorter delay.
+@Configuration
+public class AuditRetryListenerConfig implements KafkaListenerConfigurer {
+
+  private final KafkaConsumer kafkaConsumer;
+  private final AuditRetryPublisher retryPublisher;
+  private final ConcurrentKafkaListenerContainerFactory<Object, Object> retryListenerContainerFactory;
+
+  public AuditRetryListenerConfig(KafkaConsumer kafkaConsumer,
+      AuditRetryPublisher retryPublisher,
+      ConcurrentKafkaListenerContainerFactory<Object, Object> retryListenerContainerFactory) {
+    this.kafkaConsumer = kafkaConsumer;
+    this.retryPublisher = retryPublisher;
+    this.retryListenerContainerFactory = retryListenerContainerFactory;
+  }
+
+  @Override
+  public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+    DefaultMessageHandlerMethodFactory handlerMethodFactory =
+        new DefaultMessageHandlerMethodFactory();
+    handlerMethodFactory.afterPropertiesSet();
+    for (int tier = 0; tier < retryPublisher.tierCount(); tier++) {
+      MethodKafkaListenerEndpoint<String, byte[]> endpoint =
+          new MethodKafkaListenerEndpoint<>();
+      endpoint.setId("audit-retry-" + tier);
+      endpoint.setGroupId("analytics-service-retry-" + tier);
+      endpoint.setTopics(AuditRetryPublisher.retryTopic(tier));
+      endpoint.setBatchListener(true);
+      endpoint.setBean(kafkaConsumer);
+      endpoint.setMethod(retryMethod());
+      endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+      registrar.registerEndpoint(endpoint, retryListenerContainerFactory);
+    }
+  }
+
+  private static Method retryMethod() {
+    try {
+      return KafkaConsumer.class.getMethod("consumeRetries", List.class,
+          Acknowledgment.class);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
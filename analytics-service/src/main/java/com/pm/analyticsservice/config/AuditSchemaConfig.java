@@ -0,0 +1,16 @@
+package com.pm.analyticsservice.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AuditSchemaConfig {
+
+  // The partitioned audit_events table must exist before Hibernate's schema
+  // update runs, otherwise it would create a plain table in its place
+  @Bean
+  public static EntityManagerFactoryDependsOnPostProcessor auditSchemaDependency() {
+    return new EntityManagerFactoryDependsOnPostProcessor("auditPartitionService");
+  }
+}
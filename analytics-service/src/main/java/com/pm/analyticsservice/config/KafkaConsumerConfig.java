@@ -0,0 +1,71 @@
+package com.pm.analyticsservice.config;
+
+import com.pm.analyticsservice.kafka.AuditRetryPublisher;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+  // Picked up by Boot's listener container factory. A failed batch flush is
+  // re-delivered with backoff; records that still can't be stored are
+  // handed to the retry tiers rather than dropped.
+  @Bean
+  public DefaultErrorHandler kafkaErrorHandler(
+      AuditRetryPublisher retryPublisher) {
+    ExponentialBackOff backOff = new ExponentialBackOff(500L, 2.0);
+    backOff.setMaxInterval(10_000L);
+    backOff.setMaxElapsedTime(60_000L);
+    return new DefaultErrorHandler(
+        (record, exception) -> retryPublisher.retry(asBytesRecord(record),
+            exception), backOff);
+  }
+
+  // Same settings as the main listeners, but acknowledged by the listener
+  // so a retry tier can sleep until its next record is due
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<Object, Object> retryListenerContainerFactory(
+      ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+      ConsumerFactory<Object, Object> consumerFactory) {
+    ConcurrentKafkaListenerContainerFactory<Object, Object> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    configurer.configure(factory, consumerFactory);
+    factory.setBatchListener(true);
+    factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+    return factory;
+  }
+
+  @Bean
+  public KafkaAdmin.NewTopics auditRetryTopics(
+      AuditRetryPublisher retryPublisher,
+      @Value("${analytics.ingest.retry.partitions:1}") int partitions) {
+    List<NewTopic> topics = new ArrayList<>();
+    for (int tier = 0; tier < retryPublisher.tierCount(); tier++) {
+      topics.add(TopicBuilder.name(AuditRetryPublisher.retryTopic(tier))
+          .partitions(partitions).build());
+    }
+    topics.add(TopicBuilder.name(AuditRetryPublisher.DEAD_LETTER_TOPIC)
+        .partitions(partitions).build());
+    return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+  }
+
+  // Every analytics listener consumes String keys and byte[] values
+  @SuppressWarnings("unchecked")
+  private static ConsumerRecord<String, byte[]> asBytesRecord(
+      ConsumerRecord<?, ?> record) {
+    return (ConsumerRecord<String, byte[]>) record;
+  }
+}
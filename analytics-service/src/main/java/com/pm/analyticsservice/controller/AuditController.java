@@ -1,53 +1,159 @@
 package com.pm.analyticsservice.controller;
 
 import com.pm.analyticsservice.dto.AuditEventDTO;
+import com.pm.analyticsservice.dto.AuditHistoryPageDTO;
+import com.pm.analyticsservice.dto.DeadLetterReplayDTO;
+import com.pm.analyticsservice.mapper.AuditEventMapper;
 import com.pm.analyticsservice.model.AuditEvent;
-import com.pm.analyticsservice.repository.AuditEventRepository;
+import com.pm.analyticsservice.service.AuditExportService;
+import com.pm.analyticsservice.service.AuditStreamService;
+import com.pm.analyticsservice.service.DeadLetterReplayService;
+import com.pm.analyticsservice.service.PatientHistoryCache;
+import com.pm.analyticsservice.service.RecentActivityService;
+import com.pm.analyticsservice.util.AuditCursor;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/analytics/audit")
 public class AuditController {
 
-  private final AuditEventRepository auditEventRepository;
+  private static final int MAX_PAGE_SIZE = 500;
+  private static final int MAX_REPLAY_SIZE = 10_000;
 
-  public AuditController(AuditEventRepository auditEventRepository) {
-    this.auditEventRepository = auditEventRepository;
+  private final PatientHistoryCache patientHistoryCache;
+  private final RecentActivityService recentActivityService;
+  private final AuditStreamService auditStreamService;
+  private final DeadLetterReplayService deadLetterReplayService;
+  private final AuditExportService auditExportService;
+
+  public AuditController(PatientHistoryCache patientHistoryCache,
+      RecentActivityService recentActivityService,
+      AuditStreamService auditStreamService,
+      DeadLetterReplayService deadLetterReplayService,
+      AuditExportService auditExportService) {
+    this.patientHistoryCache = patientHistoryCache;
+    this.recentActivityService = recentActivityService;
+    this.auditStreamService = auditStreamService;
+    this.deadLetterReplayService = deadLetterReplayService;
+    this.auditExportService = auditExportService;
   }
 
+  // Served from memory; older activity is available per patient through the
+  // paginated history endpoint
   @GetMapping("/recent")
   public List<AuditEventDTO> getRecentActivity(@RequestParam(defaultValue = "10") int limit) {
-    Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "eventTimestamp"));
-    return auditEventRepository.findAll(pageable)
-        .stream()
-        .map(this::convertToDTO)
-        .collect(Collectors.toList());
+    if (limit < 1 || limit > recentActivityService.capacity()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "limit must be between 1 and " + recentActivityService.capacity());
+    }
+    return recentActivityService.getRecent(limit);
+  }
+
+  // Live feed of audit events as they are persisted; browsers resume with
+  // Last-Event-ID after a reconnect
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamActivity(
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    if (!auditStreamService.acceptsSubscribers()) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+          "Too many activity stream subscribers");
+    }
+    return auditStreamService.subscribe(lastEventId);
   }
 
+  // Newest first; pass nextCursor back as cursor to get the following page.
+  // Recent pages of recently viewed patients come from memory.
   @GetMapping("/patient/{patientId}")
-  public List<AuditEventDTO> getPatientHistory(@PathVariable String patientId) {
-    return auditEventRepository.findByPatientIdOrderByEventTimestampDesc(patientId)
-        .stream()
-        .map(this::convertToDTO)
-        .collect(Collectors.toList());
+  public AuditHistoryPageDTO getPatientHistory(@PathVariable String patientId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int size) {
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "size must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    AuditCursor after = cursor == null || cursor.isBlank() ? null
+        : decodeCursor(cursor);
+    // Fetch one extra row to know whether another page exists
+    List<AuditEvent> events = patientHistoryCache.page(patientId, after,
+        size + 1);
+
+    String nextCursor = null;
+    if (events.size() > size) {
+      events = events.subList(0, size);
+      AuditEvent last = events.get(size - 1);
+      nextCursor = new AuditCursor(last.getEventTimestamp(), last.getId())
+          .encode();
+    }
+    return new AuditHistoryPageDTO(
+        events.stream().map(AuditEventMapper::toDTO).toList(), nextCursor);
+  }
+
+  // Sends up to limit dead-lettered events back through the retry tiers;
+  // call again while remaining is above zero
+  @PostMapping("/dead-letters/replay")
+  public DeadLetterReplayDTO replayDeadLetters(
+      @RequestParam(defaultValue = "1000") int limit) {
+    if (limit < 1 || limit > MAX_REPLAY_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "limit must be between 1 and " + MAX_REPLAY_SIZE);
+    }
+    return deadLetterReplayService.replay(limit);
+  }
+
+  // Full extract for compliance, oldest first, streamed from a database
+  // cursor; from/to default to everything up to now
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportEvents(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String eventType,
+      @RequestParam(defaultValue = "CSV") AuditExportService.Format format,
+      @RequestParam(defaultValue = "false") boolean gzip) {
+    LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    if (!start.isBefore(end)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "'from' must be before 'to'");
+    }
+
+    String filename = "audit-events." + format.name().toLowerCase()
+        + (gzip ? ".gz" : "");
+    MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+        : format == AuditExportService.Format.CSV
+            ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+            : MediaType.parseMediaType("application/x-ndjson");
+    StreamingResponseBody body = outputStream -> auditExportService.export(
+        start, end, eventType, format, gzip, outputStream);
+    return ResponseEntity.ok()
+        .contentType(contentType)
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(filename).build().toString())
+        .body(body);
   }
 
-  private AuditEventDTO convertToDTO(AuditEvent auditEvent) {
-    return new AuditEventDTO(
-        auditEvent.getEventType(),
-        auditEvent.getPatientName(),
-        auditEvent.getPatientEmail(),
-        auditEvent.getEventTimestamp()
-    );
+  private static AuditCursor decodeCursor(String cursor) {
+    try {
+      return AuditCursor.decode(cursor);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
   }
 }
 
@@ -0,0 +1,77 @@
+package com.pm.analyticsservice.controller;
+
+import com.pm.analyticsservice.dto.EventCountDTO;
+import com.pm.analyticsservice.dto.HistogramBucketDTO;
+import com.pm.analyticsservice.service.EventStatsService;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+// Ad-hoc counts over raw events for any time range and filter; only events
+// still held by the in-memory column store are counted
+@RestController
+@RequestMapping("/analytics/events")
+public class EventStatsController {
+
+  private final EventStatsService eventStatsService;
+  private final long maxBuckets;
+
+  public EventStatsController(EventStatsService eventStatsService,
+      @Value("${analytics.columnar.max-buckets:10000}") long maxBuckets) {
+    this.eventStatsService = eventStatsService;
+    this.maxBuckets = maxBuckets;
+  }
+
+  @GetMapping("/count")
+  public EventCountDTO count(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String eventType,
+      @RequestParam(required = false) String sourceService,
+      @RequestParam(required = false) String patientId) {
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    LocalDateTime start = from != null ? from : end.minusDays(1);
+    validateRange(start, end);
+    return eventStatsService.count(start, end, eventType, sourceService,
+        patientId);
+  }
+
+  @GetMapping("/histogram")
+  public List<HistogramBucketDTO> histogram(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "PT1H") Duration interval,
+      @RequestParam(required = false) String eventType,
+      @RequestParam(required = false) String sourceService,
+      @RequestParam(required = false) String patientId) {
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    LocalDateTime start = from != null ? from : end.minusDays(1);
+    validateRange(start, end);
+    if (interval.toMillis() < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "interval must be at least 1 ms");
+    }
+    if (Math.ceilDiv(Duration.between(start, end).toMillis(),
+        interval.toMillis()) > maxBuckets) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Range spans more than " + maxBuckets + " intervals");
+    }
+    return eventStatsService.histogram(start, end, interval, eventType,
+        sourceService, patientId);
+  }
+
+  private static void validateRange(LocalDateTime from, LocalDateTime to) {
+    if (!from.isBefore(to)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "'from' must be before 'to'");
+    }
+  }
+}
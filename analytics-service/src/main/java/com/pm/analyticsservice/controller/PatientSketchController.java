@@ -0,0 +1,77 @@
+package com.pm.analyticsservice.controller;
+
+import com.pm.analyticsservice.dto.DistinctPatientsDTO;
+import com.pm.analyticsservice.dto.TopPatientsDTO;
+import com.pm.analyticsservice.model.RollupGranularity;
+import com.pm.analyticsservice.service.PatientSketchService;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+// Approximate patient activity from per-bucket sketches; ranges are widened
+// to whole buckets and default to today
+@RestController
+@RequestMapping("/analytics/patients")
+public class PatientSketchController {
+
+  private final PatientSketchService patientSketchService;
+  private final long maxBuckets;
+
+  public PatientSketchController(PatientSketchService patientSketchService,
+      @Value("${analytics.sketch.max-buckets:10000}") long maxBuckets) {
+    this.patientSketchService = patientSketchService;
+    this.maxBuckets = maxBuckets;
+  }
+
+  @GetMapping("/distinct")
+  public DistinctPatientsDTO getDistinctPatients(
+      @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    LocalDateTime start = from != null ? from : end.truncatedTo(ChronoUnit.DAYS);
+    validateRange(granularity, start, end);
+    return patientSketchService.distinctPatients(granularity, start, end);
+  }
+
+  @GetMapping("/top")
+  public TopPatientsDTO getTopPatients(
+      @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "10") int limit) {
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    LocalDateTime start = from != null ? from : end.truncatedTo(ChronoUnit.DAYS);
+    validateRange(granularity, start, end);
+    if (limit < 1 || limit > patientSketchService.topCapacity()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "limit must be between 1 and "
+              + patientSketchService.topCapacity());
+    }
+    return patientSketchService.topPatients(granularity, start, end, limit);
+  }
+
+  private void validateRange(RollupGranularity granularity, LocalDateTime from,
+      LocalDateTime to) {
+    if (!PatientSketchService.GRANULARITIES.contains(granularity)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "granularity must be one of " + PatientSketchService.GRANULARITIES);
+    }
+    if (!from.isBefore(to)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "'from' must be before 'to'");
+    }
+    if (granularity.unit().between(from, to) > maxBuckets) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Range spans more than " + maxBuckets + " " + granularity
+              + " buckets");
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.pm.analyticsservice.controller;
+
+import com.pm.analyticsservice.dto.RollupBucketDTO;
+import com.pm.analyticsservice.model.RollupGranularity;
+import com.pm.analyticsservice.service.RollupService;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/analytics/rollups")
+public class RollupController {
+
+  private final RollupService rollupService;
+  private final long maxBuckets;
+
+  public RollupController(RollupService rollupService,
+      @Value("${analytics.rollup.max-buckets:10000}") long maxBuckets) {
+    this.rollupService = rollupService;
+    this.maxBuckets = maxBuckets;
+  }
+
+  @GetMapping
+  public List<RollupBucketDTO> getRollups(
+      @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String eventType,
+      @RequestParam(required = false) String sourceService) {
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    LocalDateTime start = from != null ? from : end.minusDays(1);
+    validateRange(granularity, start, end);
+    return rollupService.getBuckets(granularity, start, end, eventType,
+        sourceService);
+  }
+
+  @GetMapping("/totals")
+  public Map<String, Long> getTotals(
+      @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String sourceService) {
+    return getRollups(granularity, from, to, null, sourceService).stream()
+        .collect(Collectors.groupingBy(RollupBucketDTO::getEventType,
+            TreeMap::new, Collectors.summingLong(RollupBucketDTO::getCount)));
+  }
+
+  private void validateRange(RollupGranularity granularity, LocalDateTime from,
+      LocalDateTime to) {
+    if (!from.isBefore(to)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "'from' must be before 'to'");
+    }
+    if (granularity.unit().between(from, to) > maxBuckets) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Range spans more than " + maxBuckets + " " + granularity
+              + " buckets");
+    }
+  }
+}
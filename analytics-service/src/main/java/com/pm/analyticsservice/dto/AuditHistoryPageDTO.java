@@ -0,0 +1,33 @@
+package com.pm.analyticsservice.dto;
+
+import java.util.List;
+
+public class AuditHistoryPageDTO {
+
+  private List<AuditEventDTO> events;
+  private String nextCursor;
+
+  public AuditHistoryPageDTO() {
+  }
+
+  public AuditHistoryPageDTO(List<AuditEventDTO> events, String nextCursor) {
+    this.events = events;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<AuditEventDTO> getEvents() {
+    return events;
+  }
+
+  public void setEvents(List<AuditEventDTO> events) {
+    this.events = events;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+}
@@ -0,0 +1,31 @@
+package com.pm.analyticsservice.dto;
+
+public class DeadLetterReplayDTO {
+
+  private int replayed;
+  private long remaining;
+
+  public DeadLetterReplayDTO() {
+  }
+
+  public DeadLetterReplayDTO(int replayed, long remaining) {
+    this.replayed = replayed;
+    this.remaining = remaining;
+  }
+
+  public int getReplayed() {
+    return replayed;
+  }
+
+  public void setReplayed(int replayed) {
+    this.replayed = replayed;
+  }
+
+  public long getRemaining() {
+    return remaining;
+  }
+
+  public void setRemaining(long remaining) {
+    this.remaining = remaining;
+  }
+}
@@ -0,0 +1,54 @@
+package com.pm.analyticsservice.dto;
+
+import java.util.List;
+
+public class DistinctPatientsDTO {
+
+  private long estimate;
+  private double relativeStandardError;
+  private long eventCount;
+  private List<HistogramBucketDTO> buckets;
+
+  public DistinctPatientsDTO() {
+  }
+
+  public DistinctPatientsDTO(long estimate, double relativeStandardError,
+      long eventCount, List<HistogramBucketDTO> buckets) {
+    this.estimate = estimate;
+    this.relativeStandardError = relativeStandardError;
+    this.eventCount = eventCount;
+    this.buckets = buckets;
+  }
+
+  public long getEstimate() {
+    return estimate;
+  }
+
+  public void setEstimate(long estimate) {
+    this.estimate = estimate;
+  }
+
+  public double getRelativeStandardError() {
+    return relativeStandardError;
+  }
+
+  public void setRelativeStandardError(double relativeStandardError) {
+    this.relativeStandardError = relativeStandardError;
+  }
+
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  public void setEventCount(long eventCount) {
+    this.eventCount = eventCount;
+  }
+
+  public List<HistogramBucketDTO> getBuckets() {
+    return buckets;
+  }
+
+  public void setBuckets(List<HistogramBucketDTO> buckets) {
+    this.buckets = buckets;
+  }
+}
@@ -0,0 +1,33 @@
+package com.pm.analyticsservice.dto;
+
+import java.util.Map;
+
+public class EventCountDTO {
+
+  private long total;
+  private Map<String, Long> byEventType;
+
+  public EventCountDTO() {
+  }
+
+  public EventCountDTO(long total, Map<String, Long> byEventType) {
+    this.total = total;
+    this.byEventType = byEventType;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  public Map<String, Long> getByEventType() {
+    return byEventType;
+  }
+
+  public void setByEventType(Map<String, Long> byEventType) {
+    this.byEventType = byEventType;
+  }
+}
@@ -0,0 +1,33 @@
+package com.pm.analyticsservice.dto;
+
+import java.time.LocalDateTime;
+
+public class HistogramBucketDTO {
+
+  private LocalDateTime bucketStart;
+  private long count;
+
+  public HistogramBucketDTO() {
+  }
+
+  public HistogramBucketDTO(LocalDateTime bucketStart, long count) {
+    this.bucketStart = bucketStart;
+    this.count = count;
+  }
+
+  public LocalDateTime getBucketStart() {
+    return bucketStart;
+  }
+
+  public void setBucketStart(LocalDateTime bucketStart) {
+    this.bucketStart = bucketStart;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+}
@@ -0,0 +1,42 @@
+package com.pm.analyticsservice.dto;
+
+public class PatientActivityDTO {
+
+  private String patientId;
+  // Upper bound; the true count is at least count - error
+  private long count;
+  private long error;
+
+  public PatientActivityDTO() {
+  }
+
+  public PatientActivityDTO(String patientId, long count, long error) {
+    this.patientId = patientId;
+    this.count = count;
+    this.error = error;
+  }
+
+  public String getPatientId() {
+    return patientId;
+  }
+
+  public void setPatientId(String patientId) {
+    this.patientId = patientId;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  public long getError() {
+    return error;
+  }
+
+  public void setError(long error) {
+    this.error = error;
+  }
+}
@@ -0,0 +1,54 @@
+package com.pm.analyticsservice.dto;
+
+import java.time.LocalDateTime;
+
+public class RollupBucketDTO {
+
+  private LocalDateTime bucketStart;
+  private String eventType;
+  private String sourceService;
+  private long count;
+
+  public RollupBucketDTO() {
+  }
+
+  public RollupBucketDTO(LocalDateTime bucketStart, String eventType,
+      String sourceService, long count) {
+    this.bucketStart = bucketStart;
+    this.eventType = eventType;
+    this.sourceService = sourceService;
+    this.count = count;
+  }
+
+  public LocalDateTime getBucketStart() {
+    return bucketStart;
+  }
+
+  public void setBucketStart(LocalDateTime bucketStart) {
+    this.bucketStart = bucketStart;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+
+  public String getSourceService() {
+    return sourceService;
+  }
+
+  public void setSourceService(String sourceService) {
+    this.sourceService = sourceService;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+}
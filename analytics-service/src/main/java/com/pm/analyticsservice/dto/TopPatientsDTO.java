@@ -0,0 +1,45 @@
+package com.pm.analyticsservice.dto;
+
+import java.util.List;
+
+public class TopPatientsDTO {
+
+  private long eventCount;
+  // No patient left out of the list had more events than this
+  private long maxUnlistedCount;
+  private List<PatientActivityDTO> patients;
+
+  public TopPatientsDTO() {
+  }
+
+  public TopPatientsDTO(long eventCount, long maxUnlistedCount,
+      List<PatientActivityDTO> patients) {
+    this.eventCount = eventCount;
+    this.maxUnlistedCount = maxUnlistedCount;
+    this.patients = patients;
+  }
+
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  public void setEventCount(long eventCount) {
+    this.eventCount = eventCount;
+  }
+
+  public long getMaxUnlistedCount() {
+    return maxUnlistedCount;
+  }
+
+  public void setMaxUnlistedCount(long maxUnlistedCount) {
+    this.maxUnlistedCount = maxUnlistedCount;
+  }
+
+  public List<PatientActivityDTO> getPatients() {
+    return patients;
+  }
+
+  public void setPatients(List<PatientActivityDTO> patients) {
+    this.patients = patients;
+  }
+}
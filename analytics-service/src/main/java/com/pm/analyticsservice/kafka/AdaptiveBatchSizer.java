@@ -0,0 +1,39 @@
+package com.pm.analyticsservice.kafka;
+
+// Additive-increase / multiplicative-decrease sizing for DB flushes: grows
+// the chunk while flushes stay under the latency target and halves it as
+// soon as one overshoots.
+public class AdaptiveBatchSizer {
+
+  private final int minSize;
+  private final int maxSize;
+  private final int increment;
+  private final long targetLatencyNanos;
+  private volatile int currentSize;
+
+  public AdaptiveBatchSizer(int minSize, int maxSize, int initialSize,
+      long targetLatencyMs) {
+    if (minSize < 1 || maxSize < minSize) {
+      throw new IllegalArgumentException(
+          "Batch size bounds must satisfy 1 <= min <= max");
+    }
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.increment = Math.max(1, minSize);
+    this.targetLatencyNanos = targetLatencyMs * 1_000_000L;
+    this.currentSize = Math.max(minSize, Math.min(maxSize, initialSize));
+  }
+
+  public int currentSize() {
+    return currentSize;
+  }
+
+  public void record(int flushedSize, long elapsedNanos) {
+    if (elapsedNanos > targetLatencyNanos) {
+      currentSize = Math.max(minSize, currentSize / 2);
+    } else if (flushedSize >= currentSize) {
+      // Only grow when the chunk was actually full
+      currentSize = Math.min(maxSize, currentSize + increment);
+    }
+  }
+}
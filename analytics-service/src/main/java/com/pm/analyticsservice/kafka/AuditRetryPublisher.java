@@ -0,0 +1,191 @@
+package com.pm.analyticsservice.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+// Moves records that could not be stored off the main topic. A failed
+// record goes to patient-retry-0, then patient-retry-1 and so on, each tier
+// waiting longer before the next attempt; after the last tier, or straight
+// away for payloads that can never be parsed, it lands in patient-dlt with
+// the original payload and the failure details as headers.
+@Component
+public class AuditRetryPublisher {
+
+  public static final String MAIN_TOPIC = "patient";
+  public static final String RETRY_TOPIC_PREFIX = "patient-retry-";
+  public static final String DEAD_LETTER_TOPIC = "patient-dlt";
+  // Number of tiers the record has been through, as a decimal string
+  public static final String ATTEMPT_HEADER = "analytics-retry-attempt";
+  // Epoch millis before which a retry tier must not process the record
+  public static final String DUE_AT_HEADER = "analytics-retry-due-at";
+
+  private static final Logger log = LoggerFactory.getLogger(
+      AuditRetryPublisher.class);
+  private static final long SEND_TIMEOUT_SECONDS = 10;
+
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final List<Duration> delays;
+  private final List<Counter> retriedCounters = new ArrayList<>();
+  private final Counter deadLetteredCounter;
+
+  public AuditRetryPublisher(KafkaTemplate<String, byte[]> kafkaTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${analytics.ingest.retry.delays:PT10S,PT1M,PT10M}") List<Duration> delays) {
+    if (delays.isEmpty()) {
+      throw new IllegalArgumentException(
+          "analytics.ingest.retry.delays needs at least one delay");
+    }
+    this.kafkaTemplate = kafkaTemplate;
+    this.delays = List.copyOf(delays);
+    for (int tier = 0; tier < delays.size(); tier++) {
+      retriedCounters.add(Counter.builder("analytics.audit.events.retried")
+          .description("Patient events sent to a retry tier")
+          .tag("tier", String.valueOf(tier))
+          .register(meterRegistry));
+    }
+    this.deadLetteredCounter = Counter.builder(
+            "analytics.audit.events.dead-lettered")
+        .description("Patient events sent to the dead-letter topic")
+        .register(meterRegistry);
+  }
+
+  public int tierCount() {
+    return delays.size();
+  }
+
+  public Duration delay(int tier) {
+    return delays.get(tier);
+  }
+
+  public static String retryTopic(int tier) {
+    return RETRY_TOPIC_PREFIX + tier;
+  }
+
+  // Sends the record to the tier after the one it came from, or to the
+  // dead-letter topic once every tier has been tried. Blocks until the
+  // broker has it so the caller can safely commit past the record.
+  public void retry(ConsumerRecord<String, byte[]> record, Exception cause) {
+    int attempt = attempt(record);
+    if (attempt >= delays.size()) {
+      deadLetter(record, cause);
+      return;
+    }
+    Headers headers = failureHeaders(record, cause);
+    headers.add(ATTEMPT_HEADER, bytes(String.valueOf(attempt + 1)));
+    headers.add(DUE_AT_HEADER, bytes(String.valueOf(
+        System.currentTimeMillis() + delays.get(attempt).toMillis())));
+    send(retryTopic(attempt), record, headers);
+    retriedCounters.get(attempt).increment();
+    log.warn("Audit event at {}-{}@{} failed, retrying in {}: {}",
+        record.topic(), record.partition(), record.offset(),
+        delays.get(attempt), cause.getMessage());
+  }
+
+  public void deadLetter(ConsumerRecord<String, byte[]> record,
+      Exception cause) {
+    Headers headers = failureHeaders(record, cause);
+    headers.add(ATTEMPT_HEADER, bytes(String.valueOf(attempt(record))));
+    send(DEAD_LETTER_TOPIC, record, headers);
+    deadLetteredCounter.increment();
+    log.error("Audit event at {}-{}@{} dead-lettered: {}", record.topic(),
+        record.partition(), record.offset(), cause.getMessage());
+  }
+
+  // Puts a dead-lettered record back at the start of the retry tiers, due
+  // immediately
+  public void replay(ConsumerRecord<String, byte[]> record) {
+    Headers headers = new RecordHeaders();
+    for (Header header : record.headers()) {
+      if (!ATTEMPT_HEADER.equals(header.key())
+          && !DUE_AT_HEADER.equals(header.key())) {
+        headers.add(header);
+      }
+    }
+    headers.add(ATTEMPT_HEADER, bytes("0"));
+    send(retryTopic(0), record, headers);
+  }
+
+  // Tiers the record has already been through; 0 on the main topic
+  public static int attempt(ConsumerRecord<String, byte[]> record) {
+    String value = header(record, ATTEMPT_HEADER);
+    return value == null ? 0 : Integer.parseInt(value);
+  }
+
+  public static long dueAt(ConsumerRecord<String, byte[]> record) {
+    String value = header(record, DUE_AT_HEADER);
+    return value == null ? 0 : Long.parseLong(value);
+  }
+
+  // Keeps the original-location headers from the first failure so the
+  // dead letter still points at the record on the main topic
+  private static Headers failureHeaders(ConsumerRecord<String, byte[]> record,
+      Exception cause) {
+    Headers headers = new RecordHeaders();
+    boolean hasOrigin = record.headers().lastHeader(
+        KafkaHeaders.DLT_ORIGINAL_TOPIC) != null;
+    for (Header header : record.headers()) {
+      String key = header.key();
+      if (key.startsWith("kafka_dlt-exception") || ATTEMPT_HEADER.equals(key)
+          || DUE_AT_HEADER.equals(key)) {
+        continue;
+      }
+      headers.add(header);
+    }
+    if (!hasOrigin) {
+      headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, bytes(record.topic()));
+      headers.add(KafkaHeaders.DLT_ORIGINAL_PARTITION,
+          bytes(String.valueOf(record.partition())));
+      headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET,
+          bytes(String.valueOf(record.offset())));
+      headers.add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP,
+          bytes(String.valueOf(record.timestamp())));
+    }
+    headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN,
+        bytes(cause.getClass().getName()));
+    headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+        bytes(String.valueOf(cause.getMessage())));
+    return headers;
+  }
+
+  private void send(String topic, ConsumerRecord<String, byte[]> record,
+      Headers headers) {
+    try {
+      kafkaTemplate.send(new ProducerRecord<>(topic, null, record.key(),
+          record.value(), headers)).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted publishing to " + topic, e);
+    } catch (ExecutionException | TimeoutException e) {
+      throw new IllegalStateException("Could not publish to " + topic, e);
+    }
+  }
+
+  private static String header(ConsumerRecord<String, byte[]> record,
+      String key) {
+    Header header = record.headers().lastHeader(key);
+    return header == null ? null
+        : new String(header.value(), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
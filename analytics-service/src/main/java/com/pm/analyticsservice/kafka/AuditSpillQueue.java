@@ -0,0 +1,228 @@
+package com.pm.analyticsservice.kafka;
+
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.util.SpillQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+// Write-behind buffer for audit events while the database is unreachable.
+// The consumer spills events here instead of blocking the partition, and
+// drains them back into the database once it answers again. Events keep
+// their ids, so an event drained twice after a crash is stored once.
+@Component
+public class AuditSpillQueue {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      AuditSpillQueue.class);
+  private static final int FORMAT_VERSION = 1;
+
+  private final SpillQueue queue;
+  private final Counter spilledCounter;
+  private final Counter drainedCounter;
+  private final Counter rejectedCounter;
+
+  public AuditSpillQueue(MeterRegistry meterRegistry,
+      @Value("${analytics.spill.directory:data/spill}") Path directory,
+      @Value("${analytics.spill.segment-size:64MB}") DataSize segmentSize,
+      @Value("${analytics.spill.max-size:1GB}") DataSize maxSize,
+      @Value("${analytics.spill.fsync:EVERY_APPEND}") SpillQueue.Fsync fsync)
+      throws IOException {
+    int segmentBytes = Math.toIntExact(segmentSize.toBytes());
+    int maxSegments = Math.toIntExact(Math.max(1,
+        maxSize.toBytes() / segmentBytes));
+    this.queue = new SpillQueue(directory, segmentBytes, maxSegments, fsync);
+    if (queue.depth() > 0) {
+      log.warn("Found {} spilled audit events in {} waiting to be stored",
+          queue.depth(), directory.toAbsolutePath());
+    }
+    if (queue.corruptSegments() > 0) {
+      log.error("Discarded unreadable records at the end of {} spill segments",
+          queue.corruptSegments());
+    }
+
+    this.spilledCounter = Counter.builder("analytics.spill.events.spilled")
+        .description("Audit events written to the spill queue")
+        .register(meterRegistry);
+    this.drainedCounter = Counter.builder("analytics.spill.events.drained")
+        .description("Spilled audit events stored in the database")
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder("analytics.spill.events.rejected")
+        .description("Spilled audit events the database refused, handed to "
+            + "the retry tiers")
+        .register(meterRegistry);
+    Gauge.builder("analytics.spill.depth", queue, SpillQueue::depth)
+        .description("Audit events waiting in the spill queue")
+        .register(meterRegistry);
+    Gauge.builder("analytics.spill.bytes", queue, SpillQueue::usedBytes)
+        .description("Disk used by spill segments with undrained events")
+        .register(meterRegistry);
+  }
+
+  // Once anything is spilled, new events follow it until the queue drains
+  // so the consumer doesn't keep waiting on a database that is down
+  public boolean hasBacklog() {
+    return queue.depth() > 0;
+  }
+
+  // False if the events don't fit in analytics.spill.max-size
+  public boolean spill(List<AuditEvent> events) {
+    List<byte[]> records = new ArrayList<>(events.size());
+    for (AuditEvent event : events) {
+      if (event.getId() == null) {
+        event.setId(UUID.randomUUID());
+      }
+      records.add(encode(event));
+    }
+    try {
+      if (!queue.append(records)) {
+        return false;
+      }
+    } catch (IOException e) {
+      log.error("Could not write to the spill queue: {}", e.getMessage());
+      return false;
+    }
+    spilledCounter.increment(events.size());
+    return true;
+  }
+
+  // Takes the next events off the queue, hands them to store and commits
+  // them once they are handled. Like the consumer's own store path, a
+  // failure that unavailable accepts (the database is down) leaves the
+  // batch queued; any other failure stores the events one at a time and
+  // hands the ones that still fail to reject, so a single bad event can't
+  // hold back the queue. An exception from reject also leaves the batch
+  // queued. Returns the number of events taken off the queue.
+  public int drain(int maxEvents, Consumer<List<AuditEvent>> store,
+      Predicate<RuntimeException> unavailable,
+      BiConsumer<AuditEvent, RuntimeException> reject) {
+    SpillQueue.Batch batch = queue.peek(maxEvents);
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    List<AuditEvent> events = new ArrayList<>(batch.records().size());
+    for (byte[] record : batch.records()) {
+      try {
+        events.add(decode(record));
+      } catch (RuntimeException e) {
+        // The CRC matched, so this is a format this build can't read;
+        // keeping it would stop the queue for good
+        log.error("Discarding unreadable spilled audit event: {}",
+            e.getMessage());
+      }
+    }
+
+    int rejected = 0;
+    try {
+      store.accept(events);
+    } catch (RuntimeException e) {
+      if (unavailable.test(e)) {
+        throw e;
+      }
+      log.warn("Storing {} spilled audit events failed, storing them one at "
+          + "a time: {}", events.size(), e.getMessage());
+      for (AuditEvent event : events) {
+        try {
+          store.accept(List.of(event));
+        } catch (RuntimeException eventFailure) {
+          if (unavailable.test(eventFailure)) {
+            throw eventFailure;
+          }
+          reject.accept(event, eventFailure);
+          rejected++;
+        }
+      }
+    }
+    queue.commit(batch);
+    drainedCounter.increment(events.size() - rejected);
+    rejectedCounter.increment(rejected);
+    return batch.records().size();
+  }
+
+  public long depth() {
+    return queue.depth();
+  }
+
+  @Scheduled(fixedDelayString = "${analytics.spill.fsync-interval-ms:1000}")
+  public void force() {
+    queue.force();
+  }
+
+  @PreDestroy
+  public void close() {
+    queue.close();
+  }
+
+  private static byte[] encode(AuditEvent event) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(FORMAT_VERSION);
+      out.writeLong(event.getId().getMostSignificantBits());
+      out.writeLong(event.getId().getLeastSignificantBits());
+      writeString(out, event.getPatientId());
+      writeString(out, event.getPatientName());
+      writeString(out, event.getPatientEmail());
+      writeString(out, event.getEventType());
+      writeString(out, event.getEventTimestamp().toString());
+      writeString(out, event.getSourceService());
+      out.writeLong(event.getEventSequence());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static AuditEvent decode(byte[] record) {
+    try (DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(record))) {
+      int version = in.readByte();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalStateException("Unknown spill record version "
+            + version);
+      }
+      UUID id = new UUID(in.readLong(), in.readLong());
+      AuditEvent event = new AuditEvent(readString(in), readString(in),
+          readString(in), readString(in), LocalDateTime.parse(readString(in)),
+          readString(in));
+      event.setId(id);
+      event.setEventSequence(in.readLong());
+      return event;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Nullable, unlike writeUTF
+  private static void writeString(DataOutputStream out, String value)
+      throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
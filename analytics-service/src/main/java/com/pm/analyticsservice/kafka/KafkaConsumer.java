@@ -1,60 +1,499 @@
 package com.pm.analyticsservice.kafka;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
 import com.pm.analyticsservice.model.AuditEvent;
-import com.pm.analyticsservice.repository.AuditEventRepository;
+import com.pm.analyticsservice.repository.AuditEventBatchRepository;
+import com.pm.analyticsservice.service.AuditStreamService;
+import com.pm.analyticsservice.service.EventDedupeService;
+import com.pm.analyticsservice.service.EventStatsService;
+import com.pm.analyticsservice.service.PatientHistoryCache;
+import com.pm.analyticsservice.service.PatientSketchService;
+import com.pm.analyticsservice.service.RecentActivityService;
+import com.pm.analyticsservice.service.RollupService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
 import patient.events.PatientEvent;
 
 @Service
 public class KafkaConsumer {
 
   private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
+  // Bounds one drain run so it doesn't hold the scheduler thread that also
+  // runs rollup flushes
+  private static final long MAX_DRAIN_NANOS = TimeUnit.SECONDS.toNanos(5);
 
-  private final AuditEventRepository auditEventRepository;
+  private final AuditEventBatchRepository auditEventBatchRepository;
+  private final RollupService rollupService;
+  private final RecentActivityService recentActivityService;
+  private final AuditStreamService auditStreamService;
+  private final EventDedupeService eventDedupeService;
+  private final EventStatsService eventStatsService;
+  private final PatientHistoryCache patientHistoryCache;
+  private final PatientSketchService patientSketchService;
+  private final AuditRetryPublisher retryPublisher;
+  private final AuditSpillQueue spillQueue;
+  private final int drainBatchSize;
+  private final AdaptiveBatchSizer batchSizer;
+  private final Counter persistedCounter;
+  private final Counter malformedCounter;
+  private final Timer flushTimer;
+  private final MeterRegistry meterRegistry;
+  private final KeyOrderedExecutor workers;
+  private final Map<TopicPartition, AtomicLong> lagByPartition =
+      new ConcurrentHashMap<>();
 
-  public KafkaConsumer(AuditEventRepository auditEventRepository) {
-    this.auditEventRepository = auditEventRepository;
+  public KafkaConsumer(AuditEventBatchRepository auditEventBatchRepository,
+      RollupService rollupService, RecentActivityService recentActivityService,
+      AuditStreamService auditStreamService,
+      EventDedupeService eventDedupeService, EventStatsService eventStatsService,
+      PatientHistoryCache patientHistoryCache,
+      PatientSketchService patientSketchService,
+      AuditRetryPublisher retryPublisher, AuditSpillQueue spillQueue,
+      MeterRegistry meterRegistry,
+      @Value("${analytics.ingest.min-batch-size:50}") int minBatchSize,
+      @Value("${analytics.ingest.max-batch-size:2000}") int maxBatchSize,
+      @Value("${analytics.ingest.target-flush-ms:200}") long targetFlushMs,
+      @Value("${analytics.ingest.workers:4}") int workerCount,
+      @Value("${analytics.spill.drain-batch-size:2000}") int drainBatchSize) {
+    this.auditEventBatchRepository = auditEventBatchRepository;
+    this.rollupService = rollupService;
+    this.recentActivityService = recentActivityService;
+    this.auditStreamService = auditStreamService;
+    this.eventDedupeService = eventDedupeService;
+    this.eventStatsService = eventStatsService;
+    this.patientHistoryCache = patientHistoryCache;
+    this.patientSketchService = patientSketchService;
+    this.retryPublisher = retryPublisher;
+    this.spillQueue = spillQueue;
+    this.drainBatchSize = drainBatchSize;
+    this.batchSizer = new AdaptiveBatchSizer(minBatchSize, maxBatchSize,
+        minBatchSize, targetFlushMs);
+    this.persistedCounter = Counter.builder("analytics.audit.events.persisted")
+        .description("Audit events written to the database")
+        .register(meterRegistry);
+    this.malformedCounter = Counter.builder("analytics.audit.events.malformed")
+        .description("Patient events that could not be deserialized and were dead-lettered")
+        .register(meterRegistry);
+    this.flushTimer = Timer.builder("analytics.audit.batch.flush")
+        .description("Latency of one batched audit event insert")
+        .register(meterRegistry);
+    meterRegistry.gauge("analytics.audit.batch.size", batchSizer,
+        AdaptiveBatchSizer::currentSize);
+
+    this.meterRegistry = meterRegistry;
+    this.workers = new KeyOrderedExecutor("audit-worker", workerCount);
+    for (int lane = 0; lane < workers.laneCount(); lane++) {
+      int current = lane;
+      Gauge.builder("analytics.ingest.worker.queue", workers,
+              executor -> executor.queueDepth(current))
+          .description("Records waiting on or being processed by a worker")
+          .tag("worker", String.valueOf(lane))
+          .register(meterRegistry);
+    }
+  }
+
+  // Batch listener. Records are fanned out to worker lanes by patient id so
+  // one patient's events stay in order while different patients are written
+  // in parallel. Records that fail on their own are moved to the retry
+  // tiers, and while the database is unreachable events go to the spill
+  // queue, so the partition keeps going. The container commits the poll's
+  // offsets only after every lane has finished; if a lane fails (spill
+  // queue full, or Kafka refused the hand-off), offsets are committed up to
+  // the lowest failed record and the rest is redelivered.
+  @KafkaListener(topics = AuditRetryPublisher.MAIN_TOPIC,
+      groupId = "analytics-service",
+      concurrency = "${analytics.ingest.concurrency:1}")
+  public void consumeEvents(List<ConsumerRecord<String, byte[]>> records,
+      Consumer<?, ?> consumer) {
+    long start = System.nanoTime();
+    List<List<Integer>> laneRecords = new ArrayList<>(workers.laneCount());
+    for (int lane = 0; lane < workers.laneCount(); lane++) {
+      laneRecords.add(new ArrayList<>());
+    }
+    for (int i = 0; i < records.size(); i++) {
+      laneRecords.get(workers.laneFor(records.get(i).key())).add(i);
+    }
+
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int lane = 0; lane < laneRecords.size(); lane++) {
+      List<Integer> indices = laneRecords.get(lane);
+      if (!indices.isEmpty()) {
+        results.add(workers.submit(lane, indices.size(),
+            () -> process(records, indices)));
+      }
+    }
+
+    int persisted = 0;
+    LaneFailure firstFailure = null;
+    for (CompletableFuture<Integer> result : results) {
+      try {
+        persisted += result.join();
+      } catch (CompletionException e) {
+        if (!(e.getCause() instanceof LaneFailure failure)) {
+          throw e;
+        }
+        if (firstFailure == null || failure.index < firstFailure.index) {
+          firstFailure = failure;
+        }
+      }
+    }
+    recordLag(records, consumer);
+
+    if (firstFailure != null) {
+      // Every record before this index was stored: each lane works in
+      // record order and stops at its first failure
+      throw new BatchListenerFailedException("Failed to store audit events",
+          firstFailure.getCause(), firstFailure.index);
+    }
+
+    long elapsedNanos = System.nanoTime() - start;
+    if (persisted > 0) {
+      log.info("Persisted {} audit events in {} ms ({} events/s)",
+          persisted, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+          persisted * 1_000_000_000L / Math.max(1, elapsedNanos));
+    }
   }
 
-  @KafkaListener(topics="patient", groupId = "analytics-service")
-  public void consumeEvent(byte[] event) {
+  // Listener for one retry tier (registered per tier in KafkaConsumerConfig).
+  // Records become due in the order they were written, so everything up to
+  // the first record that is not due yet is processed, and the partition
+  // then sleeps until that record is due.
+  public void consumeRetries(List<ConsumerRecord<String, byte[]>> records,
+      Acknowledgment acknowledgment) {
+    long now = System.currentTimeMillis();
+    int due = 0;
+    while (due < records.size()
+        && AuditRetryPublisher.dueAt(records.get(due)) <= now) {
+      due++;
+    }
     try {
-      // Parse protobuf message
-      PatientEvent patientEvent = PatientEvent.parseFrom(event);
+      process(records, IntStream.range(0, due).boxed().toList());
+    } catch (LaneFailure failure) {
+      // The database is unreachable or the next tier couldn't be written;
+      // try again after this tier's delay
+      Duration delay = retryPublisher.delay(tier(records.get(failure.index)));
+      log.warn("Retrying audit events from {} in {}: {}",
+          records.get(failure.index).topic(), delay,
+          failure.getCause().getMessage());
+      acknowledgment.nack(failure.index, delay);
+      return;
+    }
+    if (due < records.size()) {
+      acknowledgment.nack(due, Duration.ofMillis(
+          AuditRetryPublisher.dueAt(records.get(due)) - now));
+    } else {
+      acknowledgment.acknowledge();
+    }
+  }
 
-      log.info("Received Patient Event: [PatientId={},PatientName={},PatientEmail={},EventType={}]",
-            patientEvent.getPatientId(),
-            patientEvent.getName(),
-            patientEvent.getEmail(),
-            patientEvent.getEventType());
+  private static int tier(ConsumerRecord<String, byte[]> record) {
+    return Integer.parseInt(record.topic().substring(
+        AuditRetryPublisher.RETRY_TOPIC_PREFIX.length()));
+  }
 
-      // Create and persist audit event
+  // Runs on a worker lane, or on a retry tier's listener thread; returns the
+  // number of events stored. Records are handled strictly in order, so on a
+  // LaneFailure everything before its index has been stored or handed off.
+  private int process(List<ConsumerRecord<String, byte[]>> records,
+      List<Integer> indices) {
+    List<AuditEvent> pending = new ArrayList<>();
+    List<Integer> pendingIndices = new ArrayList<>();
+    // A patient's events all land on this lane, so duplicates within the
+    // poll are caught here
+    Set<UUID> pollIds = new HashSet<>();
+    int stored = 0;
+
+    for (int index : indices) {
+      PatientEvent patientEvent;
       try {
-        AuditEvent auditEvent = new AuditEvent(
-            patientEvent.getPatientId(),
-            patientEvent.getName(),
-            patientEvent.getEmail(),
-            patientEvent.getEventType(),
-            LocalDateTime.now(),
-            "patient-service"
-        );
-
-        auditEventRepository.save(auditEvent);
-        log.info("Audit event persisted successfully for patient: {}", patientEvent.getPatientId());
-
-      } catch (Exception e) {
-        // Don't crash Kafka consumer if DB fails
-        log.error("Failed to persist audit event: {}", e.getMessage(), e);
-      }
-
-    } catch (InvalidProtocolBufferException e) {
-      // Don't crash Kafka consumer if parsing fails
-      log.error("Error deserializing event: {}", e.getMessage());
+        // Parse protobuf message
+        patientEvent = PatientEvent.parseFrom(records.get(index).value());
+      } catch (InvalidProtocolBufferException e) {
+        // Retrying can't fix the payload; park it in the dead-letter topic
+        malformedCounter.increment();
+        stored += store(records, pending, pendingIndices);
+        handOff(index, () -> retryPublisher.deadLetter(records.get(index), e));
+        continue;
+      }
+
+      log.debug("Received Patient Event: [PatientId={},PatientName={},PatientEmail={},EventType={}]",
+          patientEvent.getPatientId(),
+          patientEvent.getName(),
+          patientEvent.getEmail(),
+          patientEvent.getEventType());
+
+      AuditEvent auditEvent = toAuditEvent(patientEvent);
+      UUID eventId = auditEvent.getId();
+      if (eventId != null && !pollIds.add(eventId)) {
+        eventDedupeService.recordDuplicates(1);
+        continue;
+      }
+      if (eventId != null && eventDedupeService.isDuplicate(eventId)) {
+        log.debug("Skipping already stored event {}", eventId);
+        continue;
+      }
+      pending.add(auditEvent);
+      pendingIndices.add(index);
+      if (pending.size() >= batchSizer.currentSize()) {
+        stored += store(records, pending, pendingIndices);
+      }
+    }
+    return stored + store(records, pending, pendingIndices);
+  }
+
+  // Flushes and clears the pending events. If the database is unreachable
+  // they are spilled to disk and stored later by drainSpill. If the batch
+  // insert fails for any other reason, the events are retried one at a time
+  // and the ones that still fail move to the retry tiers, so a single bad
+  // event doesn't hold back the partition.
+  private int store(List<ConsumerRecord<String, byte[]>> records,
+      List<AuditEvent> pending, List<Integer> pendingIndices) {
+    if (pending.isEmpty()) {
+      return 0;
+    }
+    List<AuditEvent> events = new ArrayList<>(pending);
+    List<Integer> indices = new ArrayList<>(pendingIndices);
+    pending.clear();
+    pendingIndices.clear();
+
+    if (spillQueue.hasBacklog() && spillQueue.spill(events)) {
+      return 0;
+    }
+    try {
+      return flush(events);
+    } catch (RuntimeException e) {
+      if (isDatabaseUnavailable(e)) {
+        spillOrFail(events, indices.get(0), e);
+        return 0;
+      }
+      log.warn("Batch insert of {} audit events failed, storing them one at "
+          + "a time: {}", events.size(), e.getMessage());
+    }
+
+    int stored = 0;
+    for (int i = 0; i < events.size(); i++) {
+      int index = indices.get(i);
+      try {
+        stored += flush(List.of(events.get(i)));
+      } catch (RuntimeException e) {
+        if (isDatabaseUnavailable(e)) {
+          spillOrFail(events.subList(i, events.size()), index, e);
+          return stored;
+        }
+        handOff(index, () -> retryPublisher.retry(records.get(index), e));
+      }
+    }
+    return stored;
+  }
+
+  private void spillOrFail(List<AuditEvent> events, int index,
+      RuntimeException cause) {
+    if (!spillQueue.spill(events)) {
+      // Spill queue full: fall back to blocking the partition
+      throw new LaneFailure(index, cause);
+    }
+    log.warn("Database unavailable, spilled {} audit events: {}",
+        events.size(), cause.getMessage());
+  }
+
+  // Moves spilled events into the database once it is reachable again.
+  // Stops while the database is unavailable and tries again on the next
+  // run; events the database refuses go to the retry tiers.
+  @Scheduled(fixedDelayString = "${analytics.spill.drain-interval-ms:1000}")
+  public void drainSpill() {
+    if (!spillQueue.hasBacklog()) {
+      return;
+    }
+    long start = System.nanoTime();
+    long deadline = start + MAX_DRAIN_NANOS;
+    int drained = 0;
+    try {
+      int batch;
+      do {
+        batch = spillQueue.drain(drainBatchSize, this::flush,
+            KafkaConsumer::isDatabaseUnavailable, this::retrySpilled);
+        drained += batch;
+      } while (batch > 0 && System.nanoTime() < deadline);
+    } catch (RuntimeException e) {
+      log.debug("Spilled audit events not drained yet: {}", e.getMessage());
+    }
+    if (drained > 0) {
+      log.info("Drained {} spilled audit events in {} ms, {} left", drained,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+          spillQueue.depth());
+    }
+  }
+
+  // A spilled event has no Kafka record left, so it is re-encoded as one on
+  // the main topic; the retry tiers then treat it like any failed record
+  private void retrySpilled(AuditEvent event, RuntimeException cause) {
+    retryPublisher.retry(new ConsumerRecord<>(AuditRetryPublisher.MAIN_TOPIC,
+        -1, -1L, event.getPatientId(), toPatientEvent(event).toByteArray()),
+        cause);
+  }
+
+  // An unreachable database fails every record alike; those failures are
+  // spilled instead of flooding the retry tiers
+  private static boolean isDatabaseUnavailable(RuntimeException e) {
+    return e instanceof DataAccessResourceFailureException
+        || e instanceof CannotCreateTransactionException;
+  }
+
+  private static void handOff(int index, Runnable publish) {
+    try {
+      publish.run();
+    } catch (RuntimeException e) {
+      throw new LaneFailure(index, e);
+    }
+  }
+
+  // Version 1 events carry no id, sequence or timestamp; they get a
+  // generated id and the time they were consumed
+  private static AuditEvent toAuditEvent(PatientEvent patientEvent) {
+    LocalDateTime occurredAt = LocalDateTime.now();
+    if (patientEvent.hasOccurredAt()) {
+      occurredAt = LocalDateTime.ofInstant(Instant.ofEpochSecond(
+              patientEvent.getOccurredAt().getSeconds(),
+              patientEvent.getOccurredAt().getNanos()),
+          ZoneId.systemDefault());
+    }
+    AuditEvent auditEvent = new AuditEvent(
+        patientEvent.getPatientId(),
+        patientEvent.getName(),
+        patientEvent.getEmail(),
+        patientEvent.getEventType(),
+        occurredAt,
+        "patient-service"
+    );
+    auditEvent.setId(parseEventId(patientEvent.getEventId()));
+    auditEvent.setEventSequence(patientEvent.getSequence());
+    return auditEvent;
+  }
+
+  // Inverse of toAuditEvent; proto3 strings can't be null
+  private static PatientEvent toPatientEvent(AuditEvent event) {
+    Instant occurredAt = event.getEventTimestamp()
+        .atZone(ZoneId.systemDefault()).toInstant();
+    return PatientEvent.newBuilder()
+        .setPatientId(Objects.toString(event.getPatientId(), ""))
+        .setName(Objects.toString(event.getPatientName(), ""))
+        .setEmail(Objects.toString(event.getPatientEmail(), ""))
+        .setEventType(Objects.toString(event.getEventType(), ""))
+        .setSchemaVersion(2)
+        .setEventId(event.getId().toString())
+        .setSequence(event.getEventSequence())
+        .setOccurredAt(Timestamp.newBuilder()
+            .setSeconds(occurredAt.getEpochSecond())
+            .setNanos(occurredAt.getNano()))
+        .build();
+  }
+
+  private static UUID parseEventId(String eventId) {
+    if (eventId.isEmpty()) {
+      return null;
+    }
+    try {
+      return UUID.fromString(eventId);
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring malformed event id {}", eventId);
+      return null;
+    }
+  }
+
+  private void recordLag(List<ConsumerRecord<String, byte[]>> records,
+      Consumer<?, ?> consumer) {
+    Set<TopicPartition> partitions = new HashSet<>();
+    for (ConsumerRecord<String, byte[]> record : records) {
+      partitions.add(new TopicPartition(record.topic(), record.partition()));
+    }
+    for (TopicPartition partition : partitions) {
+      OptionalLong lag = consumer.currentLag(partition);
+      if (lag.isPresent()) {
+        lagByPartition.computeIfAbsent(partition, this::registerLagGauge)
+            .set(lag.getAsLong());
+      }
+    }
+  }
+
+  private AtomicLong registerLagGauge(TopicPartition partition) {
+    return meterRegistry.gauge("analytics.ingest.consumer.lag",
+        Tags.of("topic", partition.topic(),
+            "partition", String.valueOf(partition.partition())),
+        new AtomicLong());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workers.close();
+  }
+
+  // Returns the number of events written; ones the database already had
+  // are not passed on to rollups or the live views
+  private int flush(List<AuditEvent> chunk) {
+    long start = System.nanoTime();
+    // Failures propagate so the container retries the poll instead of
+    // committing offsets for events that were never stored
+    List<AuditEvent> stored = auditEventBatchRepository.insertAll(chunk);
+    long elapsed = System.nanoTime() - start;
+
+    flushTimer.record(elapsed, TimeUnit.NANOSECONDS);
+    eventDedupeService.markStored(chunk);
+    eventDedupeService.recordDuplicates(chunk.size() - stored.size());
+    persistedCounter.increment(stored.size());
+    rollupService.record(stored);
+    recentActivityService.record(stored);
+    eventStatsService.record(stored);
+    patientHistoryCache.record(stored);
+    patientSketchService.record(stored);
+    auditStreamService.signal();
+    batchSizer.record(chunk.size(), elapsed);
+    return stored.size();
+  }
+
+  // Carries the batch index of the first record a lane failed to store
+  private static class LaneFailure extends RuntimeException {
+
+    private final int index;
+
+    LaneFailure(int index, RuntimeException cause) {
+      super(cause);
+      this.index = index;
     }
   }
 }
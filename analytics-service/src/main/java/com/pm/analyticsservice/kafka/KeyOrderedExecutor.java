@@ -0,0 +1,70 @@
+package com.pm.analyticsservice.kafka;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Fixed set of single-threaded lanes. Work for a key always runs on the
+// same lane, so tasks for one key execute in submission order while
+// different keys proceed in parallel.
+public class KeyOrderedExecutor implements AutoCloseable {
+
+  private final ExecutorService[] lanes;
+  private final AtomicInteger[] queued;
+
+  public KeyOrderedExecutor(String name, int laneCount) {
+    if (laneCount < 1) {
+      throw new IllegalArgumentException("At least one lane is required");
+    }
+    this.lanes = new ExecutorService[laneCount];
+    this.queued = new AtomicInteger[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] = Executors.newSingleThreadExecutor(
+          Thread.ofPlatform().name(name + "-" + i).daemon().factory());
+      queued[i] = new AtomicInteger();
+    }
+  }
+
+  public int laneCount() {
+    return lanes.length;
+  }
+
+  public int laneFor(String key) {
+    return key == null ? 0 : Math.floorMod(key.hashCode(), lanes.length);
+  }
+
+  // weight is what the lane's queue depth is measured in, e.g. records
+  public <T> CompletableFuture<T> submit(int lane, int weight,
+      Supplier<T> task) {
+    queued[lane].addAndGet(weight);
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return task.get();
+      } finally {
+        queued[lane].addAndGet(-weight);
+      }
+    }, lanes[lane]);
+  }
+
+  public int queueDepth(int lane) {
+    return queued[lane].get();
+  }
+
+  @Override
+  public void close() {
+    for (ExecutorService lane : lanes) {
+      lane.shutdown();
+    }
+    for (ExecutorService lane : lanes) {
+      try {
+        lane.awaitTermination(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+}
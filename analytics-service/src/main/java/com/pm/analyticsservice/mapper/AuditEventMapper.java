@@ -0,0 +1,15 @@
+package com.pm.analyticsservice.mapper;
+
+import com.pm.analyticsservice.dto.AuditEventDTO;
+import com.pm.analyticsservice.model.AuditEvent;
+
+public class AuditEventMapper {
+  public static AuditEventDTO toDTO(AuditEvent auditEvent) {
+    return new AuditEventDTO(
+        auditEvent.getEventType(),
+        auditEvent.getPatientName(),
+        auditEvent.getPatientEmail(),
+        auditEvent.getEventTimestamp()
+    );
+  }
+}
@@ -1,6 +1,7 @@
 package com.pm.analyticsservice.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -8,11 +9,13 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "audit_events")
 public class AuditEvent {
 
+  // The producer's event id; generated only for events that lack one
   @Id
   @GeneratedValue(strategy = GenerationType.UUID)
   private UUID id;
@@ -26,15 +29,23 @@ public class AuditEvent {
   @Column(name = "patient_email")
   private String patientEmail;
 
-  @Column(name = "event_type", nullable = false)
+  // event_type and source_service are dictionary-encoded
+  @Convert(converter = DictionaryConverter.class)
+  @Column(name = "event_type_id", nullable = false)
   private String eventType;
 
   @Column(name = "event_timestamp", nullable = false)
   private LocalDateTime eventTimestamp;
 
-  @Column(name = "source_service", nullable = false)
+  @Convert(converter = DictionaryConverter.class)
+  @Column(name = "source_service_id", nullable = false)
   private String sourceService;
 
+  // Per-patient sequence from the producer; 0 for events that predate it
+  @ColumnDefault("0")
+  @Column(name = "event_sequence", nullable = false)
+  private long eventSequence;
+
   public AuditEvent() {
   }
 
@@ -103,5 +114,13 @@ public class AuditEvent {
   public void setSourceService(String sourceService) {
     this.sourceService = sourceService;
   }
+
+  public long getEventSequence() {
+    return eventSequence;
+  }
+
+  public void setEventSequence(long eventSequence) {
+    this.eventSequence = eventSequence;
+  }
 }
 
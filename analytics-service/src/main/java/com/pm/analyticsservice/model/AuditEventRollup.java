@@ -0,0 +1,43 @@
+package com.pm.analyticsservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "audit_event_rollups")
+public class AuditEventRollup {
+
+  // Primary key leads with (granularity, bucket_start) so range scans are
+  // served straight from the key index
+  @EmbeddedId
+  private AuditEventRollupId id;
+
+  @Column(name = "event_count", nullable = false)
+  private long eventCount;
+
+  public AuditEventRollup() {
+  }
+
+  public AuditEventRollup(AuditEventRollupId id, long eventCount) {
+    this.id = id;
+    this.eventCount = eventCount;
+  }
+
+  public AuditEventRollupId getId() {
+    return id;
+  }
+
+  public void setId(AuditEventRollupId id) {
+    this.id = id;
+  }
+
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  public void setEventCount(long eventCount) {
+    this.eventCount = eventCount;
+  }
+}
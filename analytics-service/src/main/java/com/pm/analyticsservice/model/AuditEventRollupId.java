@@ -0,0 +1,88 @@
+package com.pm.analyticsservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Embeddable
+public class AuditEventRollupId implements Serializable {
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "granularity", length = 8, nullable = false)
+  private RollupGranularity granularity;
+
+  @Column(name = "bucket_start", nullable = false)
+  private LocalDateTime bucketStart;
+
+  @Column(name = "event_type", nullable = false)
+  private String eventType;
+
+  @Column(name = "source_service", nullable = false)
+  private String sourceService;
+
+  public AuditEventRollupId() {
+  }
+
+  public AuditEventRollupId(RollupGranularity granularity,
+      LocalDateTime bucketStart, String eventType, String sourceService) {
+    this.granularity = granularity;
+    this.bucketStart = bucketStart;
+    this.eventType = eventType;
+    this.sourceService = sourceService;
+  }
+
+  public RollupGranularity getGranularity() {
+    return granularity;
+  }
+
+  public void setGranularity(RollupGranularity granularity) {
+    this.granularity = granularity;
+  }
+
+  public LocalDateTime getBucketStart() {
+    return bucketStart;
+  }
+
+  public void setBucketStart(LocalDateTime bucketStart) {
+    this.bucketStart = bucketStart;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+
+  public String getSourceService() {
+    return sourceService;
+  }
+
+  public void setSourceService(String sourceService) {
+    this.sourceService = sourceService;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof AuditEventRollupId that)) {
+      return false;
+    }
+    return granularity == that.granularity
+        && Objects.equals(bucketStart, that.bucketStart)
+        && Objects.equals(eventType, that.eventType)
+        && Objects.equals(sourceService, that.sourceService);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(granularity, bucketStart, eventType, sourceService);
+  }
+}
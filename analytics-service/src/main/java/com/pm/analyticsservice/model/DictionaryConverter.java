@@ -0,0 +1,29 @@
+package com.pm.analyticsservice.model;
+
+import com.pm.analyticsservice.repository.AuditDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.stereotype.Component;
+
+// Stores dictionary-encoded strings as smallint codes. Instantiated by
+// Hibernate through Spring so the shared AuditDictionary is injected.
+@Component
+@Converter
+public class DictionaryConverter implements AttributeConverter<String, Short> {
+
+  private final AuditDictionary dictionary;
+
+  public DictionaryConverter(AuditDictionary dictionary) {
+    this.dictionary = dictionary;
+  }
+
+  @Override
+  public Short convertToDatabaseColumn(String attribute) {
+    return attribute == null ? null : dictionary.encode(attribute);
+  }
+
+  @Override
+  public String convertToEntityAttribute(Short dbData) {
+    return dbData == null ? null : dictionary.decode(dbData);
+  }
+}
@@ -0,0 +1,69 @@
+package com.pm.analyticsservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+// Per-bucket patient sketches: a HyperLogLog of the patients touched and a
+// space-saving summary of the busiest ones, a few KB per row however many
+// patients the bucket saw
+@Entity
+@Table(name = "patient_sketches")
+public class PatientSketch {
+
+  @EmbeddedId
+  private PatientSketchId id;
+
+  @Column(name = "event_count", nullable = false)
+  private long eventCount;
+
+  @Column(name = "distinct_patients", nullable = false, length = 8192)
+  private byte[] distinctPatients;
+
+  @Column(name = "top_patients", nullable = false, length = 1048576)
+  private byte[] topPatients;
+
+  public PatientSketch() {
+  }
+
+  public PatientSketch(PatientSketchId id, long eventCount,
+      byte[] distinctPatients, byte[] topPatients) {
+    this.id = id;
+    this.eventCount = eventCount;
+    this.distinctPatients = distinctPatients;
+    this.topPatients = topPatients;
+  }
+
+  public PatientSketchId getId() {
+    return id;
+  }
+
+  public void setId(PatientSketchId id) {
+    this.id = id;
+  }
+
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  public void setEventCount(long eventCount) {
+    this.eventCount = eventCount;
+  }
+
+  public byte[] getDistinctPatients() {
+    return distinctPatients;
+  }
+
+  public void setDistinctPatients(byte[] distinctPatients) {
+    this.distinctPatients = distinctPatients;
+  }
+
+  public byte[] getTopPatients() {
+    return topPatients;
+  }
+
+  public void setTopPatients(byte[] topPatients) {
+    this.topPatients = topPatients;
+  }
+}
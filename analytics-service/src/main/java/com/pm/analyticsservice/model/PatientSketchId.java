@@ -0,0 +1,62 @@
+package com.pm.analyticsservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Embeddable
+public class PatientSketchId implements Serializable {
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "granularity", length = 8, nullable = false)
+  private RollupGranularity granularity;
+
+  @Column(name = "bucket_start", nullable = false)
+  private LocalDateTime bucketStart;
+
+  public PatientSketchId() {
+  }
+
+  public PatientSketchId(RollupGranularity granularity,
+      LocalDateTime bucketStart) {
+    this.granularity = granularity;
+    this.bucketStart = bucketStart;
+  }
+
+  public RollupGranularity getGranularity() {
+    return granularity;
+  }
+
+  public void setGranularity(RollupGranularity granularity) {
+    this.granularity = granularity;
+  }
+
+  public LocalDateTime getBucketStart() {
+    return bucketStart;
+  }
+
+  public void setBucketStart(LocalDateTime bucketStart) {
+    this.bucketStart = bucketStart;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PatientSketchId that)) {
+      return false;
+    }
+    return granularity == that.granularity
+        && Objects.equals(bucketStart, that.bucketStart);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(granularity, bucketStart);
+  }
+}
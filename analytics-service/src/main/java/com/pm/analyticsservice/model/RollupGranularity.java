@@ -0,0 +1,24 @@
+package com.pm.analyticsservice.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+  MINUTE(ChronoUnit.MINUTES),
+  HOUR(ChronoUnit.HOURS),
+  DAY(ChronoUnit.DAYS);
+
+  private final ChronoUnit unit;
+
+  RollupGranularity(ChronoUnit unit) {
+    this.unit = unit;
+  }
+
+  public ChronoUnit unit() {
+    return unit;
+  }
+
+  public LocalDateTime bucketStart(LocalDateTime timestamp) {
+    return timestamp.truncatedTo(unit);
+  }
+}
@@ -0,0 +1,140 @@
+package com.pm.analyticsservice.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Maps low-cardinality audit strings (event types, source services) to
+// smallint codes stored in audit_dictionary. Codes are cached for the life
+// of the process; new terms are registered on first use.
+@Repository
+public class AuditDictionary {
+
+  public static final String CREATE_TABLE_SQL =
+      "CREATE TABLE IF NOT EXISTS audit_dictionary ("
+          + "code SMALLINT PRIMARY KEY, term VARCHAR(255) NOT NULL UNIQUE)";
+
+  private static final int REGISTER_ATTEMPTS = 3;
+
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final Map<String, Short> codes = new ConcurrentHashMap<>();
+  private final Map<Short, String> terms = new ConcurrentHashMap<>();
+
+  public AuditDictionary(DataSource dataSource) {
+    this.dataSource = dataSource;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  public short encode(String term) {
+    Short code = codes.get(term);
+    return code != null ? code : register(term);
+  }
+
+  // Code for a term without registering it; null if the term is unknown
+  public Short find(String term) {
+    Short code = codes.get(term);
+    if (code == null) {
+      reload();
+      code = codes.get(term);
+    }
+    return code;
+  }
+
+  public String decode(short code) {
+    String term = terms.get(code);
+    if (term == null) {
+      // Registered by another instance since we last looked
+      reload();
+      term = terms.get(code);
+    }
+    if (term == null) {
+      throw new IllegalStateException("Unknown audit dictionary code " + code);
+    }
+    return term;
+  }
+
+  public void reload() {
+    jdbcTemplate.query("SELECT code, term FROM audit_dictionary",
+        rs -> {
+          cache(rs.getShort(1), rs.getString(2));
+        });
+  }
+
+  // Runs on its own auto-commit connection: a duplicate-key race with
+  // another instance must not abort the caller's insert transaction
+  private synchronized short register(String term) {
+    Short cached = codes.get(term);
+    if (cached != null) {
+      return cached;
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(true);
+      for (int attempt = 0; attempt < REGISTER_ATTEMPTS; attempt++) {
+        Short existing = findCode(connection, term);
+        if (existing != null) {
+          return cache(existing, term);
+        }
+        short next = nextCode(connection);
+        try (PreparedStatement insert = connection.prepareStatement(
+            "INSERT INTO audit_dictionary (code, term) VALUES (?, ?)")) {
+          insert.setShort(1, next);
+          insert.setString(2, term);
+          insert.executeUpdate();
+          return cache(next, term);
+        } catch (SQLException e) {
+          // A unique violation means another instance took this code or
+          // term first; look again
+          if (!isUniqueViolation(e)) {
+            throw e;
+          }
+        }
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not register audit term " + term,
+          e);
+    }
+    throw new IllegalStateException("Could not register audit term " + term);
+  }
+
+  private static Short findCode(Connection connection, String term)
+      throws SQLException {
+    try (PreparedStatement select = connection.prepareStatement(
+        "SELECT code FROM audit_dictionary WHERE term = ?")) {
+      select.setString(1, term);
+      try (ResultSet rs = select.executeQuery()) {
+        return rs.next() ? rs.getShort(1) : null;
+      }
+    }
+  }
+
+  private static short nextCode(Connection connection) throws SQLException {
+    try (PreparedStatement select = connection.prepareStatement(
+        "SELECT COALESCE(MAX(code), 0) + 1 FROM audit_dictionary");
+        ResultSet rs = select.executeQuery()) {
+      rs.next();
+      int next = rs.getInt(1);
+      if (next > Short.MAX_VALUE) {
+        throw new IllegalStateException("Audit dictionary is full");
+      }
+      return (short) next;
+    }
+  }
+
+  // SQLSTATE class 23 covers unique violations on both Postgres and H2
+  private static boolean isUniqueViolation(SQLException e) {
+    return e.getSQLState() != null && e.getSQLState().startsWith("23");
+  }
+
+  private short cache(short code, String term) {
+    codes.put(term, code);
+    terms.put(code, term);
+    return code;
+  }
+}
@@ -0,0 +1,155 @@
+package com.pm.analyticsservice.repository;
+
+import com.pm.analyticsservice.model.AuditEvent;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+// Multi-row insert path for the Kafka consumer; bypasses the persistence
+// context so a whole poll is written by one statement (one JDBC batch on
+// other databases) in one transaction.
+@Repository
+public class AuditEventBatchRepository {
+
+  private static final String COLUMNS = "(id, patient_id, patient_name, "
+      + "patient_email, event_type_id, event_timestamp, source_service_id, "
+      + "event_sequence)";
+  // A redelivered event hits the primary key and is skipped rather than
+  // failing the batch. On Postgres the whole poll is one statement over
+  // column arrays, and RETURNING names exactly the rows that were written;
+  // batch update counts can't, since rewritten batches report
+  // SUCCESS_NO_INFO for every row.
+  private static final String POSTGRES_INSERT_SQL = "INSERT INTO audit_events "
+      + COLUMNS + " SELECT * FROM unnest(?::uuid[], ?::varchar[], "
+      + "?::varchar[], ?::varchar[], ?::smallint[], ?::timestamp[], "
+      + "?::smallint[], ?::bigint[]) ON CONFLICT DO NOTHING RETURNING id";
+  private static final String PORTABLE_INSERT_SQL = "INSERT INTO audit_events "
+      + COLUMNS + " SELECT ?, ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS "
+      + "(SELECT 1 FROM audit_events WHERE id = ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AuditDictionary dictionary;
+  private final boolean postgres;
+
+  public AuditEventBatchRepository(JdbcTemplate jdbcTemplate,
+      AuditDictionary dictionary) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dictionary = dictionary;
+    this.postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+        (ConnectionCallback<String>) connection ->
+            connection.getMetaData().getDatabaseProductName()));
+  }
+
+  // Returns the events that were actually written; ones whose id is already
+  // stored, or repeated within the list, are left out
+  @Transactional
+  public List<AuditEvent> insertAll(List<AuditEvent> events) {
+    for (AuditEvent event : events) {
+      if (event.getId() == null) {
+        event.setId(UUID.randomUUID());
+      }
+    }
+    if (events.isEmpty()) {
+      return List.of();
+    }
+    return postgres ? insertReturning(events) : insertBatch(events);
+  }
+
+  private List<AuditEvent> insertReturning(List<AuditEvent> events) {
+    int size = events.size();
+    UUID[] ids = new UUID[size];
+    String[] patientIds = new String[size];
+    String[] patientNames = new String[size];
+    String[] patientEmails = new String[size];
+    Short[] eventTypes = new Short[size];
+    Timestamp[] timestamps = new Timestamp[size];
+    Short[] sourceServices = new Short[size];
+    Long[] sequences = new Long[size];
+    for (int i = 0; i < size; i++) {
+      AuditEvent event = events.get(i);
+      ids[i] = event.getId();
+      patientIds[i] = event.getPatientId();
+      patientNames[i] = event.getPatientName();
+      patientEmails[i] = event.getPatientEmail();
+      eventTypes[i] = dictionary.encode(event.getEventType());
+      timestamps[i] = Timestamp.valueOf(event.getEventTimestamp());
+      sourceServices[i] = dictionary.encode(event.getSourceService());
+      sequences[i] = event.getEventSequence();
+    }
+
+    Set<UUID> inserted = jdbcTemplate.execute(
+        (ConnectionCallback<Set<UUID>>) connection -> {
+          try (PreparedStatement ps = connection.prepareStatement(
+              POSTGRES_INSERT_SQL)) {
+            ps.setArray(1, array(connection, "uuid", ids));
+            ps.setArray(2, array(connection, "varchar", patientIds));
+            ps.setArray(3, array(connection, "varchar", patientNames));
+            ps.setArray(4, array(connection, "varchar", patientEmails));
+            ps.setArray(5, array(connection, "int2", eventTypes));
+            ps.setArray(6, array(connection, "timestamp", timestamps));
+            ps.setArray(7, array(connection, "int2", sourceServices));
+            ps.setArray(8, array(connection, "int8", sequences));
+            Set<UUID> written = new HashSet<>();
+            try (ResultSet rs = ps.executeQuery()) {
+              while (rs.next()) {
+                written.add(rs.getObject(1, UUID.class));
+              }
+            }
+            return written;
+          }
+        });
+
+    List<AuditEvent> stored = new ArrayList<>(inserted.size());
+    for (AuditEvent event : events) {
+      // Removing keeps a duplicate within the list from counting twice
+      if (inserted.remove(event.getId())) {
+        stored.add(event);
+      }
+    }
+    return stored;
+  }
+
+  private static Array array(Connection connection, String type,
+      Object[] values) throws SQLException {
+    return connection.createArrayOf(type, values);
+  }
+
+  private List<AuditEvent> insertBatch(List<AuditEvent> events) {
+    int[][] counts = jdbcTemplate.batchUpdate(PORTABLE_INSERT_SQL, events,
+        events.size(), (ps, event) -> {
+          ps.setObject(1, event.getId());
+          ps.setString(2, event.getPatientId());
+          ps.setString(3, event.getPatientName());
+          ps.setString(4, event.getPatientEmail());
+          ps.setShort(5, dictionary.encode(event.getEventType()));
+          ps.setTimestamp(6, Timestamp.valueOf(event.getEventTimestamp()));
+          ps.setShort(7, dictionary.encode(event.getSourceService()));
+          ps.setLong(8, event.getEventSequence());
+          ps.setObject(9, event.getId());
+        });
+
+    List<AuditEvent> stored = new ArrayList<>(events.size());
+    int index = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        if (count != 0) {
+          stored.add(events.get(index));
+        }
+        index++;
+      }
+    }
+    return stored;
+  }
+}
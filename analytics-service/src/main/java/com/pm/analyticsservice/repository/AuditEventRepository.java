@@ -1,16 +1,35 @@
 package com.pm.analyticsservice.repository;
 
 import com.pm.analyticsservice.model.AuditEvent;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AuditEventRepository extends JpaRepository<AuditEvent, UUID> {
 
-  List<AuditEvent> findByPatientIdOrderByEventTimestampDesc(String patientId);
-  
+  @Query("SELECT e FROM AuditEvent e WHERE e.patientId = :patientId "
+      + "ORDER BY e.eventTimestamp DESC, e.id DESC")
+  List<AuditEvent> findHistoryFirstPage(@Param("patientId") String patientId,
+      Limit limit);
+
+  @Query("SELECT e FROM AuditEvent e WHERE e.patientId = :patientId "
+      + "AND (e.eventTimestamp < :timestamp "
+      + "OR (e.eventTimestamp = :timestamp AND e.id < :id)) "
+      + "ORDER BY e.eventTimestamp DESC, e.id DESC")
+  List<AuditEvent> findHistoryPageAfter(@Param("patientId") String patientId,
+      @Param("timestamp") LocalDateTime timestamp, @Param("id") UUID id,
+      Limit limit);
+
   List<AuditEvent> findAllByOrderByEventTimestampDesc();
+
+  @Query("SELECT e.id FROM AuditEvent e WHERE e.eventTimestamp >= :since "
+      + "ORDER BY e.eventTimestamp DESC")
+  List<UUID> findRecentIds(@Param("since") LocalDateTime since, Limit limit);
 }
 
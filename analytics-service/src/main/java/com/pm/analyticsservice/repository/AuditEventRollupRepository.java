@@ -0,0 +1,40 @@
+package com.pm.analyticsservice.repository;
+
+import com.pm.analyticsservice.model.AuditEventRollup;
+import com.pm.analyticsservice.model.AuditEventRollupId;
+import com.pm.analyticsservice.model.RollupGranularity;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AuditEventRollupRepository
+    extends JpaRepository<AuditEventRollup, AuditEventRollupId> {
+
+  @Query("SELECT r FROM AuditEventRollup r WHERE r.id.granularity = :granularity "
+      + "AND r.id.bucketStart >= :from AND r.id.bucketStart < :to "
+      + "ORDER BY r.id.bucketStart")
+  List<AuditEventRollup> findRange(
+      @Param("granularity") RollupGranularity granularity,
+      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  // One statement, so a bucket first written by two instances at once
+  // keeps both counts instead of one insert failing or overwriting the other
+  @Modifying
+  @Query(value = "INSERT INTO audit_event_rollups "
+      + "(granularity, bucket_start, event_type, source_service, event_count) "
+      + "VALUES (:granularity, :bucketStart, :eventType, :sourceService, :delta) "
+      + "ON CONFLICT (granularity, bucket_start, event_type, source_service) "
+      + "DO UPDATE SET event_count = "
+      + "audit_event_rollups.event_count + EXCLUDED.event_count",
+      nativeQuery = true)
+  int add(@Param("granularity") String granularity,
+      @Param("bucketStart") LocalDateTime bucketStart,
+      @Param("eventType") String eventType,
+      @Param("sourceService") String sourceService,
+      @Param("delta") long delta);
+}
@@ -0,0 +1,109 @@
+package com.pm.analyticsservice.repository;
+
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.util.AuditCursor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Forward-only reads for bulk export. Rows are read in (event_timestamp, id)
+// order through a cursor (fetch size, autocommit off) in bounded chunks, so
+// memory depends on the chunk size rather than the export size. Each chunk
+// runs in its own short read-only transaction and is handed to the caller
+// only after it has ended, so writing to a slow client never holds a
+// snapshot or a connection; the next chunk resumes after the last key.
+@Repository
+public class AuditExportRepository {
+
+  private static final String COLUMNS = "SELECT id, patient_id, patient_name, "
+      + "patient_email, event_type_id, event_timestamp, source_service_id, "
+      + "event_sequence FROM audit_events ";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final AuditDictionary dictionary;
+
+  public AuditExportRepository(DataSource dataSource,
+      PlatformTransactionManager transactionManager, AuditDictionary dictionary,
+      @Value("${analytics.audit.export.fetch-size:1000}") int fetchSize) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(fetchSize);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.transactionTemplate.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.dictionary = dictionary;
+  }
+
+  // Reads events with from <= event_timestamp < to, optionally of one
+  // dictionary-encoded event type, starting after the given key (null for
+  // the first chunk). Stops after maxRows rows or once maxDuration has
+  // passed, whichever comes first.
+  public Chunk readChunk(LocalDateTime from, LocalDateTime to,
+      Short eventTypeId, AuditCursor after, int maxRows, Duration maxDuration) {
+    StringBuilder sql = new StringBuilder(COLUMNS)
+        .append("WHERE event_timestamp >= ? AND event_timestamp < ? ");
+    List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(from),
+        Timestamp.valueOf(to)));
+    if (eventTypeId != null) {
+      sql.append("AND event_type_id = ? ");
+      args.add(eventTypeId);
+    }
+    if (after != null) {
+      sql.append("AND (event_timestamp > ? OR (event_timestamp = ? AND id > ?)) ");
+      args.add(Timestamp.valueOf(after.timestamp()));
+      args.add(Timestamp.valueOf(after.timestamp()));
+      args.add(after.id());
+    }
+    sql.append("ORDER BY event_timestamp, id LIMIT ?");
+    args.add(maxRows);
+
+    long deadline = System.nanoTime() + maxDuration.toNanos();
+    return transactionTemplate.execute(status -> jdbcTemplate.query(
+        sql.toString(), rs -> {
+          List<AuditEvent> events = new ArrayList<>();
+          boolean timedOut = false;
+          while (!timedOut && rs.next()) {
+            events.add(toEvent(rs));
+            // Checking the clock every row would cost more than the row
+            timedOut = events.size() % 256 == 0 && System.nanoTime() > deadline;
+          }
+          if (events.isEmpty() || (events.size() < maxRows && !timedOut)) {
+            return new Chunk(events, null);
+          }
+          AuditEvent last = events.get(events.size() - 1);
+          return new Chunk(events,
+              new AuditCursor(last.getEventTimestamp(), last.getId()));
+        }, args.toArray()));
+  }
+
+  // next is the key of the last row read, or null when the range is
+  // exhausted
+  public record Chunk(List<AuditEvent> events, AuditCursor next) {
+  }
+
+  private AuditEvent toEvent(ResultSet rs) throws SQLException {
+    AuditEvent event = new AuditEvent(
+        rs.getString(2),
+        rs.getString(3),
+        rs.getString(4),
+        dictionary.decode(rs.getShort(5)),
+        rs.getTimestamp(6).toLocalDateTime(),
+        dictionary.decode(rs.getShort(7)));
+    event.setId(rs.getObject(1, UUID.class));
+    event.setEventSequence(rs.getLong(8));
+    return event;
+  }
+}
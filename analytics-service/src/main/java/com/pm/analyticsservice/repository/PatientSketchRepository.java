@@ -0,0 +1,48 @@
+package com.pm.analyticsservice.repository;
+
+import com.pm.analyticsservice.model.PatientSketch;
+import com.pm.analyticsservice.model.PatientSketchId;
+import com.pm.analyticsservice.model.RollupGranularity;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PatientSketchRepository
+    extends JpaRepository<PatientSketch, PatientSketchId> {
+
+  @Query("SELECT s FROM PatientSketch s WHERE s.id.granularity = :granularity "
+      + "AND s.id.bucketStart >= :from AND s.id.bucketStart < :to "
+      + "ORDER BY s.id.bucketStart")
+  List<PatientSketch> findRange(
+      @Param("granularity") RollupGranularity granularity,
+      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  // Writes the bucket's first sketch; returns 0 when a row is already there
+  // (possibly written by another instance a moment ago), which the caller
+  // then locks and merges into
+  @Modifying
+  @Query(value = "INSERT INTO patient_sketches "
+      + "(granularity, bucket_start, event_count, distinct_patients, top_patients) "
+      + "VALUES (:granularity, :bucketStart, :eventCount, :distinctPatients, "
+      + ":topPatients) ON CONFLICT (granularity, bucket_start) DO NOTHING",
+      nativeQuery = true)
+  int insertIfAbsent(@Param("granularity") String granularity,
+      @Param("bucketStart") LocalDateTime bucketStart,
+      @Param("eventCount") long eventCount,
+      @Param("distinctPatients") byte[] distinctPatients,
+      @Param("topPatients") byte[] topPatients);
+
+  // Sketches are merged in Java, so concurrent flushes of the same bucket
+  // must not both read the old row
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT s FROM PatientSketch s WHERE s.id = :id")
+  Optional<PatientSketch> findForUpdate(@Param("id") PatientSketchId id);
+}
@@ -0,0 +1,177 @@
+package com.pm.analyticsservice.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.repository.AuditDictionary;
+import com.pm.analyticsservice.repository.AuditExportRepository;
+import com.pm.analyticsservice.util.AuditCursor;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Streams audit events for compliance extracts. Rows go from the export
+// cursor straight into the response through a buffered writer (optionally
+// gzipped); nothing is collected in memory.
+@Service
+public class AuditExportService {
+
+  public enum Format {
+    CSV,
+    NDJSON
+  }
+
+  private static final Logger log = LoggerFactory.getLogger(
+      AuditExportService.class);
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String CSV_HEADER = "id,patient_id,patient_name,"
+      + "patient_email,event_type,event_timestamp,source_service,event_sequence\n";
+
+  private final AuditExportRepository auditExportRepository;
+  private final AuditDictionary dictionary;
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final int chunkRows;
+  private final Duration maxTransaction;
+
+  public AuditExportService(AuditExportRepository auditExportRepository,
+      AuditDictionary dictionary,
+      @Value("${analytics.audit.export.chunk-rows:50000}") int chunkRows,
+      @Value("${analytics.audit.export.max-transaction:PT5S}") Duration maxTransaction) {
+    this.auditExportRepository = auditExportRepository;
+    this.dictionary = dictionary;
+    this.chunkRows = chunkRows;
+    this.maxTransaction = maxTransaction;
+  }
+
+  // Events are written oldest first. Rows inserted after the export has
+  // moved past their timestamp are not included.
+  public void export(LocalDateTime from, LocalDateTime to, String eventType,
+      Format format, boolean gzip, OutputStream outputStream)
+      throws IOException {
+    long start = System.nanoTime();
+    OutputStream target = gzip
+        ? new GZIPOutputStream(outputStream, BUFFER_SIZE)
+        : outputStream;
+    long rows;
+    if (format == Format.CSV) {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(target,
+          StandardCharsets.UTF_8), BUFFER_SIZE);
+      writer.write(CSV_HEADER);
+      rows = readAll(from, to, eventType, event -> writeCsv(writer, event));
+      writer.flush();
+    } else {
+      JsonGenerator generator = jsonFactory.createGenerator(target,
+          JsonEncoding.UTF8);
+      generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+      rows = readAll(from, to, eventType, event -> writeJson(generator, event));
+      if (rows > 0) {
+        generator.writeRaw('\n');
+      }
+      generator.flush();
+    }
+    if (target instanceof GZIPOutputStream gzipStream) {
+      gzipStream.finish();
+    }
+    log.info("Exported {} audit events as {} in {} ms", rows, format,
+        Duration.ofNanos(System.nanoTime() - start).toMillis());
+  }
+
+  private long readAll(LocalDateTime from, LocalDateTime to, String eventType,
+      IoConsumer<AuditEvent> sink) throws IOException {
+    Short eventTypeId = null;
+    if (eventType != null) {
+      eventTypeId = dictionary.find(eventType);
+      if (eventTypeId == null) {
+        // Never recorded, so nothing can match
+        return 0;
+      }
+    }
+    long rows = 0;
+    AuditCursor after = null;
+    do {
+      AuditExportRepository.Chunk chunk = auditExportRepository.readChunk(
+          from, to, eventTypeId, after, chunkRows, maxTransaction);
+      // The read transaction is over; a slow or vanished client only holds
+      // this thread
+      for (AuditEvent event : chunk.events()) {
+        sink.accept(event);
+        rows++;
+      }
+      after = chunk.next();
+    } while (after != null);
+    return rows;
+  }
+
+  private static void writeCsv(Writer writer, AuditEvent event)
+      throws IOException {
+    writer.write(event.getId().toString());
+    writer.write(',');
+    writeCsvField(writer, event.getPatientId());
+    writer.write(',');
+    writeCsvField(writer, event.getPatientName());
+    writer.write(',');
+    writeCsvField(writer, event.getPatientEmail());
+    writer.write(',');
+    writeCsvField(writer, event.getEventType());
+    writer.write(',');
+    writer.write(event.getEventTimestamp().toString());
+    writer.write(',');
+    writeCsvField(writer, event.getSourceService());
+    writer.write(',');
+    writer.write(Long.toString(event.getEventSequence()));
+    writer.write('\n');
+  }
+
+  // RFC 4180: quote fields containing a delimiter, quote or line break
+  private static void writeCsvField(Writer writer, String value)
+      throws IOException {
+    if (value == null) {
+      return;
+    }
+    boolean quote = false;
+    for (int i = 0; i < value.length() && !quote; i++) {
+      char c = value.charAt(i);
+      quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+    if (!quote) {
+      writer.write(value);
+      return;
+    }
+    writer.write('"');
+    writer.write(value.replace("\"", "\"\""));
+    writer.write('"');
+  }
+
+  private static void writeJson(JsonGenerator generator, AuditEvent event)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", event.getId().toString());
+    generator.writeStringField("patientId", event.getPatientId());
+    generator.writeStringField("patientName", event.getPatientName());
+    generator.writeStringField("patientEmail", event.getPatientEmail());
+    generator.writeStringField("eventType", event.getEventType());
+    generator.writeStringField("eventTimestamp",
+        event.getEventTimestamp().toString());
+    generator.writeStringField("sourceService", event.getSourceService());
+    generator.writeNumberField("eventSequence", event.getEventSequence());
+    generator.writeEndObject();
+  }
+
+  @FunctionalInterface
+  private interface IoConsumer<T> {
+
+    void accept(T value) throws IOException;
+  }
+}
@@ -0,0 +1,252 @@
+package com.pm.analyticsservice.service;
+
+import com.pm.analyticsservice.repository.AuditDictionary;
+import jakarta.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// Owns the audit_events DDL on Postgres: a table range-partitioned by month
+// with covering indexes for per-patient history and recent-activity reads.
+// Partitions are created from the previous month to a few months ahead, and
+// retention drops whole partitions instead of deleting rows. Events outside
+// every monthly partition (late or clock-skewed) land in a DEFAULT partition
+// and are moved into a partition of their own month by the next maintenance
+// run. Runs before Hibernate's schema update
+// (see AuditSchemaConfig); other databases keep the Hibernate-generated table.
+@Service
+public class AuditPartitionService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      AuditPartitionService.class);
+  private static final Pattern PARTITION_NAME =
+      Pattern.compile("audit_events_y(\\d{4})m(\\d{2})");
+  private static final String DEFAULT_PARTITION = "audit_events_default";
+
+  private final JdbcTemplate jdbcTemplate;
+  // Looked up lazily: the cache needs JPA, which waits for this service
+  private final ObjectProvider<PatientHistoryCache> historyCache;
+  private final int retentionMonths;
+  private final int monthsAhead;
+  private boolean partitioned;
+
+  public AuditPartitionService(JdbcTemplate jdbcTemplate,
+      ObjectProvider<PatientHistoryCache> historyCache,
+      @Value("${analytics.audit.retention-months:12}") int retentionMonths,
+      @Value("${analytics.audit.partitions-ahead:2}") int monthsAhead) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.historyCache = historyCache;
+    this.retentionMonths = retentionMonths;
+    this.monthsAhead = monthsAhead;
+  }
+
+  @PostConstruct
+  public void initialize() {
+    jdbcTemplate.execute(AuditDictionary.CREATE_TABLE_SQL);
+    String database = jdbcTemplate.execute((ConnectionCallback<String>)
+        connection -> connection.getMetaData().getDatabaseProductName());
+    if (!"PostgreSQL".equals(database)) {
+      return;
+    }
+    partitioned = true;
+
+    boolean legacy = "r".equals(relationKind("audit_events"));
+    if (legacy) {
+      log.info("Moving unpartitioned audit_events aside for migration");
+      jdbcTemplate.execute("ALTER TABLE audit_events RENAME TO audit_events_legacy");
+      jdbcTemplate.execute("ALTER INDEX IF EXISTS audit_events_pkey "
+          + "RENAME TO audit_events_legacy_pkey");
+    }
+
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS audit_events ("
+        + "id UUID NOT NULL, "
+        + "patient_id VARCHAR(255) NOT NULL, "
+        + "patient_name VARCHAR(255), "
+        + "patient_email VARCHAR(255), "
+        + "event_type_id SMALLINT NOT NULL, "
+        + "event_timestamp TIMESTAMP(6) NOT NULL, "
+        + "source_service_id SMALLINT NOT NULL, "
+        + "event_sequence BIGINT NOT NULL DEFAULT 0, "
+        + "PRIMARY KEY (id, event_timestamp)) "
+        + "PARTITION BY RANGE (event_timestamp)");
+    jdbcTemplate.execute("ALTER TABLE audit_events "
+        + "ADD COLUMN IF NOT EXISTS event_sequence BIGINT NOT NULL DEFAULT 0");
+    // History pages and recent activity are answered from the index alone
+    jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_events_patient_ts "
+        + "ON audit_events (patient_id, event_timestamp DESC, id DESC) "
+        + "INCLUDE (event_type_id, patient_name, patient_email)");
+    jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_events_ts "
+        + "ON audit_events (event_timestamp DESC) "
+        + "INCLUDE (patient_id, event_type_id, patient_name, patient_email)");
+
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION
+        + " PARTITION OF audit_events DEFAULT");
+    createPartitions(YearMonth.now().minusMonths(1));
+    if (legacy || relationKind("audit_events_legacy") != null) {
+      migrateLegacy();
+    }
+  }
+
+  @Scheduled(cron = "${analytics.audit.partition-cron:0 0 * * * *}")
+  public void maintain() {
+    if (!partitioned) {
+      return;
+    }
+    createPartitions(YearMonth.now().minusMonths(1));
+    dropExpiredPartitions();
+    partitionDefaultRows();
+  }
+
+  // Creates monthly partitions from the given month through monthsAhead
+  private void createPartitions(YearMonth from) {
+    YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+    for (YearMonth month = from; !month.isAfter(last); month = month.plusMonths(1)) {
+      createPartition(month);
+    }
+  }
+
+  // Postgres refuses to add a partition while the DEFAULT partition holds
+  // rows in its range, so those rows are moved into the new table before it
+  // is attached, all in one transaction. The advisory lock serializes
+  // instances doing the same.
+  private void createPartition(YearMonth month) {
+    String partition = partitionName(month);
+    if (relationKind(partition) != null) {
+      return;
+    }
+    String from = "'" + month.atDay(1) + "'";
+    String to = "'" + month.plusMonths(1).atDay(1) + "'";
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("SELECT pg_advisory_xact_lock("
+            + "hashtext('audit_events_partitions'))");
+        try (ResultSet existing = statement.executeQuery(
+            "SELECT to_regclass('" + partition + "') IS NOT NULL")) {
+          existing.next();
+          if (existing.getBoolean(1)) {
+            connection.commit();
+            return null;
+          }
+        }
+        statement.execute("CREATE TABLE " + partition + " (LIKE audit_events "
+            + "INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = statement.executeUpdate("WITH moved AS (DELETE FROM "
+            + DEFAULT_PARTITION + " WHERE event_timestamp >= " + from
+            + " AND event_timestamp < " + to + " RETURNING *) "
+            + "INSERT INTO " + partition + " SELECT * FROM moved");
+        statement.execute("ALTER TABLE audit_events ATTACH PARTITION "
+            + partition + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+        connection.commit();
+        if (moved > 0) {
+          log.info("Moved {} audit events from the default partition into {}",
+              moved, partition);
+        }
+      } catch (SQLException | RuntimeException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+      return null;
+    });
+  }
+
+  // Gives months that only have late events in the DEFAULT partition a
+  // partition of their own, so retention drops them with the rest
+  private void partitionDefaultRows() {
+    LocalDate oldestKept = YearMonth.now().minusMonths(retentionMonths).atDay(1);
+    List<LocalDate> months = jdbcTemplate.queryForList(
+        "SELECT DISTINCT CAST(date_trunc('month', event_timestamp) AS DATE) "
+            + "FROM " + DEFAULT_PARTITION + " WHERE event_timestamp >= ?",
+        LocalDate.class, oldestKept.atStartOfDay());
+    for (LocalDate month : months) {
+      createPartition(YearMonth.from(month));
+    }
+  }
+
+  private void dropExpiredPartitions() {
+    YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+    List<String> partitions = jdbcTemplate.queryForList(
+        "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid "
+            + "JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'audit_events'", String.class);
+    for (String partition : partitions) {
+      Matcher matcher = PARTITION_NAME.matcher(partition);
+      if (matcher.matches() && YearMonth.of(Integer.parseInt(matcher.group(1)),
+          Integer.parseInt(matcher.group(2))).isBefore(oldestKept)) {
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        log.info("Dropped expired audit partition {}", partition);
+        historyCache.ifAvailable(PatientHistoryCache::clear);
+      }
+    }
+    int expired = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION
+        + " WHERE event_timestamp < ?", oldestKept.atDay(1).atStartOfDay());
+    if (expired > 0) {
+      log.info("Deleted {} expired audit events from the default partition",
+          expired);
+      historyCache.ifAvailable(PatientHistoryCache::clear);
+    }
+  }
+
+  // Copies rows that are still within retention from the pre-partitioning
+  // table, encoding strings through audit_dictionary. Safe to re-run.
+  private void migrateLegacy() {
+    LocalDate cutoff = YearMonth.now().minusMonths(retentionMonths).atDay(1);
+    LocalDateTime oldest = jdbcTemplate.queryForObject(
+        "SELECT MIN(event_timestamp) FROM audit_events_legacy "
+            + "WHERE event_timestamp >= ?", LocalDateTime.class,
+        cutoff.atStartOfDay());
+    if (oldest != null) {
+      createPartitions(YearMonth.from(oldest));
+    }
+
+    jdbcTemplate.update("INSERT INTO audit_dictionary (code, term) "
+        + "SELECT (SELECT COALESCE(MAX(code), 0) FROM audit_dictionary) "
+        + "+ ROW_NUMBER() OVER (ORDER BY term), term FROM ("
+        + "SELECT event_type AS term FROM audit_events_legacy "
+        + "UNION SELECT source_service FROM audit_events_legacy) terms "
+        + "WHERE term NOT IN (SELECT term FROM audit_dictionary)");
+    int copied = jdbcTemplate.update("INSERT INTO audit_events (id, patient_id, "
+        + "patient_name, patient_email, event_type_id, event_timestamp, "
+        + "source_service_id) "
+        + "SELECT l.id, l.patient_id, l.patient_name, l.patient_email, "
+        + "t.code, l.event_timestamp, s.code FROM audit_events_legacy l "
+        + "JOIN audit_dictionary t ON t.term = l.event_type "
+        + "JOIN audit_dictionary s ON s.term = l.source_service "
+        + "WHERE l.event_timestamp >= ? ON CONFLICT DO NOTHING",
+        cutoff.atStartOfDay());
+    jdbcTemplate.execute("DROP TABLE audit_events_legacy");
+    log.info("Migrated {} audit events into the partitioned table", copied);
+  }
+
+  private String relationKind(String table) {
+    List<String> kinds = jdbcTemplate.queryForList(
+        "SELECT c.relkind::text FROM pg_class c "
+            + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "WHERE c.relname = ? AND n.nspname = current_schema()",
+        String.class, table);
+    return kinds.isEmpty() ? null : kinds.get(0);
+  }
+
+  private static String partitionName(YearMonth month) {
+    return String.format("audit_events_y%04dm%02d", month.getYear(),
+        month.getMonthValue());
+  }
+}
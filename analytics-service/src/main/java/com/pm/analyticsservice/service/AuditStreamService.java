@@ -0,0 +1,304 @@
+package com.pm.analyticsservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.analyticsservice.dto.AuditEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Live audit feed over Server-Sent Events. One dispatcher thread follows the
+// recent-activity ring by sequence number, renders each event once and
+// offers it to every subscriber's bounded queue. Each subscriber is drained
+// on its own virtual thread, so a slow browser only fills its own queue and
+// the Kafka listener never waits on a socket. Event ids are
+// "<epoch>-<sequence>"; a reconnect with Last-Event-ID from the same process
+// replays whatever the ring still holds.
+@Service
+public class AuditStreamService {
+
+  public enum OverflowPolicy {
+    // Discard the subscriber's oldest queued event to make room
+    DROP_OLDEST,
+    // Close the connection; the browser reconnects with Last-Event-ID
+    DISCONNECT
+  }
+
+  private static final Logger log = LoggerFactory.getLogger(
+      AuditStreamService.class);
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final RecentActivityService recentActivityService;
+  private final ObjectMapper objectMapper;
+  private final int bufferSize;
+  private final int maxSubscribers;
+  private final long timeoutMs;
+  private final long heartbeatNanos;
+  private final OverflowPolicy overflowPolicy;
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final Queue<Subscriber> joining = new ConcurrentLinkedQueue<>();
+  private final ExecutorService senders =
+      Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("audit-stream-sender-", 0).factory());
+  private final Counter droppedCounter;
+  private final Counter disconnectedCounter;
+  private volatile boolean running = true;
+  private Thread dispatcher;
+  // Only touched by the dispatcher thread
+  private long nextSequence;
+
+  public AuditStreamService(RecentActivityService recentActivityService,
+      ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      @Value("${analytics.audit.stream.buffer-size:256}") int bufferSize,
+      @Value("${analytics.audit.stream.max-subscribers:10000}") int maxSubscribers,
+      @Value("${analytics.audit.stream.timeout:PT30M}") Duration timeout,
+      @Value("${analytics.audit.stream.heartbeat-interval:PT15S}") Duration heartbeatInterval,
+      @Value("${analytics.audit.stream.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+    this.recentActivityService = recentActivityService;
+    this.objectMapper = objectMapper;
+    this.bufferSize = bufferSize;
+    this.maxSubscribers = maxSubscribers;
+    this.timeoutMs = timeout.toMillis();
+    this.heartbeatNanos = heartbeatInterval.toNanos();
+    this.overflowPolicy = overflowPolicy;
+    this.droppedCounter = Counter.builder("analytics.audit.stream.dropped")
+        .description("Events dropped from a slow subscriber's buffer")
+        .register(meterRegistry);
+    this.disconnectedCounter = Counter.builder(
+            "analytics.audit.stream.disconnected")
+        .description("Subscribers disconnected for falling behind")
+        .register(meterRegistry);
+    meterRegistry.gauge("analytics.audit.stream.subscribers", subscribers,
+        Set::size);
+  }
+
+  @PostConstruct
+  public void start() {
+    nextSequence = recentActivityService.head();
+    dispatcher = Thread.ofPlatform().name("audit-stream-dispatcher").daemon()
+        .start(this::dispatchLoop);
+  }
+
+  // Streams never finish on their own, so end them before graceful shutdown
+  // starts waiting for in-flight requests
+  @EventListener(ContextClosedEvent.class)
+  public void closeSubscribers() {
+    running = false;
+    LockSupport.unpark(dispatcher);
+    subscribers.forEach(Subscriber::close);
+    joining.forEach(Subscriber::close);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    closeSubscribers();
+    dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+    senders.shutdown();
+  }
+
+  public boolean acceptsSubscribers() {
+    return subscribers.size() + joining.size() < maxSubscribers;
+  }
+
+  public SseEmitter subscribe(String lastEventId) {
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    Subscriber subscriber = new Subscriber(emitter, replayFrom(lastEventId));
+    emitter.onCompletion(subscriber::detach);
+    emitter.onError(error -> subscriber.detach());
+    joining.add(subscriber);
+    LockSupport.unpark(dispatcher);
+    return emitter;
+  }
+
+  // Called once new events have been added to the recent-activity ring
+  public void signal() {
+    LockSupport.unpark(dispatcher);
+  }
+
+  private void dispatchLoop() {
+    long lastHeartbeat = System.nanoTime();
+    while (running) {
+      try {
+        admitJoining();
+        dispatchPublished();
+        if (System.nanoTime() - lastHeartbeat >= heartbeatNanos) {
+          subscribers.forEach(Subscriber::heartbeat);
+          lastHeartbeat = System.nanoTime();
+        }
+      } catch (RuntimeException e) {
+        log.error("Audit stream dispatch failed", e);
+      }
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  // New subscribers are admitted on the dispatcher thread so their replay
+  // ends exactly where live delivery starts
+  private void admitJoining() {
+    Subscriber subscriber;
+    while ((subscriber = joining.poll()) != null) {
+      if (subscriber.replayFrom >= 0) {
+        long from = Math.max(subscriber.replayFrom, Math.max(0,
+            nextSequence - Math.min(bufferSize, recentActivityService.capacity())));
+        for (long sequence = from; sequence < nextSequence; sequence++) {
+          AuditEventDTO event = recentActivityService.get(sequence);
+          if (event != null) {
+            subscriber.offer(render(sequence, event));
+          }
+        }
+      }
+      if (!subscriber.closed) {
+        subscribers.add(subscriber);
+      }
+    }
+  }
+
+  private void dispatchPublished() {
+    long head = recentActivityService.head();
+    if (head - nextSequence > recentActivityService.capacity()) {
+      // Fell behind the ring; skip what has already been overwritten
+      nextSequence = head - recentActivityService.capacity();
+    }
+    while (nextSequence < head) {
+      AuditEventDTO event = recentActivityService.get(nextSequence);
+      if (event == null) {
+        // Claimed by a writer but not published yet
+        return;
+      }
+      if (!subscribers.isEmpty()) {
+        StreamEvent rendered = render(nextSequence, event);
+        for (Subscriber subscriber : subscribers) {
+          subscriber.offer(rendered);
+        }
+      }
+      nextSequence++;
+    }
+  }
+
+  private StreamEvent render(long sequence, AuditEventDTO event) {
+    try {
+      return new StreamEvent(epoch + "-" + sequence,
+          objectMapper.writeValueAsString(event));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize audit event", e);
+    }
+  }
+
+  // First sequence to replay, or -1 when the id is missing or from another
+  // process (sequences restart with the process)
+  private long replayFrom(String lastEventId) {
+    if (lastEventId == null || !lastEventId.startsWith(epoch + "-")) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(lastEventId.substring(epoch.length() + 1)) + 1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private record StreamEvent(String id, String json) {
+  }
+
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final long replayFrom;
+    private final ArrayBlockingQueue<StreamEvent> queue =
+        new ArrayBlockingQueue<>(bufferSize);
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean heartbeatDue;
+    private volatile boolean closed;
+
+    Subscriber(SseEmitter emitter, long replayFrom) {
+      this.emitter = emitter;
+      this.replayFrom = replayFrom;
+    }
+
+    void offer(StreamEvent event) {
+      if (closed) {
+        return;
+      }
+      while (!queue.offer(event)) {
+        if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+          disconnectedCounter.increment();
+          close();
+          return;
+        }
+        if (queue.poll() != null) {
+          droppedCounter.increment();
+        }
+      }
+      scheduleDrain();
+    }
+
+    void heartbeat() {
+      heartbeatDue = true;
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (draining.compareAndSet(false, true)) {
+        try {
+          senders.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          draining.set(false);
+        }
+      }
+    }
+
+    private void drain() {
+      try {
+        do {
+          StreamEvent event;
+          while (!closed && (event = queue.poll()) != null) {
+            emitter.send(SseEmitter.event().id(event.id()).name("audit")
+                .data(event.json()));
+          }
+          if (heartbeatDue && !closed) {
+            heartbeatDue = false;
+            emitter.send(SseEmitter.event().comment("keepalive"));
+          }
+          draining.set(false);
+        } while (!closed && (!queue.isEmpty() || heartbeatDue)
+            && draining.compareAndSet(false, true));
+      } catch (IOException | IllegalStateException e) {
+        // The client went away; the container completes the emitter
+        detach();
+      }
+    }
+
+    void close() {
+      detach();
+      emitter.complete();
+    }
+
+    void detach() {
+      closed = true;
+      subscribers.remove(this);
+      queue.clear();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.pm.analyticsservice.service;
+
+import com.pm.analyticsservice.dto.DeadLetterReplayDTO;
+import com.pm.analyticsservice.kafka.AuditRetryPublisher;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+
+// Re-injects dead-lettered records into the first retry tier. Progress is
+// kept as committed offsets of a dedicated consumer group, so each call
+// picks up after the last record the previous call replayed.
+@Service
+public class DeadLetterReplayService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      DeadLetterReplayService.class);
+  private static final String GROUP_ID = "analytics-service-dlt-replay";
+  private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+  private static final Duration MAX_DURATION = Duration.ofSeconds(30);
+
+  private final ConsumerFactory<String, byte[]> consumerFactory;
+  private final AuditRetryPublisher retryPublisher;
+
+  public DeadLetterReplayService(ConsumerFactory<String, byte[]> consumerFactory,
+      AuditRetryPublisher retryPublisher) {
+    this.consumerFactory = consumerFactory;
+    this.retryPublisher = retryPublisher;
+  }
+
+  // Replays up to limit records, oldest first per partition
+  public synchronized DeadLetterReplayDTO replay(int limit) {
+    Properties overrides = new Properties();
+    overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+    overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.min(limit, 500));
+
+    try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(
+        GROUP_ID, null, null, overrides)) {
+      List<TopicPartition> partitions = consumer.partitionsFor(
+              AuditRetryPublisher.DEAD_LETTER_TOPIC).stream()
+          .map(info -> new TopicPartition(info.topic(), info.partition()))
+          .toList();
+      consumer.assign(partitions);
+      // Records dead-lettered while this runs are left for the next call
+      Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+      Map<TopicPartition, OffsetAndMetadata> replayedUpTo = new HashMap<>();
+      int replayed = 0;
+      long deadline = System.nanoTime() + MAX_DURATION.toNanos();
+      try {
+        while (replayed < limit && System.nanoTime() < deadline
+            && behind(consumer, endOffsets) > 0) {
+          for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+            TopicPartition partition = new TopicPartition(record.topic(),
+                record.partition());
+            if (replayed == limit || record.offset() >= endOffsets.get(partition)) {
+              continue;
+            }
+            retryPublisher.replay(record);
+            replayedUpTo.put(partition, new OffsetAndMetadata(record.offset() + 1));
+            replayed++;
+          }
+        }
+      } finally {
+        if (!replayedUpTo.isEmpty()) {
+          consumer.commitSync(replayedUpTo);
+        }
+      }
+
+      // Positions may run ahead of what was replayed; count from the commits
+      long remaining = 0;
+      Map<TopicPartition, OffsetAndMetadata> committed =
+          consumer.committed(Set.copyOf(partitions));
+      for (TopicPartition partition : partitions) {
+        OffsetAndMetadata offset = committed.get(partition);
+        long start = offset != null ? offset.offset()
+            : consumer.beginningOffsets(List.of(partition)).get(partition);
+        remaining += Math.max(0, endOffsets.get(partition) - start);
+      }
+      log.info("Replayed {} dead-lettered audit events, {} left", replayed,
+          remaining);
+      return new DeadLetterReplayDTO(replayed, remaining);
+    }
+  }
+
+  private static long behind(Consumer<String, byte[]> consumer,
+      Map<TopicPartition, Long> endOffsets) {
+    long behind = 0;
+    for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+      behind += Math.max(0, end.getValue() - consumer.position(end.getKey()));
+    }
+    return behind;
+  }
+}
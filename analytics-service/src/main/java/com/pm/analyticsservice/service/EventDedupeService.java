@@ -0,0 +1,82 @@
+package com.pm.analyticsservice.service;
+
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.repository.AuditEventRepository;
+import com.pm.analyticsservice.util.RecentIdFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+// Drops patient events that were already stored, keyed by the producer's
+// event id. The in-memory filter catches redeliveries cheaply; the audit
+// table's primary key is the backstop for anything older than the filter
+// remembers.
+@Service
+public class EventDedupeService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      EventDedupeService.class);
+
+  private final AuditEventRepository auditEventRepository;
+  private final RecentIdFilter filter;
+  private final Duration seedWindow;
+  private final Counter duplicateCounter;
+
+  public EventDedupeService(AuditEventRepository auditEventRepository,
+      MeterRegistry meterRegistry,
+      @Value("${analytics.ingest.dedupe-capacity:100000}") int capacity,
+      @Value("${analytics.ingest.dedupe-seed-window:PT1H}") Duration seedWindow) {
+    this.auditEventRepository = auditEventRepository;
+    this.filter = new RecentIdFilter(capacity);
+    this.seedWindow = seedWindow;
+    this.duplicateCounter = Counter.builder("analytics.audit.events.duplicate")
+        .description("Patient events skipped because they were already stored")
+        .register(meterRegistry);
+  }
+
+  // Redeliveries after a restart are most likely for recent events
+  @PostConstruct
+  public void seed() {
+    try {
+      List<UUID> ids = auditEventRepository.findRecentIds(
+          LocalDateTime.now().minus(seedWindow), Limit.of(filter.capacity()));
+      // Oldest first so the newest ids are evicted last
+      for (int i = ids.size() - 1; i >= 0; i--) {
+        filter.add(ids.get(i));
+      }
+      log.info("Seeded event dedupe filter with {} ids", ids.size());
+    } catch (RuntimeException e) {
+      log.warn("Could not seed event dedupe filter, starting empty: {}",
+          e.getMessage());
+    }
+  }
+
+  public boolean isDuplicate(UUID eventId) {
+    if (filter.contains(eventId)) {
+      duplicateCounter.increment();
+      return true;
+    }
+    return false;
+  }
+
+  // Counts duplicates caught somewhere other than the filter
+  public void recordDuplicates(int count) {
+    duplicateCounter.increment(count);
+  }
+
+  // Only called once the events are stored, so a failed flush is retried
+  public void markStored(List<AuditEvent> events) {
+    for (AuditEvent event : events) {
+      filter.add(event.getId());
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.pm.analyticsservice.service;
+
+import com.pm.analyticsservice.dto.EventCountDTO;
+import com.pm.analyticsservice.dto.HistogramBucketDTO;
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.repository.AuditExportRepository;
+import com.pm.analyticsservice.util.AuditCursor;
+import com.pm.analyticsservice.util.ColumnarEventStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Counts and histograms over raw audit events, answered from an in-memory
+// column store instead of audit_events rows. The store is seeded from the
+// database before the Kafka listeners start and then fed by the consumer
+// after each successful flush; it holds the most recent
+// segment-size * max-segments events.
+@Service
+public class EventStatsService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      EventStatsService.class);
+  private static final int SEED_CHUNK_ROWS = 50_000;
+
+  private final AuditExportRepository auditExportRepository;
+  private final ForkJoinPool pool;
+  private final ColumnarEventStore store;
+  private final Duration seedWindow;
+  private final Counter skippedCounter;
+
+  public EventStatsService(AuditExportRepository auditExportRepository,
+      MeterRegistry meterRegistry,
+      @Value("${analytics.columnar.segment-size:65536}") int segmentSize,
+      @Value("${analytics.columnar.max-segments:64}") int maxSegments,
+      @Value("${analytics.columnar.parallelism:0}") int parallelism,
+      @Value("${analytics.columnar.seed-window:P1D}") Duration seedWindow) {
+    this.auditExportRepository = auditExportRepository;
+    // Own pool so long scans never starve the common pool
+    this.pool = new ForkJoinPool(parallelism > 0 ? parallelism
+        : Runtime.getRuntime().availableProcessors());
+    this.store = new ColumnarEventStore(segmentSize, maxSegments, pool);
+    this.seedWindow = seedWindow;
+    this.skippedCounter = Counter.builder("analytics.columnar.events.skipped")
+        .description("Audit events left out of the column store because an "
+            + "event type or source could not be coded")
+        .register(meterRegistry);
+    Gauge.builder("analytics.columnar.events", store, ColumnarEventStore::size)
+        .description("Audit events held in the column store")
+        .register(meterRegistry);
+    Gauge.builder("analytics.columnar.segments", store,
+            ColumnarEventStore::segmentCount)
+        .description("Segments allocated by the column store")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void seed() {
+    long start = System.nanoTime();
+    LocalDateTime to = LocalDateTime.now();
+    LocalDateTime from = to.minus(seedWindow);
+    long rows = 0;
+    try {
+      AuditCursor after = null;
+      do {
+        AuditExportRepository.Chunk chunk = auditExportRepository.readChunk(
+            from, to, null, after, SEED_CHUNK_ROWS, Duration.ofSeconds(5));
+        chunk.events().forEach(this::append);
+        rows += chunk.events().size();
+        after = chunk.next();
+      } while (after != null);
+      log.info("Seeded column store with {} events in {} ms", rows,
+          Duration.ofNanos(System.nanoTime() - start).toMillis());
+    } catch (RuntimeException e) {
+      log.warn("Could not seed column store after {} events: {}", rows,
+          e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  public void record(List<AuditEvent> events) {
+    for (AuditEvent event : events) {
+      append(event);
+    }
+  }
+
+  public EventCountDTO count(LocalDateTime from, LocalDateTime to,
+      String eventType, String sourceService, String patientId) {
+    ColumnarEventStore.Query query = query(from, to, eventType, sourceService,
+        patientId);
+    return new EventCountDTO(store.count(query),
+        store.countByEventType(query));
+  }
+
+  public List<HistogramBucketDTO> histogram(LocalDateTime from,
+      LocalDateTime to, Duration interval, String eventType,
+      String sourceService, String patientId) {
+    long[] counts = store.histogram(query(from, to, eventType, sourceService,
+        patientId), interval.toMillis());
+    List<HistogramBucketDTO> buckets = new ArrayList<>(counts.length);
+    for (int i = 0; i < counts.length; i++) {
+      buckets.add(new HistogramBucketDTO(from.plus(interval.multipliedBy(i)),
+          counts[i]));
+    }
+    return buckets;
+  }
+
+  private void append(AuditEvent event) {
+    if (!store.append(toMillis(event.getEventTimestamp()),
+        event.getEventType(), event.getSourceService(),
+        event.getPatientId())) {
+      skippedCounter.increment();
+    }
+  }
+
+  private static ColumnarEventStore.Query query(LocalDateTime from,
+      LocalDateTime to, String eventType, String sourceService,
+      String patientId) {
+    return new ColumnarEventStore.Query(toMillis(from), toMillis(to),
+        eventType, sourceService, patientId);
+  }
+
+  // Event timestamps are local times in the system zone (see KafkaConsumer)
+  private static long toMillis(LocalDateTime timestamp) {
+    Instant instant = timestamp.atZone(ZoneId.systemDefault()).toInstant();
+    return instant.toEpochMilli();
+  }
+}
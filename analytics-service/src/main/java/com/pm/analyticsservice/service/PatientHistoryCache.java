@@ -0,0 +1,206 @@
+package com.pm.analyticsservice.service;
+
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.repository.AuditEventRepository;
+import com.pm.analyticsservice.util.AuditCursor;
+import com.pm.analyticsservice.util.PatientTimeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+// Serves patient history pages from memory. A patient's timeline is loaded
+// with one query on first view and from then on the consumer appends each
+// stored event to it, so repeat views of a busy patient never hit the
+// database. Timelines are evicted least recently used once their combined
+// event count passes max-events.
+//
+// This instance's consumer only sees the partitions assigned to it, so with
+// several instances a timeline misses events stored by the others. Each
+// timeline is therefore reloaded once it is older than expire-after-write,
+// which bounds how stale a page can be.
+@Service
+public class PatientHistoryCache {
+
+  private final AuditEventRepository auditEventRepository;
+  private final int maxPatientEvents;
+  private final long maxEvents;
+  private final long expireAfterWriteNanos;
+  // Access order; an append counts as a use, so timelines of patients
+  // with ongoing activity stay cached
+  private final LinkedHashMap<String, Entry> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long weight;
+  private final Counter hitCounter;
+  private final Counter missCounter;
+
+  public PatientHistoryCache(AuditEventRepository auditEventRepository,
+      MeterRegistry meterRegistry,
+      @Value("${analytics.audit.history-cache.max-patient-events:1000}") int maxPatientEvents,
+      @Value("${analytics.audit.history-cache.max-events:100000}") long maxEvents,
+      @Value("${analytics.audit.history-cache.expire-after-write:PT30S}") Duration expireAfterWrite) {
+    this.auditEventRepository = auditEventRepository;
+    this.maxPatientEvents = maxPatientEvents;
+    this.maxEvents = maxEvents;
+    this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+    this.hitCounter = Counter.builder("analytics.audit.history-cache.requests")
+        .description("Patient history pages served from memory or the database")
+        .tag("result", "hit")
+        .register(meterRegistry);
+    this.missCounter = Counter.builder("analytics.audit.history-cache.requests")
+        .description("Patient history pages served from memory or the database")
+        .tag("result", "miss")
+        .register(meterRegistry);
+    meterRegistry.gauge("analytics.audit.history-cache.events", this,
+        PatientHistoryCache::weight);
+  }
+
+  // Newest first, up to limit events after the cursor (null for the first
+  // page)
+  public List<AuditEvent> page(String patientId, AuditCursor after,
+      int limit) {
+    PatientTimeline timeline;
+    boolean load = false;
+    synchronized (this) {
+      Entry entry = entries.get(patientId);
+      if (entry == null || entry.isExpired(expireAfterWriteNanos)) {
+        if (entry != null) {
+          weight -= entry.weight;
+        }
+        // Registered before querying so events consumed meanwhile are
+        // added to it
+        entry = new Entry(new PatientTimeline(maxPatientEvents));
+        entries.put(patientId, entry);
+        load = true;
+      }
+      timeline = entry.timeline;
+    }
+    if (load) {
+      load(patientId, timeline);
+    }
+
+    List<AuditEvent> page = timeline.page(after, limit);
+    if (page != null) {
+      hitCounter.increment();
+      return page;
+    }
+    // Still loading elsewhere, or older than the cached events
+    missCounter.increment();
+    return after == null
+        ? auditEventRepository.findHistoryFirstPage(patientId,
+            Limit.of(limit))
+        : auditEventRepository.findHistoryPageAfter(patientId,
+            after.timestamp(), after.id(), Limit.of(limit));
+  }
+
+  // Called by the consumer with events that were just stored; only
+  // patients already cached are touched
+  public void record(List<AuditEvent> events) {
+    List<PatientTimeline> timelines = new ArrayList<>(events.size());
+    synchronized (this) {
+      if (entries.isEmpty()) {
+        return;
+      }
+      for (AuditEvent event : events) {
+        Entry entry = entries.get(event.getPatientId());
+        timelines.add(entry == null ? null : entry.timeline);
+      }
+    }
+    boolean changed = false;
+    for (int i = 0; i < events.size(); i++) {
+      if (timelines.get(i) != null) {
+        timelines.get(i).add(events.get(i));
+        changed = true;
+      }
+    }
+    if (changed) {
+      reweigh(events);
+    }
+  }
+
+  // Audit rows were removed underneath (partition retention)
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  public synchronized long weight() {
+    return weight;
+  }
+
+  private void load(String patientId, PatientTimeline timeline) {
+    try {
+      timeline.load(auditEventRepository.findHistoryFirstPage(patientId,
+          Limit.of(maxPatientEvents + 1)));
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        Entry entry = entries.get(patientId);
+        if (entry != null && entry.timeline == timeline) {
+          entries.remove(patientId);
+          weight -= entry.weight;
+        }
+      }
+      throw e;
+    }
+    reweigh(patientId);
+  }
+
+  private synchronized void reweigh(List<AuditEvent> events) {
+    for (AuditEvent event : events) {
+      Entry entry = entries.get(event.getPatientId());
+      if (entry != null) {
+        updateWeight(entry);
+      }
+    }
+    evict();
+  }
+
+  private synchronized void reweigh(String patientId) {
+    Entry entry = entries.get(patientId);
+    if (entry != null) {
+      updateWeight(entry);
+    }
+    evict();
+  }
+
+  // An empty timeline still costs its map entry
+  private void updateWeight(Entry entry) {
+    long current = Math.max(1, entry.timeline.size());
+    weight += current - entry.weight;
+    entry.weight = current;
+  }
+
+  // Least recently used first; the newest entry is kept even if it alone
+  // is over the limit
+  private void evict() {
+    Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+    while (weight > maxEvents && entries.size() > 1 && eldest.hasNext()) {
+      Entry entry = eldest.next().getValue();
+      eldest.remove();
+      weight -= entry.weight;
+    }
+  }
+
+  private static final class Entry {
+
+    private final PatientTimeline timeline;
+    private final long createdAt = System.nanoTime();
+    // Weight counted in the cache total
+    private long weight;
+
+    private Entry(PatientTimeline timeline) {
+      this.timeline = timeline;
+    }
+
+    private boolean isExpired(long expireAfterWriteNanos) {
+      return System.nanoTime() - createdAt >= expireAfterWriteNanos;
+    }
+  }
+}
@@ -0,0 +1,277 @@
+package com.pm.analyticsservice.service;
+
+import com.pm.analyticsservice.dto.DistinctPatientsDTO;
+import com.pm.analyticsservice.dto.HistogramBucketDTO;
+import com.pm.analyticsservice.dto.PatientActivityDTO;
+import com.pm.analyticsservice.dto.TopPatientsDTO;
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.model.PatientSketch;
+import com.pm.analyticsservice.model.PatientSketchId;
+import com.pm.analyticsservice.model.RollupGranularity;
+import com.pm.analyticsservice.repository.PatientSketchRepository;
+import com.pm.analyticsservice.util.HyperLogLog;
+import com.pm.analyticsservice.util.SpaceSaving;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Approximate per-bucket patient activity: how many distinct patients were
+// touched (HyperLogLog) and which ones had the most events (space-saving).
+// Consumed events go into in-memory delta sketches; a scheduled flush
+// merges them into patient_sketches, and queries merge the bucket rows of a
+// range, so neither ever scans audit_events.
+@Service
+public class PatientSketchService {
+
+  // A row per minute would cost a few KB for every minute of the day
+  public static final Set<RollupGranularity> GRANULARITIES =
+      EnumSet.of(RollupGranularity.HOUR, RollupGranularity.DAY);
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientSketchService.class);
+
+  private final PatientSketchRepository sketchRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final int topCapacity;
+  private final ConcurrentHashMap<PatientSketchId, PendingSketch> pending =
+      new ConcurrentHashMap<>();
+  // As in RollupService, closed buckets leave the map one flush before
+  // their final drain so that events racing the removal are kept
+  private final List<Map.Entry<PatientSketchId, PendingSketch>> retiring =
+      new ArrayList<>();
+
+  public PatientSketchService(PatientSketchRepository sketchRepository,
+      TransactionTemplate transactionTemplate,
+      @Value("${analytics.sketch.top-capacity:64}") int topCapacity) {
+    this.sketchRepository = sketchRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.topCapacity = topCapacity;
+  }
+
+  public int topCapacity() {
+    return topCapacity;
+  }
+
+  public void record(List<AuditEvent> events) {
+    Map<PatientSketchId, List<String>> byBucket = new HashMap<>();
+    for (AuditEvent event : events) {
+      for (RollupGranularity granularity : GRANULARITIES) {
+        PatientSketchId id = new PatientSketchId(granularity,
+            granularity.bucketStart(event.getEventTimestamp()));
+        byBucket.computeIfAbsent(id, key -> new ArrayList<>())
+            .add(event.getPatientId());
+      }
+    }
+    // One lock per bucket and batch rather than per event
+    byBucket.forEach((id, patientIds) -> pending
+        .computeIfAbsent(id, key -> new PendingSketch(topCapacity))
+        .addAll(patientIds));
+  }
+
+  @Scheduled(fixedDelayString = "${analytics.sketch.flush-interval-ms:5000}")
+  @PreDestroy
+  public synchronized void flush() {
+    Map<PatientSketchId, Sketch> deltas = new HashMap<>();
+    for (Map.Entry<PatientSketchId, PendingSketch> entry : retiring) {
+      addDelta(deltas, entry.getKey(), entry.getValue().drain());
+    }
+    retiring.clear();
+
+    LocalDateTime now = LocalDateTime.now();
+    for (Map.Entry<PatientSketchId, PendingSketch> entry : pending.entrySet()) {
+      PatientSketchId id = entry.getKey();
+      addDelta(deltas, id, entry.getValue().drain());
+
+      LocalDateTime bucketEnd = id.getBucketStart()
+          .plus(1, id.getGranularity().unit());
+      if (bucketEnd.isBefore(now) && pending.remove(id, entry.getValue())) {
+        retiring.add(entry);
+      }
+    }
+    if (deltas.isEmpty()) {
+      return;
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(status ->
+          deltas.forEach(this::mergeIntoRow));
+      log.debug("Flushed {} patient sketch buckets", deltas.size());
+    } catch (RuntimeException e) {
+      // Keep the sketches for the next flush rather than losing them
+      log.warn("Failed to flush {} patient sketch buckets, will retry: {}",
+          deltas.size(), e.getMessage());
+      deltas.forEach((id, delta) -> pending
+          .computeIfAbsent(id, key -> new PendingSketch(topCapacity))
+          .merge(delta));
+    }
+  }
+
+  public DistinctPatientsDTO distinctPatients(RollupGranularity granularity,
+      LocalDateTime from, LocalDateTime to) {
+    HyperLogLog patients = new HyperLogLog();
+    long eventCount = 0;
+    List<HistogramBucketDTO> buckets = new ArrayList<>();
+    for (Map.Entry<LocalDateTime, Sketch> entry
+        : load(granularity, from, to).entrySet()) {
+      Sketch sketch = entry.getValue();
+      patients.merge(sketch.patients);
+      eventCount += sketch.eventCount;
+      buckets.add(new HistogramBucketDTO(entry.getKey(),
+          sketch.patients.estimate()));
+    }
+    return new DistinctPatientsDTO(patients.estimate(),
+        patients.relativeStandardError(), eventCount, buckets);
+  }
+
+  public TopPatientsDTO topPatients(RollupGranularity granularity,
+      LocalDateTime from, LocalDateTime to, int limit) {
+    Sketch merged = new Sketch(topCapacity);
+    for (Sketch sketch : load(granularity, from, to).values()) {
+      merged.eventCount += sketch.eventCount;
+      merged.top.merge(sketch.top);
+    }
+    List<SpaceSaving.Entry> entries = merged.top.top(limit + 1);
+    long maxUnlisted = merged.top.floor();
+    if (entries.size() > limit) {
+      maxUnlisted = Math.max(maxUnlisted, entries.get(limit).count());
+    }
+    List<PatientActivityDTO> patients = entries.stream()
+        .limit(limit)
+        .map(entry -> new PatientActivityDTO(entry.item(), entry.count(),
+            entry.error()))
+        .toList();
+    return new TopPatientsDTO(merged.eventCount, maxUnlisted, patients);
+  }
+
+  // Persisted rows plus sketches not flushed yet, by bucket start
+  private TreeMap<LocalDateTime, Sketch> load(RollupGranularity granularity,
+      LocalDateTime from, LocalDateTime to) {
+    LocalDateTime start = granularity.bucketStart(from);
+    TreeMap<LocalDateTime, Sketch> buckets = new TreeMap<>();
+    for (PatientSketch row : sketchRepository.findRange(granularity, start,
+        to)) {
+      buckets.put(row.getId().getBucketStart(), Sketch.fromRow(row));
+    }
+    pending.forEach((id, sketch) -> {
+      if (id.getGranularity() == granularity
+          && !id.getBucketStart().isBefore(start)
+          && id.getBucketStart().isBefore(to)) {
+        Sketch copy = sketch.copy();
+        if (copy != null) {
+          buckets.merge(id.getBucketStart(), copy, Sketch::merge);
+        }
+      }
+    });
+    return buckets;
+  }
+
+  private void mergeIntoRow(PatientSketchId id, Sketch delta) {
+    if (sketchRepository.insertIfAbsent(id.getGranularity().name(),
+        id.getBucketStart(), delta.eventCount, delta.patients.toBytes(),
+        delta.top.toBytes()) == 1) {
+      return;
+    }
+    // The row exists, so the lock below can't miss a concurrent first write.
+    // The delta itself stays untouched in case the transaction rolls back
+    PatientSketch row = sketchRepository.findForUpdate(id).orElseThrow();
+    Sketch merged = Sketch.fromRow(row).merge(delta);
+    row.setEventCount(merged.eventCount);
+    row.setDistinctPatients(merged.patients.toBytes());
+    row.setTopPatients(merged.top.toBytes());
+  }
+
+  private static void addDelta(Map<PatientSketchId, Sketch> deltas,
+      PatientSketchId id, Sketch delta) {
+    if (delta != null) {
+      deltas.merge(id, delta, Sketch::merge);
+    }
+  }
+
+  private static final class Sketch {
+
+    private long eventCount;
+    private final HyperLogLog patients;
+    private final SpaceSaving top;
+
+    private Sketch(int topCapacity) {
+      this(0, new HyperLogLog(), new SpaceSaving(topCapacity));
+    }
+
+    private Sketch(long eventCount, HyperLogLog patients, SpaceSaving top) {
+      this.eventCount = eventCount;
+      this.patients = patients;
+      this.top = top;
+    }
+
+    private static Sketch fromRow(PatientSketch row) {
+      return new Sketch(row.getEventCount(),
+          HyperLogLog.fromBytes(row.getDistinctPatients()),
+          SpaceSaving.fromBytes(row.getTopPatients()));
+    }
+
+    private void add(String patientId) {
+      eventCount++;
+      patients.add(patientId);
+      top.add(patientId);
+    }
+
+    private Sketch merge(Sketch other) {
+      eventCount += other.eventCount;
+      patients.merge(other.patients);
+      top.merge(other.top);
+      return this;
+    }
+  }
+
+  // The open delta of one bucket, shared by the consumer lanes
+  private static final class PendingSketch {
+
+    private final int topCapacity;
+    private Sketch sketch;
+
+    private PendingSketch(int topCapacity) {
+      this.topCapacity = topCapacity;
+      this.sketch = new Sketch(topCapacity);
+    }
+
+    private synchronized void addAll(List<String> patientIds) {
+      for (String patientId : patientIds) {
+        sketch.add(patientId);
+      }
+    }
+
+    private synchronized void merge(Sketch delta) {
+      sketch.merge(delta);
+    }
+
+    // Null when nothing was added since the last drain
+    private synchronized Sketch drain() {
+      if (sketch.eventCount == 0) {
+        return null;
+      }
+      Sketch drained = sketch;
+      sketch = new Sketch(topCapacity);
+      return drained;
+    }
+
+    private synchronized Sketch copy() {
+      if (sketch.eventCount == 0) {
+        return null;
+      }
+      return new Sketch(topCapacity).merge(sketch);
+    }
+  }
+}
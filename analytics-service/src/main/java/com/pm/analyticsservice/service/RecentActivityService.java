@@ -0,0 +1,74 @@
+package com.pm.analyticsservice.service;
+
+import com.pm.analyticsservice.dto.AuditEventDTO;
+import com.pm.analyticsservice.mapper.AuditEventMapper;
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.repository.AuditEventRepository;
+import com.pm.analyticsservice.util.RecentRingBuffer;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+// Serves /analytics/audit/recent from memory. The buffer is seeded from the
+// database before the Kafka listeners start and then fed by the consumer
+// after each successful flush.
+@Service
+public class RecentActivityService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      RecentActivityService.class);
+
+  private final AuditEventRepository auditEventRepository;
+  private final RecentRingBuffer<AuditEventDTO> buffer;
+
+  public RecentActivityService(AuditEventRepository auditEventRepository,
+      @Value("${analytics.audit.recent-capacity:1000}") int capacity) {
+    this.auditEventRepository = auditEventRepository;
+    this.buffer = new RecentRingBuffer<>(capacity);
+  }
+
+  @PostConstruct
+  public void seed() {
+    try {
+      List<AuditEvent> latest = auditEventRepository.findAll(PageRequest.of(0,
+              buffer.capacity(), Sort.by(Sort.Direction.DESC, "eventTimestamp")))
+          .getContent();
+      // Oldest first so the newest event ends up at the head
+      for (int i = latest.size() - 1; i >= 0; i--) {
+        buffer.add(AuditEventMapper.toDTO(latest.get(i)));
+      }
+      log.info("Seeded recent activity with {} events", latest.size());
+    } catch (RuntimeException e) {
+      log.warn("Could not seed recent activity, starting empty: {}",
+          e.getMessage());
+    }
+  }
+
+  public void record(List<AuditEvent> events) {
+    for (AuditEvent event : events) {
+      buffer.add(AuditEventMapper.toDTO(event));
+    }
+  }
+
+  public int capacity() {
+    return buffer.capacity();
+  }
+
+  public List<AuditEventDTO> getRecent(int limit) {
+    return buffer.latest(limit);
+  }
+
+  // Sequence-addressed access for the live stream
+  public long head() {
+    return buffer.head();
+  }
+
+  public AuditEventDTO get(long sequence) {
+    return buffer.get(sequence);
+  }
+}
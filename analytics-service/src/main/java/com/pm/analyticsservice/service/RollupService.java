@@ -0,0 +1,137 @@
+package com.pm.analyticsservice.service;
+
+import com.pm.analyticsservice.dto.RollupBucketDTO;
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.model.AuditEventRollup;
+import com.pm.analyticsservice.model.AuditEventRollupId;
+import com.pm.analyticsservice.model.RollupGranularity;
+import com.pm.analyticsservice.repository.AuditEventRollupRepository;
+import com.pm.analyticsservice.util.StripedCounter;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Maintains per-minute/hour/day event counts by type and source. Consumed
+// events bump in-memory striped counters; a scheduled flush drains them and
+// adds the deltas onto audit_event_rollups, so reads never touch raw events.
+@Service
+public class RollupService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      RollupService.class);
+
+  private final AuditEventRollupRepository rollupRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ConcurrentHashMap<AuditEventRollupId, StripedCounter> pending =
+      new ConcurrentHashMap<>();
+  // Counters of closed buckets are removed from the map one flush before
+  // their final drain so that any increment racing the removal is kept
+  private final List<Map.Entry<AuditEventRollupId, StripedCounter>> retiring =
+      new ArrayList<>();
+
+  public RollupService(AuditEventRollupRepository rollupRepository,
+      TransactionTemplate transactionTemplate) {
+    this.rollupRepository = rollupRepository;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  public void record(List<AuditEvent> events) {
+    for (AuditEvent event : events) {
+      for (RollupGranularity granularity : RollupGranularity.values()) {
+        AuditEventRollupId id = new AuditEventRollupId(granularity,
+            granularity.bucketStart(event.getEventTimestamp()),
+            event.getEventType(), event.getSourceService());
+        pending.computeIfAbsent(id, key -> new StripedCounter()).add(1);
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${analytics.rollup.flush-interval-ms:5000}")
+  @PreDestroy
+  public synchronized void flush() {
+    Map<AuditEventRollupId, Long> deltas = new HashMap<>();
+    for (Map.Entry<AuditEventRollupId, StripedCounter> entry : retiring) {
+      addDelta(deltas, entry.getKey(), entry.getValue().drain());
+    }
+    retiring.clear();
+
+    LocalDateTime now = LocalDateTime.now();
+    for (Map.Entry<AuditEventRollupId, StripedCounter> entry : pending.entrySet()) {
+      AuditEventRollupId id = entry.getKey();
+      addDelta(deltas, id, entry.getValue().drain());
+
+      LocalDateTime bucketEnd = id.getBucketStart()
+          .plus(1, id.getGranularity().unit());
+      if (bucketEnd.isBefore(now) && pending.remove(id, entry.getValue())) {
+        retiring.add(entry);
+      }
+    }
+    if (deltas.isEmpty()) {
+      return;
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(status -> deltas.forEach(
+          (id, delta) -> rollupRepository.add(id.getGranularity().name(),
+              id.getBucketStart(), id.getEventType(), id.getSourceService(),
+              delta)));
+      log.debug("Flushed {} rollup buckets", deltas.size());
+    } catch (RuntimeException e) {
+      // Keep the counts for the next flush rather than losing them
+      log.warn("Failed to flush {} rollup buckets, will retry: {}",
+          deltas.size(), e.getMessage());
+      deltas.forEach((id, delta) ->
+          pending.computeIfAbsent(id, key -> new StripedCounter()).add(delta));
+    }
+  }
+
+  public List<RollupBucketDTO> getBuckets(RollupGranularity granularity,
+      LocalDateTime from, LocalDateTime to, String eventType,
+      String sourceService) {
+    LocalDateTime start = granularity.bucketStart(from);
+    Map<AuditEventRollupId, Long> counts = new HashMap<>();
+
+    for (AuditEventRollup rollup : rollupRepository.findRange(granularity,
+        start, to)) {
+      counts.put(rollup.getId(), rollup.getEventCount());
+    }
+    // Include counts that have not been flushed yet
+    pending.forEach((id, counter) -> {
+      if (id.getGranularity() == granularity
+          && !id.getBucketStart().isBefore(start)
+          && id.getBucketStart().isBefore(to)) {
+        addDelta(counts, id, counter.sum());
+      }
+    });
+
+    return counts.entrySet().stream()
+        .filter(entry -> eventType == null
+            || eventType.equals(entry.getKey().getEventType()))
+        .filter(entry -> sourceService == null
+            || sourceService.equals(entry.getKey().getSourceService()))
+        .map(entry -> new RollupBucketDTO(entry.getKey().getBucketStart(),
+            entry.getKey().getEventType(), entry.getKey().getSourceService(),
+            entry.getValue()))
+        .sorted(Comparator.comparing(RollupBucketDTO::getBucketStart)
+            .thenComparing(RollupBucketDTO::getEventType)
+            .thenComparing(RollupBucketDTO::getSourceService))
+        .toList();
+  }
+
+  private static void addDelta(Map<AuditEventRollupId, Long> deltas,
+      AuditEventRollupId id, long delta) {
+    if (delta != 0) {
+      deltas.merge(id, delta, Long::sum);
+    }
+  }
+}
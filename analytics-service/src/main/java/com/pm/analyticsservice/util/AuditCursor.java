@@ -0,0 +1,35 @@
+package com.pm.analyticsservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+// Opaque continuation token for keyset pagination over
+// (eventTimestamp DESC, id DESC)
+public record AuditCursor(LocalDateTime timestamp, UUID id) {
+
+  private static final char SEPARATOR = '|';
+
+  public String encode() {
+    String raw = timestamp.toString() + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static AuditCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token),
+          StandardCharsets.UTF_8);
+      int separator = raw.indexOf(SEPARATOR);
+      if (separator < 0) {
+        throw new IllegalArgumentException("Malformed cursor: " + token);
+      }
+      return new AuditCursor(LocalDateTime.parse(raw.substring(0, separator)),
+          UUID.fromString(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed cursor: " + token, e);
+    }
+  }
+}
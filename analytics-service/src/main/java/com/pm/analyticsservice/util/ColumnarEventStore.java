@@ -0,0 +1,447 @@
+package com.pm.analyticsservice.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+// Append-only column store for audit event analytics. Events go into
+// fixed-size segments of parallel primitive columns: the timestamp as an
+// int millisecond offset from the segment's base, event type and source
+// as byte codes, and the patient id as an int ordinal: 10 bytes per event.
+// Patient ids are kept once for the whole store, in a dictionary entry of
+// roughly 150 bytes per distinct patient (the id string, its map entry and
+// a reference count). Queries scan segments in parallel on a fork-join
+// pool, skipping segments whose time range misses the query. Once
+// maxSegments are full the oldest segment is dropped, and patients it was
+// the last to mention leave the dictionary.
+//
+// One writer at a time (append is synchronized); readers never lock. A
+// segment's size is published after its columns are written, so a reader
+// only sees complete rows.
+public class ColumnarEventStore {
+
+  // Codes must fit in a byte column
+  private static final int MAX_TERMS = 256;
+
+  private final int segmentSize;
+  private final int maxSegments;
+  private final ForkJoinPool pool;
+  private final TermCodes eventTypes = new TermCodes();
+  private final TermCodes sources = new TermCodes();
+  private final PatientDictionary patients = new PatientDictionary();
+  private volatile Segment[] segments = new Segment[0];
+
+  public ColumnarEventStore(int segmentSize, int maxSegments,
+      ForkJoinPool pool) {
+    if (segmentSize < 1 || maxSegments < 1) {
+      throw new IllegalArgumentException(
+          "Segment size and segment count must be positive");
+    }
+    this.segmentSize = segmentSize;
+    this.maxSegments = maxSegments;
+    this.pool = pool;
+  }
+
+  // Returns false if the event can't be coded (more than 256 distinct
+  // event types or sources) and was not stored
+  public synchronized boolean append(long epochMillis, String eventType,
+      String source, String patientId) {
+    int type = eventTypes.encode(eventType);
+    int sourceCode = sources.encode(source);
+    if (type < 0 || sourceCode < 0) {
+      return false;
+    }
+
+    Segment[] current = segments;
+    Segment segment = current.length == 0 ? null : current[current.length - 1];
+    if (segment == null || !segment.accepts(epochMillis)) {
+      segment = new Segment(epochMillis, segmentSize);
+      int keep = Math.min(current.length, maxSegments - 1);
+      for (int i = 0; i < current.length - keep; i++) {
+        patients.release(current[i]);
+      }
+      Segment[] next = Arrays.copyOfRange(current, current.length - keep,
+          current.length + 1);
+      next[keep] = segment;
+      segments = next;
+    }
+    segment.append(epochMillis, (byte) type, (byte) sourceCode,
+        patients.acquire(patientId));
+    return true;
+  }
+
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      size += segment.size;
+    }
+    return size;
+  }
+
+  public int segmentCount() {
+    return segments.length;
+  }
+
+  public long count(Query query) {
+    return scan(query, Segment::count, Long::sum, () -> 0L);
+  }
+
+  // Matching events per event type, in the order the types were first seen
+  public Map<String, Long> countByEventType(Query query) {
+    Map<String, Long> result = new LinkedHashMap<>();
+    long[] counts = scan(query, (segment, size, filter) -> {
+      long[] perType = new long[MAX_TERMS];
+      segment.countByType(size, filter, perType);
+      return perType;
+    }, ColumnarEventStore::add, () -> new long[MAX_TERMS]);
+    List<String> terms = eventTypes.terms;
+    for (int code = 0; code < terms.size(); code++) {
+      if (counts[code] > 0) {
+        result.put(terms.get(code), counts[code]);
+      }
+    }
+    return result;
+  }
+
+  // Matching events per interval, starting at the query's from time
+  public long[] histogram(Query query, long intervalMillis) {
+    if (intervalMillis < 1) {
+      throw new IllegalArgumentException("Interval must be positive");
+    }
+    int buckets = (int) Math.ceilDiv(query.toMillis() - query.fromMillis(),
+        intervalMillis);
+    if (buckets <= 0) {
+      return new long[0];
+    }
+    return scan(query, (segment, size, filter) -> {
+      long[] counts = new long[buckets];
+      segment.histogram(size, filter, intervalMillis, counts);
+      return counts;
+    }, ColumnarEventStore::add, () -> new long[buckets]);
+  }
+
+  // Null when a filter term has never been seen, so nothing can match
+  private Filter resolve(Query query) {
+    int type = -1;
+    int source = -1;
+    if (query.eventType() != null) {
+      type = eventTypes.find(query.eventType());
+      if (type < 0) {
+        return null;
+      }
+    }
+    if (query.sourceService() != null) {
+      source = sources.find(query.sourceService());
+      if (source < 0) {
+        return null;
+      }
+    }
+    int patient = -1;
+    if (query.patientId() != null) {
+      patient = patients.find(query.patientId());
+      if (patient < 0) {
+        return null;
+      }
+    }
+    return new Filter(query.fromMillis(), query.toMillis(), type, source,
+        patient);
+  }
+
+  // A patient ordinal freed by a dropped segment can be handed to another
+  // patient while the scan runs, and that patient's new rows would then
+  // match; the query is resolved and scanned again if that happened
+  private <R> R scan(Query query, SegmentScanner<R> scanner,
+      BinaryOperator<R> combiner, Supplier<R> none) {
+    while (true) {
+      long reuses = patients.reuses;
+      Filter filter = resolve(query);
+      if (filter == null) {
+        return none.get();
+      }
+      R result = scan(filter, scanner, combiner);
+      if (filter.patient() < 0 || patients.reuses == reuses) {
+        return result;
+      }
+    }
+  }
+
+  private <R> R scan(Filter filter, SegmentScanner<R> scanner,
+      BinaryOperator<R> combiner) {
+    Segment[] snapshot = segments;
+    if (snapshot.length == 0) {
+      return scanner.scan(new Segment(0, 0), 0, filter);
+    }
+    return pool.invoke(new ScanTask<>(snapshot, 0, snapshot.length, filter,
+        scanner, combiner));
+  }
+
+  private static long[] add(long[] left, long[] right) {
+    for (int i = 0; i < left.length; i++) {
+      left[i] += right[i];
+    }
+    return left;
+  }
+
+  public record Query(long fromMillis, long toMillis, String eventType,
+      String sourceService, String patientId) {
+  }
+
+  private record Filter(long fromMillis, long toMillis, int type, int source,
+      int patient) {
+
+    boolean hasColumnFilter() {
+      return type >= 0 || source >= 0 || patient >= 0;
+    }
+  }
+
+  @FunctionalInterface
+  private interface SegmentScanner<R> {
+
+    // Size is read once per scan; rows appended meanwhile are not seen
+    R scan(Segment segment, int size, Filter filter);
+  }
+
+  // Splits the segment range in halves down to single segments
+  private static class ScanTask<R> extends RecursiveTask<R> {
+
+    private final Segment[] segments;
+    private final int from;
+    private final int to;
+    private final Filter filter;
+    private final SegmentScanner<R> scanner;
+    private final BinaryOperator<R> combiner;
+
+    ScanTask(Segment[] segments, int from, int to, Filter filter,
+        SegmentScanner<R> scanner, BinaryOperator<R> combiner) {
+      this.segments = segments;
+      this.from = from;
+      this.to = to;
+      this.filter = filter;
+      this.scanner = scanner;
+      this.combiner = combiner;
+    }
+
+    @Override
+    protected R compute() {
+      if (to - from == 1) {
+        Segment segment = segments[from];
+        return scanner.scan(segment, segment.size, filter);
+      }
+      int middle = (from + to) >>> 1;
+      ScanTask<R> left = new ScanTask<>(segments, from, middle, filter,
+          scanner, combiner);
+      left.fork();
+      R right = new ScanTask<>(segments, middle, to, filter, scanner,
+          combiner).compute();
+      return combiner.apply(left.join(), right);
+    }
+  }
+
+  private static class Segment {
+
+    final long baseMillis;
+    final int[] offsets;
+    final byte[] types;
+    final byte[] sources;
+    final int[] patients;
+    // Bounds only ever widen, so a reader seeing newer bounds than rows
+    // still prunes correctly
+    volatile long minMillis;
+    volatile long maxMillis;
+    volatile int size;
+
+    Segment(long baseMillis, int capacity) {
+      this.baseMillis = baseMillis;
+      this.offsets = new int[capacity];
+      this.types = new byte[capacity];
+      this.sources = new byte[capacity];
+      this.patients = new int[capacity];
+      this.minMillis = baseMillis;
+      this.maxMillis = baseMillis;
+    }
+
+    boolean accepts(long epochMillis) {
+      long offset = epochMillis - baseMillis;
+      return size < offsets.length && offset >= Integer.MIN_VALUE
+          && offset <= Integer.MAX_VALUE;
+    }
+
+    void append(long epochMillis, byte type, byte source, int patient) {
+      int row = size;
+      offsets[row] = (int) (epochMillis - baseMillis);
+      types[row] = type;
+      sources[row] = source;
+      patients[row] = patient;
+      if (epochMillis < minMillis) {
+        minMillis = epochMillis;
+      }
+      if (epochMillis > maxMillis) {
+        maxMillis = epochMillis;
+      }
+      size = row + 1;
+    }
+
+    long count(int size, Filter filter) {
+      if (!overlaps(size, filter)) {
+        return 0;
+      }
+      if (!filter.hasColumnFilter() && minMillis >= filter.fromMillis()
+          && maxMillis < filter.toMillis()) {
+        // Bounds are read after size, so they cover every visible row
+        return size;
+      }
+      long from = fromOffset(filter);
+      long to = toOffset(filter);
+      long count = 0;
+      for (int row = 0; row < size; row++) {
+        if (matches(row, from, to, filter)) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    void countByType(int size, Filter filter, long[] counts) {
+      if (!overlaps(size, filter)) {
+        return;
+      }
+      long from = fromOffset(filter);
+      long to = toOffset(filter);
+      for (int row = 0; row < size; row++) {
+        if (matches(row, from, to, filter)) {
+          counts[types[row] & 0xFF]++;
+        }
+      }
+    }
+
+    // Bucket of a row = (base + offset - query from) / interval
+    void histogram(int size, Filter filter, long intervalMillis,
+        long[] counts) {
+      if (!overlaps(size, filter)) {
+        return;
+      }
+      long from = fromOffset(filter);
+      long to = toOffset(filter);
+      long shift = baseMillis - filter.fromMillis();
+      for (int row = 0; row < size; row++) {
+        if (matches(row, from, to, filter)) {
+          counts[(int) ((shift + offsets[row]) / intervalMillis)]++;
+        }
+      }
+    }
+
+    // Small enough to be inlined into the scan loops
+    private boolean matches(int row, long from, long to, Filter filter) {
+      int offset = offsets[row];
+      return offset >= from && offset < to
+          && (filter.type() < 0 || (types[row] & 0xFF) == filter.type())
+          && (filter.source() < 0 || (sources[row] & 0xFF) == filter.source())
+          && (filter.patient() < 0 || patients[row] == filter.patient());
+    }
+
+    // Time bounds as offsets; clamping keeps them comparable with ints
+    private long fromOffset(Filter filter) {
+      return Math.max(filter.fromMillis() - baseMillis, Integer.MIN_VALUE);
+    }
+
+    private long toOffset(Filter filter) {
+      return Math.min(filter.toMillis() - baseMillis,
+          (long) Integer.MAX_VALUE + 1);
+    }
+
+    private boolean overlaps(int size, Filter filter) {
+      return size > 0 && maxMillis >= filter.fromMillis()
+          && minMillis < filter.toMillis();
+    }
+  }
+
+  // Byte codes for a low-cardinality column; -1 once all codes are taken
+  private static class TermCodes {
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final List<String> terms = new CopyOnWriteArrayList<>();
+
+    int encode(String term) {
+      Integer code = codes.get(term);
+      if (code != null) {
+        return code;
+      }
+      if (terms.size() == MAX_TERMS) {
+        return -1;
+      }
+      terms.add(term);
+      codes.put(term, terms.size() - 1);
+      return terms.size() - 1;
+    }
+
+    int find(String term) {
+      Integer code = codes.get(term);
+      return code == null ? -1 : code;
+    }
+  }
+
+  // Int ordinals for patient ids across all segments. refs counts the rows
+  // holding each ordinal; when a dropped segment takes the last of them the
+  // id is forgotten and its ordinal goes back on the free list. Only the
+  // appender calls acquire and release.
+  private static class PatientDictionary {
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private String[] ids = new String[64];
+    private int[] refs = new int[64];
+    private int[] free = new int[64];
+    private int freeCount;
+    private int next;
+    // Bumped before a freed ordinal is given to another patient
+    volatile long reuses;
+
+    int acquire(String id) {
+      Integer existing = ordinals.get(id);
+      int ordinal;
+      if (existing != null) {
+        ordinal = existing;
+      } else {
+        if (freeCount > 0) {
+          ordinal = free[--freeCount];
+          reuses++;
+        } else {
+          ordinal = next++;
+          if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ordinal * 2);
+            refs = Arrays.copyOf(refs, ordinal * 2);
+          }
+        }
+        ids[ordinal] = id;
+        ordinals.put(id, ordinal);
+      }
+      refs[ordinal]++;
+      return ordinal;
+    }
+
+    void release(Segment segment) {
+      for (int row = 0; row < segment.size; row++) {
+        int ordinal = segment.patients[row];
+        if (--refs[ordinal] == 0) {
+          ordinals.remove(ids[ordinal]);
+          ids[ordinal] = null;
+          if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+          }
+          free[freeCount++] = ordinal;
+        }
+      }
+    }
+
+    int find(String id) {
+      Integer ordinal = ordinals.get(id);
+      return ordinal == null ? -1 : ordinal;
+    }
+  }
+}
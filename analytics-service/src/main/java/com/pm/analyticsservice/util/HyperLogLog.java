@@ -0,0 +1,175 @@
+package com.pm.analyticsservice.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// Distinct-count sketch: 2^precision one-byte registers (4 KB at the
+// default precision of 12) whatever the number of values added, with a
+// relative standard error of 1.04 / sqrt(2^precision), about 1.6%.
+// Sketches of the same precision merge by taking register maxima, so
+// per-bucket sketches combine into any range. Not thread-safe.
+public class HyperLogLog {
+
+  public static final int DEFAULT_PRECISION = 12;
+
+  private static final int FORMAT_VERSION = 1;
+  private static final byte DENSE = 0;
+  private static final byte SPARSE = 1;
+
+  private final int precision;
+  private final byte[] registers;
+
+  public HyperLogLog() {
+    this(DEFAULT_PRECISION);
+  }
+
+  public HyperLogLog(int precision) {
+    if (precision < 4 || precision > 16) {
+      throw new IllegalArgumentException("Precision must be in [4, 16]");
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  public void add(String value) {
+    addHash(hash(value));
+  }
+
+  public void addHash(long hash) {
+    int index = (int) (hash >>> (64 - precision));
+    // Leading zeros of the remaining bits, plus one; the sentinel bit caps
+    // the rank when all of them are zero
+    long rest = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+    if (rank > registers[index]) {
+      registers[index] = rank;
+    }
+  }
+
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("Cannot merge sketches of precision "
+          + precision + " and " + other.precision);
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  public long estimate() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = alpha(m) * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      // Linear counting is more accurate while many registers are empty
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  public double relativeStandardError() {
+    return 1.04 / Math.sqrt(registers.length);
+  }
+
+  public boolean isEmpty() {
+    for (byte register : registers) {
+      if (register != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Sparse (index, rank) pairs while few registers are set, otherwise the
+  // raw registers
+  public byte[] toBytes() {
+    int used = 0;
+    for (byte register : registers) {
+      if (register != 0) {
+        used++;
+      }
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(FORMAT_VERSION);
+      out.writeByte(precision);
+      if (used * 3 < registers.length) {
+        out.writeByte(SPARSE);
+        out.writeShort(used);
+        for (int i = 0; i < registers.length; i++) {
+          if (registers[i] != 0) {
+            out.writeShort(i);
+            out.writeByte(registers[i]);
+          }
+        }
+      } else {
+        out.writeByte(DENSE);
+        out.write(registers);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static HyperLogLog fromBytes(byte[] data) {
+    try (DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(data))) {
+      int version = in.readByte();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unknown sketch version " + version);
+      }
+      HyperLogLog sketch = new HyperLogLog(in.readByte());
+      if (in.readByte() == SPARSE) {
+        int used = in.readUnsignedShort();
+        for (int i = 0; i < used; i++) {
+          sketch.registers[in.readUnsignedShort()] = in.readByte();
+        }
+      } else {
+        in.readFully(sketch.registers);
+      }
+      return sketch;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated sketch", e);
+    }
+  }
+
+  // 64-bit FNV-1a over the UTF-8 bytes, finished with MurmurHash3's fmix64
+  // so every input bit reaches the index and the rank bits
+  public static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static double alpha(int m) {
+    return switch (m) {
+      case 16 -> 0.673;
+      case 32 -> 0.697;
+      case 64 -> 0.709;
+      default -> 0.7213 / (1 + 1.079 / m);
+    };
+  }
+}
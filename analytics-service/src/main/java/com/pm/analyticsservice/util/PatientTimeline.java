@@ -0,0 +1,148 @@
+package com.pm.analyticsservice.util;
+
+import com.pm.analyticsservice.model.AuditEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+// The newest audit events of one patient, kept in (eventTimestamp, id)
+// order so pages come out exactly as the keyset queries would return them.
+// Either holds the patient's whole history (complete) or only the newest
+// maxEvents; a page reaching past the oldest cached event of an incomplete
+// timeline can't be answered here. Events added before load() are merged
+// into what it loads, so nothing consumed while loading is lost.
+public class PatientTimeline {
+
+  // Same order as the database: UUIDs compare as unsigned bytes there
+  private static final Comparator<AuditEvent> ORDER = Comparator
+      .comparing(AuditEvent::getEventTimestamp)
+      .thenComparing(AuditEvent::getId, PatientTimeline::compareIds);
+
+  private final int maxEvents;
+  // Oldest first
+  private final List<AuditEvent> events = new ArrayList<>();
+  private boolean loaded;
+  private boolean complete;
+
+  public PatientTimeline(int maxEvents) {
+    if (maxEvents < 1) {
+      throw new IllegalArgumentException("maxEvents must be positive");
+    }
+    this.maxEvents = maxEvents;
+  }
+
+  // newestFirst is the result of a history query limited to maxEvents + 1
+  // rows; getting more than maxEvents means older events exist
+  public synchronized void load(List<AuditEvent> newestFirst) {
+    complete = newestFirst.size() <= maxEvents;
+    AuditEvent oldestLoaded = null;
+    for (int i = 0; i < Math.min(newestFirst.size(), maxEvents); i++) {
+      oldestLoaded = newestFirst.get(i);
+      insert(oldestLoaded);
+    }
+    if (!complete) {
+      // Anything added meanwhile that is older than the loaded range would
+      // sit next to events it doesn't follow in the database
+      while (ORDER.compare(events.get(0), oldestLoaded) < 0) {
+        events.remove(0);
+      }
+    }
+    trim();
+    loaded = true;
+  }
+
+  public synchronized void add(AuditEvent event) {
+    if (!complete && !events.isEmpty() && loaded
+        && ORDER.compare(event, events.get(0)) < 0) {
+      // Older than the cached range; only the database can place it
+      return;
+    }
+    insert(event);
+    trim();
+  }
+
+  // Up to limit events after the cursor (or from the newest when null),
+  // newest first; null when the page needs events this timeline lacks
+  public synchronized List<AuditEvent> page(AuditCursor after, int limit) {
+    if (!loaded) {
+      return null;
+    }
+    int index = events.size() - 1;
+    if (after != null) {
+      index = lowerIndex(after) - 1;
+    }
+    List<AuditEvent> page = new ArrayList<>(Math.min(limit, index + 1));
+    for (; index >= 0 && page.size() < limit; index--) {
+      page.add(events.get(index));
+    }
+    return page.size() == limit || complete ? page : null;
+  }
+
+  public synchronized int size() {
+    return events.size();
+  }
+
+  public synchronized boolean isLoaded() {
+    return loaded;
+  }
+
+  // Keeps events sorted and skips ones already present
+  private void insert(AuditEvent event) {
+    int size = events.size();
+    if (size == 0 || ORDER.compare(event, events.get(size - 1)) > 0) {
+      // The usual case: newer than everything cached
+      events.add(event);
+      return;
+    }
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int comparison = ORDER.compare(events.get(middle), event);
+      if (comparison == 0) {
+        return;
+      }
+      if (comparison < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    events.add(low, event);
+  }
+
+  private void trim() {
+    if (events.size() > maxEvents) {
+      events.subList(0, events.size() - maxEvents).clear();
+      complete = false;
+    }
+  }
+
+  // First index whose event is not before the cursor
+  private int lowerIndex(AuditCursor cursor) {
+    int low = 0;
+    int high = events.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      AuditEvent event = events.get(middle);
+      int comparison = event.getEventTimestamp().compareTo(cursor.timestamp());
+      if (comparison == 0) {
+        comparison = compareIds(event.getId(), cursor.id());
+      }
+      if (comparison < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static int compareIds(UUID left, UUID right) {
+    int comparison = Long.compareUnsigned(left.getMostSignificantBits(),
+        right.getMostSignificantBits());
+    return comparison != 0 ? comparison : Long.compareUnsigned(
+        left.getLeastSignificantBits(), right.getLeastSignificantBits());
+  }
+}
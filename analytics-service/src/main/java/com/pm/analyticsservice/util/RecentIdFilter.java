@@ -0,0 +1,118 @@
+package com.pm.analyticsservice.util;
+
+import java.util.UUID;
+
+// Remembers the last N UUIDs added, in two primitive arrays per structure
+// instead of boxed UUIDs in a LinkedHashSet: an open-addressing table
+// (linear probing, load factor <= 0.5) for lookups and a FIFO ring that
+// decides which id to evict once the filter is full. Exact, not
+// probabilistic: an id is reported as seen only if it was really added.
+public class RecentIdFilter {
+
+  private final int capacity;
+  private final int mask;
+  private final long[] tableMsb;
+  private final long[] tableLsb;
+  private final boolean[] used;
+  private final long[] ringMsb;
+  private final long[] ringLsb;
+  private int ringStart;
+  private int size;
+
+  public RecentIdFilter(int capacity) {
+    if (capacity < 1 || capacity > (1 << 29)) {
+      throw new IllegalArgumentException("Capacity must be in [1, 2^29]");
+    }
+    int tableSize = Integer.highestOneBit(capacity) << 1;
+    if (tableSize < capacity * 2) {
+      tableSize <<= 1;
+    }
+    this.capacity = capacity;
+    this.mask = tableSize - 1;
+    this.tableMsb = new long[tableSize];
+    this.tableLsb = new long[tableSize];
+    this.used = new boolean[tableSize];
+    this.ringMsb = new long[capacity];
+    this.ringLsb = new long[capacity];
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public synchronized boolean contains(UUID id) {
+    return find(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+  }
+
+  // Returns false if the id was already present; evicts the oldest id
+  // when full
+  public synchronized boolean add(UUID id) {
+    long msb = id.getMostSignificantBits();
+    long lsb = id.getLeastSignificantBits();
+    if (find(msb, lsb) >= 0) {
+      return false;
+    }
+    if (size == capacity) {
+      remove(ringMsb[ringStart], ringLsb[ringStart]);
+      ringStart = (ringStart + 1) % capacity;
+      size--;
+    }
+    int slot = slotFor(msb, lsb);
+    while (used[slot]) {
+      slot = (slot + 1) & mask;
+    }
+    used[slot] = true;
+    tableMsb[slot] = msb;
+    tableLsb[slot] = lsb;
+    int end = (ringStart + size) % capacity;
+    ringMsb[end] = msb;
+    ringLsb[end] = lsb;
+    size++;
+    return true;
+  }
+
+  private int find(long msb, long lsb) {
+    int slot = slotFor(msb, lsb);
+    while (used[slot]) {
+      if (tableMsb[slot] == msb && tableLsb[slot] == lsb) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  // Backward-shift deletion keeps every probe chain unbroken without
+  // tombstones
+  private void remove(long msb, long lsb) {
+    int hole = find(msb, lsb);
+    if (hole < 0) {
+      return;
+    }
+    int slot = (hole + 1) & mask;
+    while (used[slot]) {
+      int home = slotFor(tableMsb[slot], tableLsb[slot]);
+      // Move the entry into the hole unless its home lies cyclically in
+      // (hole, slot], in which case moving it would hide it from lookups
+      if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+        tableMsb[hole] = tableMsb[slot];
+        tableLsb[hole] = tableLsb[slot];
+        hole = slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    used[hole] = false;
+  }
+
+  private int slotFor(long msb, long lsb) {
+    long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return (int) h & mask;
+  }
+}
@@ -0,0 +1,70 @@
+package com.pm.analyticsservice.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Keeps the last N values added, lock-free. Writers claim a sequence number
+// and publish into slot (sequence & mask); readers walk back from the head
+// and skip any slot a writer has not published yet or has already lapped,
+// so a read never blocks a write and never returns a stale value.
+public class RecentRingBuffer<T> {
+
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<Slot<T>> slots;
+  private final AtomicLong next = new AtomicLong();
+
+  public RecentRingBuffer(int capacity) {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Capacity must be in [1, 2^30]");
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.capacity = capacity;
+    this.mask = size - 1;
+    this.slots = new AtomicReferenceArray<>(size);
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  // Returns the sequence number the value was stored under
+  public long add(T value) {
+    long sequence = next.getAndIncrement();
+    slots.set((int) (sequence & mask), new Slot<>(sequence, value));
+    return sequence;
+  }
+
+  // Sequence the next add will claim
+  public long head() {
+    return next.get();
+  }
+
+  // Null if the sequence is not published yet or has been overwritten
+  public T get(long sequence) {
+    Slot<T> slot = slots.get((int) (sequence & mask));
+    return slot != null && slot.sequence() == sequence ? slot.value() : null;
+  }
+
+  // Newest first; at most min(limit, capacity) values
+  public List<T> latest(int limit) {
+    long head = next.get();
+    int count = (int) Math.min(Math.min(limit, capacity), head);
+    List<T> values = new ArrayList<>(count);
+    for (long sequence = head - 1; sequence >= head - count; sequence--) {
+      Slot<T> slot = slots.get((int) (sequence & mask));
+      if (slot != null && slot.sequence() == sequence) {
+        values.add(slot.value());
+      }
+    }
+    return values;
+  }
+
+  private record Slot<T>(long sequence, T value) {
+  }
+}
@@ -0,0 +1,175 @@
+package com.pm.analyticsservice.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Heavy-hitters sketch (Metwally et al.'s space-saving) holding at most
+// capacity counters. An untracked item takes over the smallest counter and
+// inherits its count as error, so every reported count is an upper bound
+// and count - error a lower bound; any item more frequent than
+// total / capacity is guaranteed to be tracked. Summaries merge by adding
+// counts, charging items missing from a full side with that side's
+// smallest count. Not thread-safe.
+public class SpaceSaving {
+
+  private static final int FORMAT_VERSION = 1;
+
+  private final int capacity;
+  private final Map<String, Counter> counters;
+  private long total;
+
+  public SpaceSaving(int capacity) {
+    if (capacity < 1 || capacity > 0xffff) {
+      throw new IllegalArgumentException("Capacity must be in [1, 65535]");
+    }
+    this.capacity = capacity;
+    this.counters = new HashMap<>(capacity * 2);
+  }
+
+  public record Entry(String item, long count, long error) {
+  }
+
+  public void add(String item) {
+    add(item, 1);
+  }
+
+  public void add(String item, long weight) {
+    total += weight;
+    Counter counter = counters.get(item);
+    if (counter != null) {
+      counter.count += weight;
+      return;
+    }
+    if (counters.size() < capacity) {
+      counters.put(item, new Counter(weight, 0));
+      return;
+    }
+    // Scanning for the minimum is cheap at the few dozen counters we keep
+    Map.Entry<String, Counter> smallest = null;
+    for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+      if (smallest == null
+          || entry.getValue().count < smallest.getValue().count) {
+        smallest = entry;
+      }
+    }
+    counters.remove(smallest.getKey());
+    long floor = smallest.getValue().count;
+    counters.put(item, new Counter(floor + weight, floor));
+  }
+
+  public void merge(SpaceSaving other) {
+    long ownFloor = floor();
+    long otherFloor = other.floor();
+    Map<String, Counter> merged = new HashMap<>();
+    for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+      Counter theirs = other.counters.get(entry.getKey());
+      Counter mine = entry.getValue();
+      merged.put(entry.getKey(), theirs != null
+          ? new Counter(mine.count + theirs.count, mine.error + theirs.error)
+          : new Counter(mine.count + otherFloor, mine.error + otherFloor));
+    }
+    for (Map.Entry<String, Counter> entry : other.counters.entrySet()) {
+      if (!counters.containsKey(entry.getKey())) {
+        Counter theirs = entry.getValue();
+        merged.put(entry.getKey(), new Counter(theirs.count + ownFloor,
+            theirs.error + ownFloor));
+      }
+    }
+    counters.clear();
+    merged.entrySet().stream()
+        .sorted(Map.Entry.comparingByValue(
+            Comparator.comparingLong((Counter counter) -> counter.count)
+                .reversed()))
+        .limit(capacity)
+        .forEach(entry -> counters.put(entry.getKey(), entry.getValue()));
+    total += other.total;
+  }
+
+  // Highest counts first
+  public List<Entry> top(int limit) {
+    List<Entry> entries = new ArrayList<>(counters.size());
+    counters.forEach((item, counter) ->
+        entries.add(new Entry(item, counter.count, counter.error)));
+    entries.sort(Comparator.comparingLong(Entry::count).reversed()
+        .thenComparing(Entry::item));
+    return entries.subList(0, Math.min(limit, entries.size()));
+  }
+
+  public long total() {
+    return total;
+  }
+
+  public boolean isEmpty() {
+    return total == 0;
+  }
+
+  // Upper bound on the count of any item not tracked
+  public long floor() {
+    if (counters.size() < capacity) {
+      return 0;
+    }
+    long floor = Long.MAX_VALUE;
+    for (Counter counter : counters.values()) {
+      floor = Math.min(floor, counter.count);
+    }
+    return floor;
+  }
+
+  public byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(FORMAT_VERSION);
+      out.writeShort(capacity);
+      out.writeLong(total);
+      out.writeShort(counters.size());
+      for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeLong(entry.getValue().count);
+        out.writeLong(entry.getValue().error);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static SpaceSaving fromBytes(byte[] data) {
+    try (DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(data))) {
+      int version = in.readByte();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unknown sketch version " + version);
+      }
+      SpaceSaving sketch = new SpaceSaving(in.readUnsignedShort());
+      sketch.total = in.readLong();
+      int size = in.readUnsignedShort();
+      for (int i = 0; i < size; i++) {
+        sketch.counters.put(in.readUTF(),
+            new Counter(in.readLong(), in.readLong()));
+      }
+      return sketch;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated sketch", e);
+    }
+  }
+
+  private static final class Counter {
+
+    private long count;
+    private final long error;
+
+    private Counter(long count, long error) {
+      this.count = count;
+      this.error = error;
+    }
+  }
+}
@@ -0,0 +1,368 @@
+package com.pm.analyticsservice.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Durable FIFO of byte[] records on memory-mapped segment files. Segment
+// files are preallocated, at most maxSegments of them, and recycled once
+// drained, so disk usage never exceeds maxSegments * segmentBytes.
+//
+// Segment layout: a header (magic, sequence, read position) followed by
+// records of [length][crc][payload] and a zero length marking the end. The
+// CRC covers the segment sequence and the payload, so a torn write or a
+// record left over from a recycled segment's previous use fails the check
+// and recovery stops there. Readers take a batch with peek() and advance
+// past it with commit() once it has been handled; anything not committed
+// is read again after a restart.
+public class SpillQueue implements AutoCloseable {
+
+  public enum Fsync {
+    // Forced to disk before append returns
+    EVERY_APPEND,
+    // Forced by the caller calling force(), typically on a schedule
+    INTERVAL,
+    // Left to the OS page cache
+    NEVER
+  }
+
+  private static final int MAGIC = 0x53504c31;
+  private static final int SEQUENCE_OFFSET = 8;
+  private static final int READ_POSITION_OFFSET = 16;
+  private static final int HEADER_BYTES = 24;
+  private static final int RECORD_OVERHEAD = 8;
+  private static final String FILE_PREFIX = "spill-";
+  private static final String FILE_SUFFIX = ".seg";
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final int maxSegments;
+  private final Fsync fsync;
+  // Oldest first; the last one is written to
+  private final Deque<Segment> active = new ArrayDeque<>();
+  private final Deque<Segment> free = new ArrayDeque<>();
+  private int fileCount;
+  private long nextSequence = 1;
+  private long depth;
+  private long corruptSegments;
+  private boolean dirty;
+
+  public SpillQueue(Path directory, int segmentBytes, int maxSegments,
+      Fsync fsync) throws IOException {
+    if (segmentBytes <= HEADER_BYTES + RECORD_OVERHEAD || maxSegments < 1) {
+      throw new IllegalArgumentException("Spill queue is too small");
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.maxSegments = maxSegments;
+    this.fsync = fsync;
+    Files.createDirectories(directory);
+    recover();
+  }
+
+  // Appends all records or none; false when they don't fit in the disk
+  // budget or a record is larger than a segment
+  public synchronized boolean append(List<byte[]> records) throws IOException {
+    int segmentsNeeded = 0;
+    long room = active.isEmpty() ? 0 : active.peekLast().room();
+    for (byte[] record : records) {
+      int size = RECORD_OVERHEAD + record.length;
+      if (size > segmentBytes - HEADER_BYTES - 4) {
+        return false;
+      }
+      if (size > room) {
+        segmentsNeeded++;
+        room = segmentBytes - HEADER_BYTES - 4;
+      }
+      room -= size;
+    }
+    if (active.size() + segmentsNeeded > maxSegments) {
+      return false;
+    }
+
+    for (byte[] record : records) {
+      Segment tail = active.peekLast();
+      if (tail == null || tail.room() < RECORD_OVERHEAD + record.length) {
+        tail = openSegment();
+      }
+      tail.append(record);
+    }
+    depth += records.size();
+    if (fsync == Fsync.EVERY_APPEND) {
+      forceActive();
+    } else {
+      dirty = true;
+    }
+    return true;
+  }
+
+  // Up to maxRecords from the head, all from the same segment
+  public synchronized Batch peek(int maxRecords) {
+    Segment head = headWithRecords();
+    if (head == null) {
+      return new Batch(List.of(), null, 0);
+    }
+    List<byte[]> records = new ArrayList<>();
+    int position = head.readPosition;
+    while (records.size() < maxRecords && position < head.writePosition) {
+      int length = head.buffer.getInt(position);
+      byte[] record = new byte[length];
+      head.buffer.get(position + RECORD_OVERHEAD, record);
+      records.add(record);
+      position += RECORD_OVERHEAD + length;
+    }
+    return new Batch(records, head, position);
+  }
+
+  public synchronized void commit(Batch batch) {
+    if (batch.segment == null) {
+      return;
+    }
+    Segment segment = batch.segment;
+    if (segment.sequence != batch.sequence) {
+      throw new IllegalStateException("Batch was already committed");
+    }
+    segment.readPosition = batch.endPosition;
+    segment.buffer.putInt(READ_POSITION_OFFSET, batch.endPosition);
+    depth -= batch.records.size();
+    dirty = true;
+    recycleDrained();
+  }
+
+  public synchronized long depth() {
+    return depth;
+  }
+
+  // Bytes of segment files currently holding undrained records
+  public synchronized long usedBytes() {
+    return (long) active.size() * segmentBytes;
+  }
+
+  // Segments whose tail was cut short by a bad record during recovery
+  public synchronized long corruptSegments() {
+    return corruptSegments;
+  }
+
+  public synchronized void force() {
+    if (dirty) {
+      forceActive();
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    forceActive();
+    for (Segment segment : active) {
+      closeQuietly(segment.channel);
+    }
+    for (Segment segment : free) {
+      closeQuietly(segment.channel);
+    }
+    active.clear();
+    free.clear();
+  }
+
+  private void recover() throws IOException {
+    List<Segment> used = new ArrayList<>();
+    try (var files = Files.list(directory)) {
+      for (Path file : files.filter(this::isSegmentFile).sorted().toList()) {
+        Segment segment = map(file);
+        fileCount++;
+        if (segment.buffer.getInt(0) != MAGIC
+            || segment.buffer.getLong(SEQUENCE_OFFSET) == 0) {
+          free.add(segment);
+          continue;
+        }
+        segment.sequence = segment.buffer.getLong(SEQUENCE_OFFSET);
+        used.add(segment);
+      }
+    }
+    used.sort(Comparator.comparingLong(segment -> segment.sequence));
+    for (Segment segment : used) {
+      depth += segment.scan(segment.buffer.getInt(READ_POSITION_OFFSET));
+      nextSequence = Math.max(nextSequence, segment.sequence + 1);
+      active.add(segment);
+    }
+    recycleDrained();
+  }
+
+  private boolean isSegmentFile(Path file) {
+    String name = file.getFileName().toString();
+    return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+  }
+
+  private Segment headWithRecords() {
+    recycleDrained();
+    Segment head = active.peekFirst();
+    return head != null && head.readPosition < head.writePosition ? head : null;
+  }
+
+  // Returns drained segments to the free list, keeping the tail so writes
+  // continue where they are
+  private void recycleDrained() {
+    while (active.size() > 1
+        && active.peekFirst().readPosition >= active.peekFirst().writePosition) {
+      Segment drained = active.pollFirst();
+      drained.reset();
+      free.add(drained);
+    }
+  }
+
+  private Segment openSegment() throws IOException {
+    Segment segment = free.pollFirst();
+    if (segment == null) {
+      segment = map(directory.resolve(FILE_PREFIX
+          + String.format("%06d", fileCount++) + FILE_SUFFIX));
+    }
+    segment.start(nextSequence++);
+    active.addLast(segment);
+    return segment;
+  }
+
+  private Segment map(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    if (channel.size() < segmentBytes) {
+      // Sparse on most file systems until written
+      channel.write(ByteBuffer.allocate(1), segmentBytes - 1);
+    }
+    return new Segment(channel,
+        channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+  }
+
+  private void forceActive() {
+    for (Segment segment : active) {
+      segment.buffer.force();
+    }
+    dirty = false;
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // Nothing left to lose; the mapping was already forced
+    }
+  }
+
+  // Records taken by peek(); pass back to commit() once handled
+  public static final class Batch {
+
+    private final List<byte[]> records;
+    private final Segment segment;
+    private final long sequence;
+    private final int endPosition;
+
+    private Batch(List<byte[]> records, Segment segment, int endPosition) {
+      this.records = records;
+      this.segment = segment;
+      this.sequence = segment == null ? 0 : segment.sequence;
+      this.endPosition = endPosition;
+    }
+
+    public List<byte[]> records() {
+      return records;
+    }
+
+    public boolean isEmpty() {
+      return records.isEmpty();
+    }
+  }
+
+  private final class Segment {
+
+    final FileChannel channel;
+    final MappedByteBuffer buffer;
+    long sequence;
+    int readPosition = HEADER_BYTES;
+    int writePosition = HEADER_BYTES;
+
+    Segment(FileChannel channel, MappedByteBuffer buffer) {
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+
+    // Room for records, keeping space for the end marker
+    int room() {
+      return segmentBytes - writePosition - 4;
+    }
+
+    void start(long sequence) {
+      this.sequence = sequence;
+      readPosition = HEADER_BYTES;
+      writePosition = HEADER_BYTES;
+      buffer.putInt(HEADER_BYTES, 0);
+      buffer.putInt(READ_POSITION_OFFSET, HEADER_BYTES);
+      buffer.putLong(SEQUENCE_OFFSET, sequence);
+      buffer.putInt(0, MAGIC);
+    }
+
+    void reset() {
+      buffer.putLong(SEQUENCE_OFFSET, 0);
+      sequence = 0;
+    }
+
+    void append(byte[] record) {
+      int position = writePosition;
+      buffer.putInt(position + 4, crc(sequence, record, record.length));
+      buffer.put(position + RECORD_OVERHEAD, record);
+      // End marker first, then the length that makes the record visible
+      buffer.putInt(position + RECORD_OVERHEAD + record.length, 0);
+      buffer.putInt(position, record.length);
+      writePosition = position + RECORD_OVERHEAD + record.length;
+    }
+
+    // Finds the end of the valid records and returns how many lie at or
+    // after the read position
+    int scan(int savedReadPosition) {
+      int position = HEADER_BYTES;
+      int records = 0;
+      byte[] payload = new byte[0];
+      while (position + RECORD_OVERHEAD <= segmentBytes - 4) {
+        int length = buffer.getInt(position);
+        if (length == 0) {
+          break;
+        }
+        if (length < 0 || position + RECORD_OVERHEAD + length > segmentBytes - 4) {
+          corruptSegments++;
+          break;
+        }
+        if (payload.length < length) {
+          payload = new byte[length];
+        }
+        buffer.get(position + RECORD_OVERHEAD, payload, 0, length);
+        if (crc(sequence, payload, length) != buffer.getInt(position + 4)) {
+          corruptSegments++;
+          break;
+        }
+        if (position >= savedReadPosition) {
+          records++;
+        }
+        position += RECORD_OVERHEAD + length;
+      }
+      writePosition = position;
+      readPosition = Math.min(Math.max(savedReadPosition, HEADER_BYTES),
+          position);
+      return records;
+    }
+  }
+
+  private static int crc(long sequence, byte[] payload, int length) {
+    CRC32C crc = new CRC32C();
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      crc.update((int) (sequence >>> shift));
+    }
+    crc.update(payload, 0, length);
+    return (int) crc.getValue();
+  }
+}
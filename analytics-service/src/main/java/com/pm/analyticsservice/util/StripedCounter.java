@@ -0,0 +1,36 @@
+package com.pm.analyticsservice.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counter spread over cache-line padded slots so concurrent listener threads
+// rarely contend. Unlike LongAdder.sumThenReset, drain() is lossless under
+// concurrent increments because each slot is swapped atomically.
+public class StripedCounter {
+
+  private static final int PADDING = 8;
+  private static final int STRIPES = Integer.highestOneBit(
+      Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+  private final AtomicLongArray slots = new AtomicLongArray(STRIPES * PADDING);
+
+  public void add(long delta) {
+    int stripe = (int) (Thread.currentThread().threadId() & (STRIPES - 1));
+    slots.getAndAdd(stripe * PADDING, delta);
+  }
+
+  public long sum() {
+    long sum = 0;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += slots.get(i * PADDING);
+    }
+    return sum;
+  }
+
+  public long drain() {
+    long sum = 0;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += slots.getAndSet(i * PADDING, 0);
+    }
+    return sum;
+  }
+}
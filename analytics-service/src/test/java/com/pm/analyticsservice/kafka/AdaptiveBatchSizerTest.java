@@ -0,0 +1,42 @@
+package com.pm.analyticsservice.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveBatchSizerTest {
+
+  private static final long FAST = 10_000_000L;
+  private static final long SLOW = 500_000_000L;
+
+  @Test
+  void growsWhileFullFlushesStayUnderTarget() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 200, 50, 100);
+
+    sizer.record(50, FAST);
+    sizer.record(100, FAST);
+
+    assertEquals(150, sizer.currentSize());
+  }
+
+  @Test
+  void halvesWhenFlushIsSlowButNeverBelowMinimum() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 1000, 400, 100);
+
+    sizer.record(400, SLOW);
+    assertEquals(200, sizer.currentSize());
+
+    sizer.record(200, SLOW);
+    sizer.record(100, SLOW);
+    assertEquals(50, sizer.currentSize());
+  }
+
+  @Test
+  void partialChunksDoNotGrowTheBatch() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 1000, 100, 100);
+
+    sizer.record(10, FAST);
+
+    assertEquals(100, sizer.currentSize());
+  }
+}
@@ -0,0 +1,88 @@
+package com.pm.analyticsservice.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pm.analyticsservice.model.AuditEvent;
+import com.pm.analyticsservice.util.SpillQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+class AuditSpillQueueTest {
+
+  @TempDir
+  Path directory;
+
+  private AuditSpillQueue spillQueue;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    spillQueue = new AuditSpillQueue(new SimpleMeterRegistry(), directory,
+        DataSize.ofKilobytes(64), DataSize.ofKilobytes(256),
+        SpillQueue.Fsync.NEVER);
+  }
+
+  @AfterEach
+  void tearDown() {
+    spillQueue.close();
+  }
+
+  private static AuditEvent event(String patientId) {
+    return new AuditEvent(patientId, "John Doe", "john@example.com",
+        "PATIENT_CREATED", LocalDateTime.of(2026, 1, 1, 12, 0),
+        "patient-service");
+  }
+
+  private static boolean unavailable(RuntimeException e) {
+    return e instanceof DataAccessResourceFailureException;
+  }
+
+  @Test
+  void handsPoisonEventToRejectAndDrainsTheRest() {
+    assertTrue(spillQueue.spill(List.of(event("p1"), event("poison"),
+        event("p3"))));
+    List<String> stored = new ArrayList<>();
+    List<String> rejected = new ArrayList<>();
+    Consumer<List<AuditEvent>> store = events -> {
+      if (events.stream().anyMatch(e -> e.getPatientId().equals("poison"))) {
+        throw new DataIntegrityViolationException("value too long");
+      }
+      events.forEach(e -> stored.add(e.getPatientId()));
+    };
+
+    int drained = spillQueue.drain(10, store, AuditSpillQueueTest::unavailable,
+        (event, cause) -> rejected.add(event.getPatientId()));
+
+    assertEquals(3, drained);
+    assertEquals(List.of("p1", "p3"), stored);
+    assertEquals(List.of("poison"), rejected);
+    assertEquals(0, spillQueue.depth());
+  }
+
+  @Test
+  void keepsBatchQueuedWhileDatabaseIsUnavailable() {
+    assertTrue(spillQueue.spill(List.of(event("p1"), event("p2"))));
+    List<AuditEvent> rejected = new ArrayList<>();
+
+    assertThrows(DataAccessResourceFailureException.class,
+        () -> spillQueue.drain(10, events -> {
+          throw new DataAccessResourceFailureException("connection refused");
+        }, AuditSpillQueueTest::unavailable, (event, cause) -> rejected.add(event)));
+
+    assertEquals(2, spillQueue.depth());
+    assertTrue(rejected.isEmpty());
+  }
+}
@@ -0,0 +1,77 @@
+package com.pm.analyticsservice.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class KeyOrderedExecutorTest {
+
+  @Test
+  void tasksForOneKeyRunInSubmissionOrder() {
+    try (KeyOrderedExecutor executor = new KeyOrderedExecutor("test", 4)) {
+      int lane = executor.laneFor("patient-1");
+      List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+      List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+      for (int i = 0; i < 100; i++) {
+        int value = i;
+        futures.add(executor.submit(lane, 1, () -> {
+          seen.add(value);
+          return value;
+        }));
+      }
+      futures.forEach(CompletableFuture::join);
+
+      for (int i = 0; i < 100; i++) {
+        assertEquals(i, seen.get(i));
+      }
+    }
+  }
+
+  @Test
+  void queueDepthTracksOutstandingWeight() throws Exception {
+    try (KeyOrderedExecutor executor = new KeyOrderedExecutor("test", 2)) {
+      CountDownLatch release = new CountDownLatch(1);
+      CompletableFuture<Void> blocked = executor.submit(0, 5, () -> {
+        await(release);
+        return null;
+      });
+      CompletableFuture<Void> waiting = executor.submit(0, 3, () -> null);
+
+      assertEquals(8, executor.queueDepth(0));
+      assertEquals(0, executor.queueDepth(1));
+
+      release.countDown();
+      blocked.join();
+      waiting.join();
+      assertEquals(0, executor.queueDepth(0));
+    }
+  }
+
+  @Test
+  void keysAreSpreadAcrossLanes() {
+    try (KeyOrderedExecutor executor = new KeyOrderedExecutor("test", 4)) {
+      int first = executor.laneFor("patient-0");
+      boolean spread = false;
+      for (int i = 1; i < 20 && !spread; i++) {
+        spread = executor.laneFor("patient-" + i) != first;
+      }
+      assertTrue(spread);
+      assertEquals(0, executor.laneFor(null));
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
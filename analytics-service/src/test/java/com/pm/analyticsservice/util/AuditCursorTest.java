@@ -0,0 +1,25 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class AuditCursorTest {
+
+  @Test
+  void encodedCursorDecodesToSamePosition() {
+    AuditCursor cursor = new AuditCursor(
+        LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000), UUID.randomUUID());
+
+    assertEquals(cursor, AuditCursor.decode(cursor.encode()));
+  }
+
+  @Test
+  void malformedCursorIsRejected() {
+    assertThrows(IllegalArgumentException.class,
+        () -> AuditCursor.decode("not-a-cursor"));
+  }
+}
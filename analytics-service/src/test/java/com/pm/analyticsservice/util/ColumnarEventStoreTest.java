@@ -0,0 +1,110 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ColumnarEventStoreTest {
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @AfterEach
+  void shutdown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  void countsAndFiltersAcrossSegments() {
+    ColumnarEventStore store = new ColumnarEventStore(100, 100, pool);
+    // One event per second; every third is an update, patients p0..p9
+    for (int i = 0; i < 1000; i++) {
+      store.append(i * 1000L, i % 3 == 0 ? "PATIENT_UPDATED" : "PATIENT_CREATED",
+          "patient-service", "p" + (i % 10));
+    }
+
+    assertEquals(10, store.segmentCount());
+    assertEquals(1000, store.count(query(0, 1_000_000, null, null)));
+    assertEquals(100, store.count(query(250_000, 350_000, null, null)));
+    assertEquals(334, store.count(query(0, 1_000_000, "PATIENT_UPDATED", null)));
+    assertEquals(100, store.count(query(0, 1_000_000, null, "p3")));
+    assertEquals(0, store.count(query(0, 1_000_000, "PATIENT_DELETED", null)));
+    assertEquals(Map.of("PATIENT_UPDATED", 4L, "PATIENT_CREATED", 6L),
+        store.countByEventType(query(0, 10_000, null, null)));
+  }
+
+  @Test
+  void bucketsHistogramFromQueryStart() {
+    ColumnarEventStore store = new ColumnarEventStore(64, 10, pool);
+    for (int i = 0; i < 100; i++) {
+      store.append(10_000L + i * 100, "PATIENT_CREATED", "patient-service",
+          "p1");
+    }
+
+    // 10 events per second from 10s to 20s, asked for 9s to 12.5s
+    assertArrayEquals(new long[] {0, 10, 10, 5},
+        store.histogram(query(9_000, 12_500, null, null), 1000));
+  }
+
+  @Test
+  void forgetsPatientsWithTheirSegment() {
+    ColumnarEventStore store = new ColumnarEventStore(2, 2, pool);
+    store.append(0, "PATIENT_CREATED", "patient-service", "p1");
+    store.append(1, "PATIENT_CREATED", "patient-service", "p2");
+    store.append(2, "PATIENT_UPDATED", "patient-service", "p2");
+    store.append(3, "PATIENT_CREATED", "patient-service", "p3");
+    store.append(4, "PATIENT_CREATED", "patient-service", "p4");
+
+    // The first segment (p1, p2) was dropped; p2 is still in the second
+    // segment, and p1's ordinal was freed and handed to p4
+    assertEquals(0, store.count(query(0, 10, null, "p1")));
+    assertEquals(1, store.count(query(0, 10, null, "p2")));
+    assertEquals(1, store.count(query(0, 10, null, "p4")));
+    assertEquals(Map.of("PATIENT_UPDATED", 1L),
+        store.countByEventType(query(0, 10, null, "p2")));
+  }
+
+  @Test
+  void dropsOldestSegmentWhenFull() {
+    ColumnarEventStore store = new ColumnarEventStore(10, 3, pool);
+    for (int i = 0; i < 45; i++) {
+      store.append(i, "PATIENT_CREATED", "patient-service", "p1");
+    }
+
+    assertEquals(3, store.segmentCount());
+    assertEquals(25, store.size());
+    assertEquals(0, store.count(query(0, 20, null, null)));
+    assertEquals(25, store.count(query(0, 45, null, null)));
+  }
+
+  @Test
+  void startsNewSegmentWhenOffsetOverflows() {
+    ColumnarEventStore store = new ColumnarEventStore(100, 10, pool);
+    long farFuture = 30L * 24 * 60 * 60 * 1000;
+    store.append(0, "PATIENT_CREATED", "patient-service", "p1");
+    store.append(farFuture, "PATIENT_CREATED", "patient-service", "p1");
+
+    assertEquals(2, store.segmentCount());
+    assertEquals(1, store.count(query(farFuture, farFuture + 1, null, null)));
+  }
+
+  @Test
+  void rejectsMoreThan256EventTypes() {
+    ColumnarEventStore store = new ColumnarEventStore(1000, 1, pool);
+    for (int i = 0; i < 256; i++) {
+      store.append(i, "TYPE_" + i, "patient-service", "p1");
+    }
+
+    assertFalse(store.append(256, "TYPE_256", "patient-service", "p1"));
+    assertEquals(1, store.count(query(0, 1000, "TYPE_255", null)));
+  }
+
+  private static ColumnarEventStore.Query query(long from, long to,
+      String eventType, String patientId) {
+    return new ColumnarEventStore.Query(from, to, eventType, null, patientId);
+  }
+}
@@ -0,0 +1,65 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+  @Test
+  void estimatesWithinThreeStandardErrors() {
+    for (int distinct : new int[] {100, 10_000, 1_000_000}) {
+      HyperLogLog sketch = new HyperLogLog();
+      for (int i = 0; i < distinct; i++) {
+        sketch.add("patient-" + i);
+        // Repeats must not count
+        sketch.add("patient-" + (i / 2));
+      }
+      double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+      assertTrue(error < 3 * sketch.relativeStandardError(),
+          distinct + " estimated as " + sketch.estimate());
+    }
+  }
+
+  @Test
+  void mergeMatchesSketchOfTheUnion() {
+    HyperLogLog left = new HyperLogLog();
+    HyperLogLog right = new HyperLogLog();
+    HyperLogLog union = new HyperLogLog();
+    for (int i = 0; i < 50_000; i++) {
+      (i % 3 == 0 ? left : right).add("patient-" + i);
+      union.add("patient-" + i);
+    }
+    // Overlap only counts once
+    for (int i = 0; i < 10_000; i++) {
+      left.add("patient-" + i);
+    }
+    left.merge(right);
+
+    assertEquals(union.estimate(), left.estimate());
+    assertThrows(IllegalArgumentException.class,
+        () -> left.merge(new HyperLogLog(10)));
+  }
+
+  @Test
+  void roundTripsSparseAndDenseEncodings() {
+    HyperLogLog sparse = new HyperLogLog();
+    for (int i = 0; i < 100; i++) {
+      sparse.add("patient-" + i);
+    }
+    HyperLogLog dense = new HyperLogLog();
+    for (int i = 0; i < 100_000; i++) {
+      dense.add("patient-" + i);
+    }
+
+    byte[] sparseBytes = sparse.toBytes();
+    assertTrue(sparseBytes.length < 400);
+    assertEquals(sparse.estimate(),
+        HyperLogLog.fromBytes(sparseBytes).estimate());
+    assertEquals(dense.estimate(),
+        HyperLogLog.fromBytes(dense.toBytes()).estimate());
+    assertTrue(HyperLogLog.fromBytes(new HyperLogLog().toBytes()).isEmpty());
+  }
+}
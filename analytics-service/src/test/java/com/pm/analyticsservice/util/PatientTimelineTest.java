@@ -0,0 +1,103 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.pm.analyticsservice.model.AuditEvent;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PatientTimelineTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  @Test
+  void pagesNewestFirstWithCursor() {
+    PatientTimeline timeline = new PatientTimeline(100);
+    timeline.load(newestFirst(events(0, 10)));
+
+    List<AuditEvent> first = timeline.page(null, 4);
+    assertEquals(List.of(9, 8, 7, 6), minutes(first));
+    AuditEvent last = first.get(3);
+    List<AuditEvent> second = timeline.page(
+        new AuditCursor(last.getEventTimestamp(), last.getId()), 4);
+    assertEquals(List.of(5, 4, 3, 2), minutes(second));
+    // Complete timelines answer short final pages too
+    assertEquals(List.of(1, 0), minutes(timeline.page(cursorOf(second), 4)));
+  }
+
+  @Test
+  void addsConsumedEventsInPlace() {
+    PatientTimeline timeline = new PatientTimeline(100);
+    List<AuditEvent> events = events(0, 6);
+    timeline.load(newestFirst(events.subList(0, 3)));
+
+    timeline.add(events.get(5));
+    timeline.add(events.get(3));
+    timeline.add(events.get(4));
+    // Redelivered event is not added twice
+    timeline.add(events.get(5));
+
+    assertEquals(List.of(5, 4, 3, 2, 1, 0), minutes(timeline.page(null, 10)));
+  }
+
+  @Test
+  void mergesEventsAddedWhileLoading() {
+    PatientTimeline timeline = new PatientTimeline(100);
+    List<AuditEvent> events = events(0, 5);
+
+    timeline.add(events.get(4));
+    assertNull(timeline.page(null, 10));
+    // The load's snapshot already had event 4 as well
+    timeline.load(newestFirst(events));
+
+    assertEquals(List.of(4, 3, 2, 1, 0), minutes(timeline.page(null, 10)));
+  }
+
+  @Test
+  void defersToDatabaseBeyondCachedEvents() {
+    PatientTimeline timeline = new PatientTimeline(5);
+    // Query returns maxEvents + 1 rows, so older history exists
+    timeline.load(newestFirst(events(4, 10)));
+
+    assertEquals(List.of(9, 8, 7, 6, 5), minutes(timeline.page(null, 5)));
+    assertNull(timeline.page(null, 6));
+
+    timeline.add(events(10, 11).get(0));
+    assertEquals(5, timeline.size());
+    List<AuditEvent> page = timeline.page(null, 3);
+    assertEquals(List.of(10, 9, 8), minutes(page));
+    assertNull(timeline.page(cursorOf(page), 3));
+  }
+
+  private static List<AuditEvent> events(int fromMinute, int toMinute) {
+    List<AuditEvent> events = new ArrayList<>();
+    for (int minute = fromMinute; minute < toMinute; minute++) {
+      AuditEvent event = new AuditEvent("p1", "n", "e", "PATIENT_UPDATED",
+          START.plusMinutes(minute), "patient-service");
+      event.setId(UUID.randomUUID());
+      events.add(event);
+    }
+    return events;
+  }
+
+  private static List<AuditEvent> newestFirst(List<AuditEvent> events) {
+    return new ArrayList<>(events).reversed();
+  }
+
+  private static AuditCursor cursorOf(List<AuditEvent> page) {
+    AuditEvent last = page.get(page.size() - 1);
+    return new AuditCursor(last.getEventTimestamp(), last.getId());
+  }
+
+  private static List<Integer> minutes(List<AuditEvent> events) {
+    return events.stream()
+        .map(event -> (int) Duration.between(START,
+            event.getEventTimestamp()).toMinutes())
+        .toList();
+  }
+}
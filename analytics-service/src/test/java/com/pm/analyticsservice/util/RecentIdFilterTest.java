@@ -0,0 +1,59 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class RecentIdFilterTest {
+
+  @Test
+  void reportsIdsAlreadyAdded() {
+    RecentIdFilter filter = new RecentIdFilter(10);
+    UUID id = UUID.randomUUID();
+
+    assertFalse(filter.contains(id));
+    assertTrue(filter.add(id));
+    assertTrue(filter.contains(id));
+    assertFalse(filter.add(id));
+    assertEquals(1, filter.size());
+  }
+
+  @Test
+  void evictsOldestOnceFull() {
+    RecentIdFilter filter = new RecentIdFilter(100);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      UUID id = UUID.randomUUID();
+      ids.add(id);
+      filter.add(id);
+    }
+
+    assertEquals(100, filter.size());
+    for (int i = 0; i < 900; i++) {
+      assertFalse(filter.contains(ids.get(i)));
+    }
+    for (int i = 900; i < 1000; i++) {
+      assertTrue(filter.contains(ids.get(i)));
+    }
+  }
+
+  @Test
+  void survivesCollidingIds() {
+    // Same high bits for every id, so they all probe the same neighbourhood
+    RecentIdFilter filter = new RecentIdFilter(8);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      UUID id = new UUID(42L, i * 16L);
+      ids.add(id);
+      filter.add(id);
+      for (int j = Math.max(0, i - 7); j <= i; j++) {
+        assertTrue(filter.contains(ids.get(j)));
+      }
+    }
+  }
+}
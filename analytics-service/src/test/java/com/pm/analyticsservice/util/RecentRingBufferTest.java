@@ -0,0 +1,64 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RecentRingBufferTest {
+
+  @Test
+  void returnsNewestFirstUpToCapacity() {
+    RecentRingBuffer<Integer> buffer = new RecentRingBuffer<>(3);
+    for (int i = 1; i <= 5; i++) {
+      buffer.add(i);
+    }
+
+    assertEquals(List.of(5, 4, 3), buffer.latest(10));
+    assertEquals(List.of(5, 4), buffer.latest(2));
+  }
+
+  @Test
+  void partiallyFilledBufferReturnsWhatItHas() {
+    RecentRingBuffer<Integer> buffer = new RecentRingBuffer<>(8);
+    buffer.add(1);
+    buffer.add(2);
+
+    assertEquals(List.of(2, 1), buffer.latest(8));
+  }
+
+  @Test
+  void concurrentReadersOnlySeeDescendingValuesPerWriter()
+      throws InterruptedException {
+    RecentRingBuffer<long[]> buffer = new RecentRingBuffer<>(64);
+    int writers = 4;
+    List<Thread> threads = new ArrayList<>();
+    for (int w = 0; w < writers; w++) {
+      long writer = w;
+      Thread thread = new Thread(() -> {
+        for (long i = 0; i < 200_000; i++) {
+          buffer.add(new long[] {writer, i});
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    while (threads.stream().anyMatch(Thread::isAlive)) {
+      long[] lastSeen = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE,
+          Long.MAX_VALUE};
+      List<long[]> snapshot = buffer.latest(64);
+      assertTrue(snapshot.size() <= 64);
+      for (long[] value : snapshot) {
+        int writer = (int) value[0];
+        assertTrue(value[1] < lastSeen[writer]);
+        lastSeen[writer] = value[1];
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingTest {
+
+  @Test
+  void exactWhileUnderCapacity() {
+    SpaceSaving sketch = new SpaceSaving(10);
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j <= i; j++) {
+        sketch.add("patient-" + i);
+      }
+    }
+
+    List<SpaceSaving.Entry> top = sketch.top(3);
+    assertEquals(List.of(new SpaceSaving.Entry("patient-4", 5, 0),
+        new SpaceSaving.Entry("patient-3", 4, 0),
+        new SpaceSaving.Entry("patient-2", 3, 0)), top);
+    assertEquals(15, sketch.total());
+    assertEquals(0, sketch.floor());
+  }
+
+  @Test
+  void boundsHoldAcrossMergesOfSkewedStreams() {
+    int capacity = 20;
+    Random random = new Random(42);
+    Map<String, Long> exact = new HashMap<>();
+    SpaceSaving merged = new SpaceSaving(capacity);
+    for (int part = 0; part < 5; part++) {
+      SpaceSaving sketch = new SpaceSaving(capacity);
+      for (int i = 0; i < 20_000; i++) {
+        // A few heavy patients over a long uniform tail
+        String patient = random.nextInt(4) == 0
+            ? "heavy-" + random.nextInt(5)
+            : "tail-" + random.nextInt(5_000);
+        sketch.add(patient);
+        exact.merge(patient, 1L, Long::sum);
+      }
+      // Through the wire format, as flushes do
+      merged.merge(SpaceSaving.fromBytes(sketch.toBytes()));
+    }
+
+    assertEquals(100_000, merged.total());
+    List<SpaceSaving.Entry> top = merged.top(5);
+    for (SpaceSaving.Entry entry : top) {
+      assertTrue(entry.item().startsWith("heavy-"), entry.item());
+      long actual = exact.get(entry.item());
+      assertTrue(entry.count() >= actual && entry.count() - entry.error() <= actual,
+          entry + " vs " + actual);
+    }
+    for (Map.Entry<String, Long> entry : exact.entrySet()) {
+      boolean tracked = merged.top(capacity).stream()
+          .anyMatch(e -> e.item().equals(entry.getKey()));
+      assertTrue(tracked || entry.getValue() <= merged.floor(),
+          entry.getKey());
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillQueueTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void drainsInOrderAcrossSegments() throws IOException {
+    try (SpillQueue queue = new SpillQueue(directory, 256, 10,
+        SpillQueue.Fsync.NEVER)) {
+      for (int i = 0; i < 50; i++) {
+        assertTrue(queue.append(List.of(record(i))));
+      }
+      assertEquals(50, queue.depth());
+
+      List<String> drained = new ArrayList<>();
+      SpillQueue.Batch batch;
+      while (!(batch = queue.peek(7)).isEmpty()) {
+        batch.records().forEach(
+            record -> drained.add(new String(record, StandardCharsets.UTF_8)));
+        queue.commit(batch);
+      }
+
+      assertEquals(50, drained.size());
+      for (int i = 0; i < 50; i++) {
+        assertEquals("event-" + i, drained.get(i));
+      }
+      assertEquals(0, queue.depth());
+    }
+  }
+
+  @Test
+  void keepsUncommittedRecordsAcrossRestart() throws IOException {
+    try (SpillQueue queue = new SpillQueue(directory, 1024, 4,
+        SpillQueue.Fsync.EVERY_APPEND)) {
+      queue.append(List.of(record(0), record(1), record(2)));
+      queue.commit(queue.peek(1));
+      // Read but never committed
+      queue.peek(1);
+    }
+
+    try (SpillQueue queue = new SpillQueue(directory, 1024, 4,
+        SpillQueue.Fsync.EVERY_APPEND)) {
+      assertEquals(2, queue.depth());
+      SpillQueue.Batch batch = queue.peek(10);
+      assertArrayEquals(record(1), batch.records().get(0));
+      assertArrayEquals(record(2), batch.records().get(1));
+    }
+  }
+
+  @Test
+  void refusesAppendsBeyondDiskBudget() throws IOException {
+    try (SpillQueue queue = new SpillQueue(directory, 128, 2,
+        SpillQueue.Fsync.NEVER)) {
+      int appended = 0;
+      while (queue.append(List.of(record(appended)))) {
+        appended++;
+      }
+
+      assertEquals(appended, queue.depth());
+      assertEquals(2 * 128, queue.usedBytes());
+      // Draining frees a segment for reuse
+      queue.commit(queue.peek(appended));
+      assertTrue(queue.append(List.of(record(99))));
+      try (var files = Files.list(directory)) {
+        assertEquals(2, files.count());
+      }
+    }
+  }
+
+  @Test
+  void stopsRecoveryAtCorruptRecord() throws IOException {
+    try (SpillQueue queue = new SpillQueue(directory, 1024, 1,
+        SpillQueue.Fsync.EVERY_APPEND)) {
+      queue.append(List.of(record(0), record(1), record(2)));
+    }
+    Path segment;
+    try (var files = Files.list(directory)) {
+      segment = files.findFirst().orElseThrow();
+    }
+    // Flip a payload byte of the second record (header 24, record 8 + 7)
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      file.seek(24 + 15 + 8 + 2);
+      file.write('X');
+    }
+
+    try (SpillQueue queue = new SpillQueue(directory, 1024, 1,
+        SpillQueue.Fsync.EVERY_APPEND)) {
+      assertEquals(1, queue.depth());
+      assertEquals(1, queue.corruptSegments());
+      assertTrue(queue.append(List.of(record(3))));
+      SpillQueue.Batch batch = queue.peek(10);
+      assertEquals(2, batch.records().size());
+      assertArrayEquals(record(3), batch.records().get(1));
+    }
+  }
+
+  @Test
+  void rejectsRecordLargerThanSegment() throws IOException {
+    try (SpillQueue queue = new SpillQueue(directory, 64, 4,
+        SpillQueue.Fsync.NEVER)) {
+      assertFalse(queue.append(List.of(new byte[100])));
+      assertEquals(0, queue.depth());
+    }
+  }
+
+  private static byte[] record(int i) {
+    return ("event-" + i).getBytes(StandardCharsets.UTF_8);
+  }
+}
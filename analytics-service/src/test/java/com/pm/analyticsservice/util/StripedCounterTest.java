@@ -0,0 +1,40 @@
+package com.pm.analyticsservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class StripedCounterTest {
+
+  @Test
+  void drainNeverLosesConcurrentIncrements() throws InterruptedException {
+    StripedCounter counter = new StripedCounter();
+    AtomicLong drained = new AtomicLong();
+    int threads = 4;
+    int perThread = 100_000;
+
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread writer = new Thread(() -> {
+        for (int i = 0; i < perThread; i++) {
+          counter.add(1);
+        }
+      });
+      writers.add(writer);
+      writer.start();
+    }
+    while (writers.stream().anyMatch(Thread::isAlive)) {
+      drained.addAndGet(counter.drain());
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    drained.addAndGet(counter.drain());
+
+    assertEquals((long) threads * perThread, drained.get());
+    assertEquals(0, counter.sum());
+  }
+}
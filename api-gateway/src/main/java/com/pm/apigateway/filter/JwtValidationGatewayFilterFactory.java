@@ -1,46 +1,71 @@
 package com.pm.apigateway.filter;
 
 import com.pm.apigateway.dto.ValidateResponseDTO;
+import com.pm.apigateway.jwt.KeyUnavailableException;
+import com.pm.apigateway.jwt.LocalJwtVerifier;
+import com.pm.apigateway.jwt.RemoteTokenValidator;
+import com.pm.apigateway.jwt.TokenValidationCache;
 import java.util.Arrays;
 import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 @Component
 public class JwtValidationGatewayFilterFactory extends
     AbstractGatewayFilterFactory<Object> {
 
-  private final WebClient webClient;
+  // Trusted identity headers for downstream services; any client-supplied
+  // values are stripped before forwarding
+  public static final String USER_EMAIL_HEADER = "X-User-Email";
+  public static final String USER_ROLE_HEADER = "X-User-Role";
 
-  public JwtValidationGatewayFilterFactory(WebClient.Builder webClientBuilder,
-      @Value("${auth.service.url}") String authServiceUrl) {
-    this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+  private static final Logger log = LoggerFactory.getLogger(
+      JwtValidationGatewayFilterFactory.class);
+
+  private final LocalJwtVerifier localJwtVerifier;
+  private final RemoteTokenValidator remoteTokenValidator;
+  private final TokenValidationCache tokenValidationCache;
+  private final boolean localVerification;
+  private final boolean remoteFallback;
+
+  public JwtValidationGatewayFilterFactory(LocalJwtVerifier localJwtVerifier,
+      RemoteTokenValidator remoteTokenValidator,
+      TokenValidationCache tokenValidationCache,
+      @Value("${auth.jwt.local-verification:true}") boolean localVerification,
+      @Value("${auth.jwt.remote-fallback:true}") boolean remoteFallback) {
+    this.localJwtVerifier = localJwtVerifier;
+    this.remoteTokenValidator = remoteTokenValidator;
+    this.tokenValidationCache = tokenValidationCache;
+    this.localVerification = localVerification;
+    this.remoteFallback = remoteFallback;
   }
 
   @Override
   public GatewayFilter apply(Object config) {
     return (exchange, chain) -> {
-      String token =
+      String authHeader =
           exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
-      if(token == null || !token.startsWith("Bearer ")) {
+      if(authHeader == null || !authHeader.startsWith("Bearer ")) {
         exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
         return exchange.getResponse().setComplete();
       }
+      String token = authHeader.substring(7);
 
-      // Call /validate and get response with email and role
-      return webClient.get()
-          .uri("/validate")
-          .header(HttpHeaders.AUTHORIZATION, token)
-          .retrieve()
-          .bodyToMono(ValidateResponseDTO.class)
+      return validate(token)
+          .switchIfEmpty(Mono.just(new ValidateResponseDTO(null, null, false)))
+          .onErrorResume(e -> {
+            log.debug("Token validation failed: {}", e.getMessage());
+            return Mono.just(new ValidateResponseDTO(null, null, false));
+          })
           .flatMap(validateResponse -> {
             // Check if token is valid
             if (!validateResponse.isValid()) {
@@ -67,16 +92,45 @@ public class JwtValidationGatewayFilterFactory extends
               }
             }
 
+            String email = validateResponse.getEmail();
+            String trustedRole = role;
+            ServerWebExchange forwarded = exchange.mutate()
+                .request(request -> request.headers(headers -> {
+                  headers.remove(USER_EMAIL_HEADER);
+                  headers.remove(USER_ROLE_HEADER);
+                  if (email != null) {
+                    headers.set(USER_EMAIL_HEADER, email);
+                  }
+                  headers.set(USER_ROLE_HEADER, trustedRole);
+                }))
+                .build();
+
             // Continue with the request
-            return chain.filter(exchange);
-          })
-          .onErrorResume(e -> {
-            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-            return exchange.getResponse().setComplete();
+            return chain.filter(forwarded);
           });
     };
   }
 
+  // Local signature/expiry check first; auth-service is only called when the
+  // token cannot be verified locally and the fallback is enabled
+  private Mono<ValidateResponseDTO> validate(String token) {
+    if (!localVerification) {
+      return validateRemotely(token);
+    }
+    return localJwtVerifier.verify(token)
+        .onErrorResume(KeyUnavailableException.class, e -> {
+          if (!remoteFallback) {
+            return Mono.error(e);
+          }
+          log.debug("Falling back to remote validation: {}", e.getMessage());
+          return validateRemotely(token);
+        });
+  }
+
+  private Mono<ValidateResponseDTO> validateRemotely(String token) {
+    return tokenValidationCache.get(token, remoteTokenValidator::validate);
+  }
+
   private boolean isAuthorized(String method, String role) {
     List<String> allowedRoles;
 
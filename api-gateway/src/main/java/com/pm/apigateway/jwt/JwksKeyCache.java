@@ -0,0 +1,123 @@
+package com.pm.apigateway.jwt;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+// Public keys published by auth-service. Refreshed on a schedule and on
+// demand when a token names an unknown key id (rate limited), so rotations
+// are picked up without a gateway restart.
+@Component
+public class JwksKeyCache {
+
+  private static final Logger log = LoggerFactory.getLogger(JwksKeyCache.class);
+  private static final ParameterizedTypeReference<Map<String, List<Map<String, String>>>>
+      JWKS_TYPE = new ParameterizedTypeReference<>() {
+      };
+
+  private final WebClient webClient;
+  private final String jwksPath;
+  private final Duration minRefreshInterval;
+  private final AtomicReference<Mono<Void>> inFlightRefresh =
+      new AtomicReference<>();
+  private volatile Map<String, PublicKey> keys = Map.of();
+  private volatile Instant lastRefresh = Instant.EPOCH;
+
+  public JwksKeyCache(WebClient.Builder webClientBuilder,
+      @Value("${auth.service.url}") String authServiceUrl,
+      @Value("${auth.jwt.jwks-path:/.well-known/jwks.json}") String jwksPath,
+      @Value("${auth.jwt.jwks-min-refresh-interval-ms:10000}") long minRefreshIntervalMs) {
+    this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+    this.jwksPath = jwksPath;
+    this.minRefreshInterval = Duration.ofMillis(minRefreshIntervalMs);
+  }
+
+  public PublicKey cached(String keyId) {
+    return keys.get(keyId);
+  }
+
+  public Mono<PublicKey> resolve(String keyId) {
+    PublicKey key = keys.get(keyId);
+    if (key != null) {
+      return Mono.just(key);
+    }
+    if (lastRefresh.plus(minRefreshInterval).isAfter(Instant.now())) {
+      return Mono.empty();
+    }
+    return refresh().then(Mono.fromSupplier(() -> keys.get(keyId)));
+  }
+
+  @Scheduled(fixedDelayString = "${auth.jwt.jwks-refresh-interval-ms:300000}")
+  public void scheduledRefresh() {
+    refresh().subscribe();
+  }
+
+  // Concurrent callers share a single outstanding JWKS request
+  public Mono<Void> refresh() {
+    Mono<Void> existing = inFlightRefresh.get();
+    if (existing != null) {
+      return existing;
+    }
+
+    Mono<Void> request = webClient.get()
+        .uri(jwksPath)
+        .retrieve()
+        .bodyToMono(JWKS_TYPE)
+        .doOnNext(this::replaceKeys)
+        .doOnError(e -> log.warn("Failed to refresh JWKS: {}", e.getMessage()))
+        .onErrorResume(e -> Mono.empty())
+        .doFinally(signal -> {
+          lastRefresh = Instant.now();
+          inFlightRefresh.set(null);
+        })
+        .then()
+        .cache();
+
+    if (inFlightRefresh.compareAndSet(null, request)) {
+      return request;
+    }
+    Mono<Void> winner = inFlightRefresh.get();
+    return winner != null ? winner : Mono.empty();
+  }
+
+  private void replaceKeys(Map<String, List<Map<String, String>>> jwks) {
+    Map<String, PublicKey> parsed = new HashMap<>();
+    for (Map<String, String> jwk : jwks.getOrDefault("keys", List.of())) {
+      if (!"RSA".equals(jwk.get("kty")) || jwk.get("kid") == null) {
+        continue;
+      }
+      try {
+        parsed.put(jwk.get("kid"), toPublicKey(jwk));
+      } catch (Exception e) {
+        log.warn("Skipping unusable JWK {}: {}", jwk.get("kid"), e.getMessage());
+      }
+    }
+    keys = Map.copyOf(parsed);
+    log.info("Loaded {} JWT verification keys", parsed.size());
+  }
+
+  private static PublicKey toPublicKey(Map<String, String> jwk)
+      throws Exception {
+    Base64.Decoder decoder = Base64.getUrlDecoder();
+    BigInteger modulus = new BigInteger(1, decoder.decode(jwk.get("n")));
+    BigInteger exponent = new BigInteger(1, decoder.decode(jwk.get("e")));
+    return KeyFactory.getInstance("RSA")
+        .generatePublic(new RSAPublicKeySpec(modulus, exponent));
+  }
+}
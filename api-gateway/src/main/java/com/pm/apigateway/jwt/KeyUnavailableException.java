@@ -0,0 +1,10 @@
+package com.pm.apigateway.jwt;
+
+// The token cannot be checked locally (unknown key id, JWKS unreachable or a
+// legacy token without a key id), as opposed to the token being invalid
+public class KeyUnavailableException extends RuntimeException {
+
+  public KeyUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,82 @@
+package com.pm.apigateway.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.apigateway.dto.ValidateResponseDTO;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import java.io.IOException;
+import java.security.Key;
+import java.util.Base64;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// Verifies RS256 tokens against the cached JWKS without calling auth-service
+@Component
+public class LocalJwtVerifier {
+
+  private final JwksKeyCache jwksKeyCache;
+  private final ObjectMapper objectMapper;
+  private final JwtParser parser;
+
+  public LocalJwtVerifier(JwksKeyCache jwksKeyCache, ObjectMapper objectMapper) {
+    this.jwksKeyCache = jwksKeyCache;
+    this.objectMapper = objectMapper;
+    // JwtParser is immutable and thread-safe, so one instance is shared
+    this.parser = Jwts.parser()
+        .keyLocator(new LocatorAdapter<Key>() {
+          @Override
+          protected Key locate(JwsHeader header) {
+            Key key = jwksKeyCache.cached(header.getKeyId());
+            if (key == null) {
+              throw new KeyUnavailableException(
+                  "No verification key " + header.getKeyId());
+            }
+            return key;
+          }
+        })
+        .build();
+  }
+
+  // Emits an invalid response for bad or expired tokens and errors with
+  // KeyUnavailableException when the token cannot be checked locally
+  public Mono<ValidateResponseDTO> verify(String token) {
+    String keyId = readKeyId(token);
+    if (keyId == null) {
+      return Mono.error(new KeyUnavailableException("Token has no key id"));
+    }
+
+    return jwksKeyCache.resolve(keyId)
+        .switchIfEmpty(Mono.error(
+            new KeyUnavailableException("Unknown key id " + keyId)))
+        .map(key -> {
+          try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return new ValidateResponseDTO(claims.getSubject(),
+                claims.get("role", String.class), true);
+          } catch (KeyUnavailableException e) {
+            throw e;
+          } catch (RuntimeException e) {
+            return new ValidateResponseDTO(null, null, false);
+          }
+        });
+  }
+
+  private String readKeyId(String token) {
+    int end = token.indexOf('.');
+    if (end <= 0) {
+      return null;
+    }
+    try {
+      JsonNode header = objectMapper.readTree(
+          Base64.getUrlDecoder().decode(token.substring(0, end)));
+      JsonNode keyId = header.get("kid");
+      return keyId != null && keyId.isTextual() ? keyId.asText() : null;
+    } catch (IOException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
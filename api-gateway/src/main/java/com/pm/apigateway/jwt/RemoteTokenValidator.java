@@ -0,0 +1,28 @@
+package com.pm.apigateway.jwt;
+
+import com.pm.apigateway.dto.ValidateResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+// Online validation through auth-service /validate
+@Component
+public class RemoteTokenValidator {
+
+  private final WebClient webClient;
+
+  public RemoteTokenValidator(WebClient.Builder webClientBuilder,
+      @Value("${auth.service.url}") String authServiceUrl) {
+    this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+  }
+
+  public Mono<ValidateResponseDTO> validate(String token) {
+    return webClient.get()
+        .uri("/validate")
+        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+        .retrieve()
+        .bodyToMono(ValidateResponseDTO.class);
+  }
+}
@@ -0,0 +1,131 @@
+package com.pm.apigateway.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pm.apigateway.dto.ValidateResponseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// Caches successful remote validations per token so auth-service is called
+// once per session rather than once per request
+@Component
+public class TokenValidationCache {
+
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final AsyncCache<String, CachedValidation> cache;
+
+  public TokenValidationCache(ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${auth.jwt.cache.enabled:true}") boolean enabled,
+      @Value("${auth.jwt.cache.max-size:10000}") long maxSize,
+      @Value("${auth.jwt.cache.max-ttl:PT5M}") Duration maxTtl) {
+    this.objectMapper = objectMapper;
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new TokenExpiry(maxTtl))
+        .recordStats()
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.token.validation");
+  }
+
+  // Concurrent misses for the same token share one loader call; failed or
+  // empty loads are not cached
+  public Mono<ValidateResponseDTO> get(String token,
+      Function<String, Mono<ValidateResponseDTO>> loader) {
+    if (!enabled) {
+      return loader.apply(token);
+    }
+
+    Instant expiresAt = readExpiry(token);
+    if (expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+      return loader.apply(token);
+    }
+
+    // Cancelling one waiter must not cancel the shared call
+    return Mono.fromFuture(() -> cache.get(hash(token), (key, executor) ->
+            loader.apply(token)
+                .map(response -> new CachedValidation(response, expiresAt))
+                .toFuture()), true)
+        .map(CachedValidation::response);
+  }
+
+  private Instant readExpiry(String token) {
+    int start = token.indexOf('.');
+    int end = token.indexOf('.', start + 1);
+    if (start < 0 || end < 0) {
+      return null;
+    }
+    try {
+      JsonNode claims = objectMapper.readTree(
+          Base64.getUrlDecoder().decode(token.substring(start + 1, end)));
+      JsonNode exp = claims.get("exp");
+      return exp != null && exp.canConvertToLong()
+          ? Instant.ofEpochSecond(exp.asLong()) : null;
+    } catch (IOException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  record CachedValidation(ValidateResponseDTO response, Instant expiresAt) {
+  }
+
+  // Entries live until the token's exp, capped by max-ttl; invalid
+  // responses expire immediately
+  static class TokenExpiry implements Expiry<String, CachedValidation> {
+
+    private final long maxTtlNanos;
+
+    TokenExpiry(Duration maxTtl) {
+      this.maxTtlNanos = maxTtl.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(String key, CachedValidation value,
+        long currentTime) {
+      if (!value.response().isValid()) {
+        return 0;
+      }
+      long untilExpiry = Duration.between(Instant.now(), value.expiresAt())
+          .toNanos();
+      return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, CachedValidation value,
+        long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, CachedValidation value,
+        long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
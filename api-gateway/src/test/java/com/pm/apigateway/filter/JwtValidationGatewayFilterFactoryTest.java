@@ -0,0 +1,119 @@
+package com.pm.apigateway.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.apigateway.jwt.JwksKeyCache;
+import com.pm.apigateway.jwt.LocalJwtVerifier;
+import com.pm.apigateway.jwt.RemoteTokenValidator;
+import com.pm.apigateway.jwt.TokenValidationCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class JwtValidationGatewayFilterFactoryTest {
+
+  // A legacy HS256 token without a kid, which only auth-service can check
+  private static final String LEGACY_TOKEN =
+      "eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJkb2N0b3JAdGVzdC5jb20ifQ.c2ln";
+
+  private final AtomicInteger validateCalls = new AtomicInteger();
+  private final List<ServerWebExchange> forwarded = new ArrayList<>();
+
+  @Test
+  void fallsBackToAuthServiceWhenTokenCannotBeCheckedLocally() {
+    MockServerWebExchange exchange = exchange(LEGACY_TOKEN);
+
+    filter(true, "{\"email\":\"doctor@test.com\",\"role\":\"DOCTOR\","
+        + "\"valid\":true}").filter(exchange, this::forward).block();
+
+    assertEquals(1, validateCalls.get());
+    assertEquals(1, forwarded.size());
+    HttpHeaders headers = forwarded.get(0).getRequest().getHeaders();
+    assertEquals("doctor@test.com", headers.getFirst(
+        JwtValidationGatewayFilterFactory.USER_EMAIL_HEADER));
+    assertEquals("DOCTOR", headers.getFirst(
+        JwtValidationGatewayFilterFactory.USER_ROLE_HEADER));
+  }
+
+  @Test
+  void rejectsWhenAuthServiceSaysInvalidOrFallbackIsDisabled() {
+    MockServerWebExchange invalid = exchange(LEGACY_TOKEN);
+    filter(true, "{\"valid\":false}").filter(invalid, this::forward).block();
+    assertEquals(HttpStatus.UNAUTHORIZED, invalid.getResponse().getStatusCode());
+
+    MockServerWebExchange noFallback = exchange(LEGACY_TOKEN);
+    filter(false, "{\"valid\":true}").filter(noFallback, this::forward)
+        .block();
+    assertEquals(HttpStatus.UNAUTHORIZED,
+        noFallback.getResponse().getStatusCode());
+
+    assertEquals(1, validateCalls.get());
+    assertEquals(0, forwarded.size());
+  }
+
+  @Test
+  void stripsClientSuppliedIdentityHeaders() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(
+        MockServerHttpRequest.get("/patients")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + LEGACY_TOKEN)
+            .header(JwtValidationGatewayFilterFactory.USER_EMAIL_HEADER,
+                "admin@test.com"));
+
+    filter(true, "{\"role\":\"DOCTOR\",\"valid\":true}")
+        .filter(exchange, this::forward).block();
+
+    assertNull(forwarded.get(0).getRequest().getHeaders().getFirst(
+        JwtValidationGatewayFilterFactory.USER_EMAIL_HEADER));
+  }
+
+  private GatewayFilter filter(boolean remoteFallback, String validateBody) {
+    ObjectMapper objectMapper = new ObjectMapper();
+    WebClient.Builder authService = WebClient.builder()
+        .exchangeFunction(request -> {
+          if (request.url().getPath().equals("/validate")) {
+            validateCalls.incrementAndGet();
+          }
+          String body = request.url().getPath().equals("/validate")
+              ? validateBody : "{\"keys\":[]}";
+          return Mono.just(ClientResponse.create(HttpStatus.OK)
+              .header(HttpHeaders.CONTENT_TYPE,
+                  MediaType.APPLICATION_JSON_VALUE)
+              .body(body)
+              .build());
+        });
+    JwksKeyCache jwksKeyCache = new JwksKeyCache(authService,
+        "http://auth-service", "/.well-known/jwks.json", 10_000);
+    return new JwtValidationGatewayFilterFactory(
+        new LocalJwtVerifier(jwksKeyCache, objectMapper),
+        new RemoteTokenValidator(authService, "http://auth-service"),
+        new TokenValidationCache(objectMapper, new SimpleMeterRegistry(),
+            true, 100, Duration.ofMinutes(5)),
+        true, remoteFallback)
+        .apply(new Object());
+  }
+
+  private Mono<Void> forward(ServerWebExchange exchange) {
+    forwarded.add(exchange);
+    return Mono.empty();
+  }
+
+  private static MockServerWebExchange exchange(String token) {
+    return MockServerWebExchange.from(MockServerHttpRequest.get("/patients")
+        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+  }
+}
@@ -0,0 +1,184 @@
+package com.pm.apigateway.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class LocalJwtVerifierTest {
+
+  private static KeyPair first;
+  private static KeyPair second;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  // What the stubbed auth-service publishes, by key id
+  private final Map<String, KeyPair> published = new LinkedHashMap<>();
+  private final AtomicInteger jwksRequests = new AtomicInteger();
+  private JwksKeyCache jwksKeyCache;
+  private LocalJwtVerifier verifier;
+
+  @BeforeAll
+  static void generateKeys() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    first = generator.generateKeyPair();
+    second = generator.generateKeyPair();
+  }
+
+  @BeforeEach
+  void setUp() {
+    published.put("k1", first);
+    WebClient.Builder webClient = WebClient.builder()
+        .exchangeFunction(request -> {
+          jwksRequests.incrementAndGet();
+          return Mono.just(ClientResponse.create(HttpStatus.OK)
+              .header(HttpHeaders.CONTENT_TYPE,
+                  MediaType.APPLICATION_JSON_VALUE)
+              .body(jwks())
+              .build());
+        });
+    jwksKeyCache = new JwksKeyCache(webClient, "http://auth-service",
+        "/.well-known/jwks.json", 0);
+    jwksKeyCache.refresh().block();
+    verifier = new LocalJwtVerifier(jwksKeyCache, objectMapper);
+  }
+
+  @Test
+  void acceptsTokenSignedByPublishedKey() {
+    StepVerifier.create(verifier.verify(token("k1", first, 3600)))
+        .assertNext(response -> {
+          assertTrue(response.isValid());
+          assertEquals("doctor@test.com", response.getEmail());
+          assertEquals("DOCTOR", response.getRole());
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void rejectsBadSignatureAndExpiredToken() {
+    // Claims kid k1 but is signed with a different private key
+    String forged = token("k1", second, 3600);
+    String expired = token("k1", first, -60);
+
+    for (String token : List.of(forged, expired, tamper(token("k1", first,
+        3600)))) {
+      StepVerifier.create(verifier.verify(token))
+          .assertNext(response -> assertFalse(response.isValid()))
+          .verifyComplete();
+    }
+  }
+
+  @Test
+  void refreshesJwksForUnknownKeyId() {
+    int before = jwksRequests.get();
+    // auth-service rotated after the gateway last loaded the JWKS
+    published.put("k2", second);
+
+    StepVerifier.create(verifier.verify(token("k2", second, 3600)))
+        .assertNext(response -> assertTrue(response.isValid()))
+        .verifyComplete();
+    assertEquals(before + 1, jwksRequests.get());
+  }
+
+  @Test
+  void keyIdUnknownEvenAfterRefreshIsUnavailable() {
+    StepVerifier.create(verifier.verify(token("k9", second, 3600)))
+        .expectError(KeyUnavailableException.class)
+        .verify();
+    // Legacy tokens without a kid can only be checked remotely
+    String legacy = Jwts.builder().subject("x")
+        .signWith(Jwts.SIG.HS256.key().build()).compact();
+    StepVerifier.create(verifier.verify(legacy))
+        .expectError(KeyUnavailableException.class)
+        .verify();
+  }
+
+  @Test
+  void unknownKeyIdRefreshIsRateLimited() {
+    JwksKeyCache limited = new JwksKeyCache(WebClient.builder()
+        .exchangeFunction(request -> {
+          jwksRequests.incrementAndGet();
+          return Mono.just(ClientResponse.create(HttpStatus.OK)
+              .header(HttpHeaders.CONTENT_TYPE,
+                  MediaType.APPLICATION_JSON_VALUE)
+              .body(jwks())
+              .build());
+        }), "http://auth-service", "/.well-known/jwks.json", 60_000);
+    limited.refresh().block();
+    int before = jwksRequests.get();
+
+    for (int i = 0; i < 5; i++) {
+      StepVerifier.create(limited.resolve("k" + (10 + i))).verifyComplete();
+    }
+    assertEquals(before, jwksRequests.get());
+  }
+
+  private static String token(String keyId, KeyPair keyPair,
+      long expiresInSeconds) {
+    Instant now = Instant.now();
+    return Jwts.builder()
+        .header().keyId(keyId).and()
+        .subject("doctor@test.com")
+        .claim("role", "DOCTOR")
+        .issuedAt(Date.from(now))
+        .expiration(Date.from(now.plusSeconds(expiresInSeconds)))
+        .signWith(keyPair.getPrivate(), Jwts.SIG.RS256)
+        .compact();
+  }
+
+  // Swaps the role claim without re-signing
+  private String tamper(String token) {
+    String[] parts = token.split("\\.");
+    String payload = new String(Base64.getUrlDecoder().decode(parts[1]))
+        .replace("DOCTOR", "ADMIN");
+    parts[1] = Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(payload.getBytes());
+    return String.join(".", Arrays.asList(parts));
+  }
+
+  private String jwks() {
+    List<Map<String, String>> keys = new ArrayList<>();
+    published.forEach((keyId, keyPair) -> {
+      RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+      keys.add(Map.of("kty", "RSA", "kid", keyId, "alg", "RS256",
+          "n", base64Url(publicKey.getModulus().toByteArray()),
+          "e", base64Url(publicKey.getPublicExponent().toByteArray())));
+    });
+    try {
+      return objectMapper.writeValueAsString(Map.of("keys", keys));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String base64Url(byte[] bytes) {
+    // Unsigned big-endian, as JWK requires
+    int offset = bytes[0] == 0 ? 1 : 0;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+  }
+}
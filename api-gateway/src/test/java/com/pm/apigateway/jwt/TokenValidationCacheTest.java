@@ -0,0 +1,94 @@
+package com.pm.apigateway.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.apigateway.dto.ValidateResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class TokenValidationCacheTest {
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void validResultIsReusedUntilExpiry() {
+    TokenValidationCache cache = cache(true);
+    String token = token(Instant.now().plusSeconds(3600));
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(cache.get(token, loader(true)).block().isValid());
+    }
+    assertEquals(1, loads.get());
+    // A different token is validated separately
+    cache.get(token(Instant.now().plusSeconds(60)), loader(true)).block();
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void invalidFailedAndExpiredResultsAreNotCached() {
+    TokenValidationCache cache = cache(true);
+    String token = token(Instant.now().plusSeconds(3600));
+
+    assertFalse(cache.get(token, loader(false)).block().isValid());
+    assertFalse(cache.get(token, loader(false)).block().isValid());
+    assertEquals(2, loads.get());
+
+    Function<String, Mono<ValidateResponseDTO>> failing = t -> {
+      loads.incrementAndGet();
+      return Mono.error(new IllegalStateException("auth-service down"));
+    };
+    String other = token(Instant.now().plusSeconds(3600));
+    cache.get(other, failing).onErrorResume(e -> Mono.empty()).block();
+    assertTrue(cache.get(other, loader(true)).block().isValid());
+    assertEquals(4, loads.get());
+
+    String expired = token(Instant.now().minusSeconds(10));
+    cache.get(expired, loader(true)).block();
+    cache.get(expired, loader(true)).block();
+    assertEquals(6, loads.get());
+  }
+
+  @Test
+  void disabledCacheAlwaysCallsLoader() {
+    TokenValidationCache cache = cache(false);
+    String token = token(Instant.now().plusSeconds(3600));
+
+    cache.get(token, loader(true)).block();
+    cache.get(token, loader(true)).block();
+    assertEquals(2, loads.get());
+  }
+
+  private TokenValidationCache cache(boolean enabled) {
+    return new TokenValidationCache(new ObjectMapper(),
+        new SimpleMeterRegistry(), enabled, 100, Duration.ofMinutes(5));
+  }
+
+  private Function<String, Mono<ValidateResponseDTO>> loader(boolean valid) {
+    return token -> {
+      loads.incrementAndGet();
+      return Mono.just(new ValidateResponseDTO("user@test.com", "ADMIN",
+          valid));
+    };
+  }
+
+  // Only the exp claim is read, so the signature can be anything
+  private static String token(Instant expiresAt) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String header = encoder.encodeToString(
+        "{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+    String payload = encoder.encodeToString(("{\"sub\":\"user@test.com\","
+        + "\"exp\":" + expiresAt.getEpochSecond() + ",\"n\":"
+        + System.nanoTime() + "}").getBytes(StandardCharsets.UTF_8));
+    return header + "." + payload + ".signature";
+  }
+}
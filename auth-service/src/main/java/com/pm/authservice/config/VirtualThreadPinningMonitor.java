@@ -0,0 +1,83 @@
+package com.pm.authservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+// Reports virtual threads that stay pinned to their carrier (typically a
+// blocking call inside a synchronized block in a driver) using the JFR
+// jdk.VirtualThreadPinned event. Each distinct pinning site is logged once
+// with its stack; every occurrence is counted in jvm.threads.virtual.pinned.
+//
+// The same class lives in the config package of every service on purpose:
+// each service is a standalone Maven build and image with no shared module,
+// so keep the copies identical when changing one.
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      VirtualThreadPinningMonitor.class);
+  private static final int LOGGED_FRAMES = 12;
+
+  private final Duration threshold;
+  private final Timer pinnedTimer;
+  private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+  private RecordingStream recordingStream;
+
+  public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+      @Value("${threads.virtual.pinning-threshold:PT0.02S}") Duration threshold) {
+    this.threshold = threshold;
+    this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+        .description("Virtual threads blocked while pinned to a carrier thread")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void start() {
+    recordingStream = new RecordingStream();
+    recordingStream.enable("jdk.VirtualThreadPinned")
+        .withThreshold(threshold)
+        .withStackTrace();
+    recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+    recordingStream.startAsync();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (recordingStream != null) {
+      recordingStream.close();
+    }
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinnedTimer.record(event.getDuration());
+    if (event.getStackTrace() == null) {
+      return;
+    }
+    String stack = event.getStackTrace().getFrames().stream()
+        .filter(RecordedFrame::isJavaFrame)
+        .limit(LOGGED_FRAMES)
+        .map(frame -> frame.getMethod().getType().getName() + "."
+            + frame.getMethod().getName() + ":" + frame.getLineNumber())
+        .collect(Collectors.joining("\n\tat "));
+    if (reportedSites.add(stack)) {
+      log.warn("Virtual thread pinned for {} ms\n\tat {}",
+          event.getDuration().toMillis(), stack);
+    }
+  }
+}
@@ -10,7 +10,7 @@ import com.pm.authservice.dto.ValidateResponseDTO;
 import com.pm.authservice.model.User;
 import com.pm.authservice.service.AuthService;
 import com.pm.authservice.service.UserService;
-import com.pm.authservice.util.JwtUtil;
+import com.pm.authservice.util.VerifiedClaims;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import java.util.List;
@@ -32,12 +32,10 @@ public class AuthController {
 
   private final AuthService authService;
   private final UserService userService;
-  private final JwtUtil jwtUtil;
 
-  public AuthController(AuthService authService, UserService userService, JwtUtil jwtUtil) {
+  public AuthController(AuthService authService, UserService userService) {
     this.authService = authService;
     this.userService = userService;
-    this.jwtUtil = jwtUtil;
   }
 
   @Operation(summary = "Generate token on user login")
@@ -110,10 +108,14 @@ public class AuthController {
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
 
-    String token = authHeader.substring(7);
-    String role = jwtUtil.getRoleFromToken(token);
+    Optional<VerifiedClaims> claims =
+        authService.verifyToken(authHeader.substring(7));
 
-    if (!"ADMIN".equals(role)) {
+    if (claims.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    if (!"ADMIN".equals(claims.get().role())) {
       return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
 
@@ -142,10 +144,14 @@ public class AuthController {
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
 
-    String token = authHeader.substring(7);
-    String role = jwtUtil.getRoleFromToken(token);
+    Optional<VerifiedClaims> claims =
+        authService.verifyToken(authHeader.substring(7));
+
+    if (claims.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
 
-    if (!"ADMIN".equals(role)) {
+    if (!"ADMIN".equals(claims.get().role())) {
       return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
 
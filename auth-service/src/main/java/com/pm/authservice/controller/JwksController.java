@@ -0,0 +1,58 @@
+package com.pm.authservice.controller;
+
+import com.pm.authservice.service.SigningKeyService;
+import io.swagger.v3.oas.annotations.Operation;
+import java.math.BigInteger;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class JwksController {
+
+  private final SigningKeyService signingKeyService;
+
+  public JwksController(SigningKeyService signingKeyService) {
+    this.signingKeyService = signingKeyService;
+  }
+
+  @Operation(summary = "Public keys for verifying issued tokens (JWKS)")
+  @GetMapping("/.well-known/jwks.json")
+  public ResponseEntity<Map<String, List<Map<String, String>>>> getJwks() {
+    List<Map<String, String>> keys = new ArrayList<>();
+    signingKeyService.publishedKeys().forEach((keyId, publicKey) ->
+        keys.add(toJwk(keyId, publicKey)));
+
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES))
+        .body(Map.of("keys", keys));
+  }
+
+  private static Map<String, String> toJwk(String keyId,
+      RSAPublicKey publicKey) {
+    return Map.of(
+        "kty", "RSA",
+        "kid", keyId,
+        "use", "sig",
+        "alg", SigningKeyService.ALGORITHM,
+        "n", base64Url(publicKey.getModulus()),
+        "e", base64Url(publicKey.getPublicExponent()));
+  }
+
+  // JWK integers are unsigned big-endian, so drop BigInteger's sign byte
+  private static String base64Url(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    if (bytes.length > 1 && bytes[0] == 0) {
+      bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+}
@@ -0,0 +1,84 @@
+package com.pm.authservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "signing_keys")
+public class SigningKey {
+
+  // Published as the JWT "kid" header and in the JWKS document
+  @Id
+  @Column(name = "key_id", length = 64)
+  private String keyId;
+
+  @Column(nullable = false, length = 16)
+  private String algorithm;
+
+  // PKCS#8 DER encrypted by SigningKeyCipher
+  @Column(name = "private_key", nullable = false, length = 4096)
+  private String privateKey;
+
+  // Base64 X.509 DER
+  @Column(name = "public_key", nullable = false, length = 2048)
+  private String publicKey;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  // The key this one rotated out. Unique, so of two instances rotating the
+  // same key at once only one can store its successor
+  @Column(name = "replaces_key_id", length = 64, unique = true)
+  private String replacesKeyId;
+
+  public String getKeyId() {
+    return keyId;
+  }
+
+  public void setKeyId(String keyId) {
+    this.keyId = keyId;
+  }
+
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  public void setAlgorithm(String algorithm) {
+    this.algorithm = algorithm;
+  }
+
+  public String getPrivateKey() {
+    return privateKey;
+  }
+
+  public void setPrivateKey(String privateKey) {
+    this.privateKey = privateKey;
+  }
+
+  public String getPublicKey() {
+    return publicKey;
+  }
+
+  public void setPublicKey(String publicKey) {
+    this.publicKey = publicKey;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public String getReplacesKeyId() {
+    return replacesKeyId;
+  }
+
+  public void setReplacesKeyId(String replacesKeyId) {
+    this.replacesKeyId = replacesKeyId;
+  }
+}
@@ -0,0 +1,10 @@
+package com.pm.authservice.repository;
+
+import com.pm.authservice.model.SigningKey;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+  List<SigningKey> findByCreatedAtAfterOrderByCreatedAtDesc(Instant createdAfter);
+}
@@ -3,6 +3,7 @@ package com.pm.authservice.service;
 import com.pm.authservice.dto.LoginRequestDTO;
 import com.pm.authservice.dto.ValidateResponseDTO;
 import com.pm.authservice.util.JwtUtil;
+import com.pm.authservice.util.VerifiedClaims;
 import io.jsonwebtoken.JwtException;
 import java.util.Optional;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -31,23 +32,21 @@ public class AuthService {
     return token;
   }
 
-  public boolean validateToken(String token) {
+  public Optional<VerifiedClaims> verifyToken(String token) {
     try {
-      jwtUtil.validateToken(token);
-      return true;
-    } catch (JwtException e){
-      return false;
+      return Optional.of(jwtUtil.verify(token));
+    } catch (JwtException e) {
+      return Optional.empty();
     }
   }
 
+  public boolean validateToken(String token) {
+    return verifyToken(token).isPresent();
+  }
+
   public ValidateResponseDTO validateTokenWithDetails(String token) {
-    try {
-      jwtUtil.validateToken(token);
-      String email = jwtUtil.getEmailFromToken(token);
-      String role = jwtUtil.getRoleFromToken(token);
-      return new ValidateResponseDTO(email, role, true);
-    } catch (JwtException e){
-      return new ValidateResponseDTO(null, null, false);
-    }
+    return verifyToken(token)
+        .map(claims -> new ValidateResponseDTO(claims.email(), claims.role(), true))
+        .orElseGet(() -> new ValidateResponseDTO(null, null, false));
   }
 }
@@ -0,0 +1,176 @@
+package com.pm.authservice.service;
+
+import com.pm.authservice.model.SigningKey;
+import com.pm.authservice.repository.SigningKeyRepository;
+import com.pm.authservice.util.SigningKeyCipher;
+import jakarta.annotation.PostConstruct;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// RSA signing keys shared by all auth-service instances through the
+// database. The newest key signs; every key younger than the rotation
+// interval plus the token lifetime stays published so tokens signed before a
+// rotation keep verifying until they expire. Private keys are stored
+// encrypted under jwt.key-encryption-key (see SigningKeyCipher).
+@Service
+public class SigningKeyService {
+
+  public static final String ALGORITHM = "RS256";
+
+  private static final Logger log = LoggerFactory.getLogger(
+      SigningKeyService.class);
+
+  private final SigningKeyRepository signingKeyRepository;
+  private final SigningKeyCipher signingKeyCipher;
+  private final Duration rotationInterval;
+  private final Duration tokenLifetime;
+  private volatile KeyRing keyRing;
+
+  public SigningKeyService(SigningKeyRepository signingKeyRepository,
+      SigningKeyCipher signingKeyCipher,
+      @Value("${jwt.key-rotation-interval:P7D}") Duration rotationInterval,
+      @Value("${jwt.expiration:PT10H}") Duration tokenLifetime) {
+    this.signingKeyRepository = signingKeyRepository;
+    this.signingKeyCipher = signingKeyCipher;
+    this.rotationInterval = rotationInterval;
+    this.tokenLifetime = tokenLifetime;
+  }
+
+  @PostConstruct
+  public void init() {
+    encryptLegacyKeys();
+    refresh();
+  }
+
+  public String activeKeyId() {
+    return keyRing.activeKeyId();
+  }
+
+  public PrivateKey activePrivateKey() {
+    return keyRing.activePrivateKey();
+  }
+
+  public RSAPublicKey publicKey(String keyId) {
+    return keyRing.publicKeys().get(keyId);
+  }
+
+  public Map<String, RSAPublicKey> publishedKeys() {
+    return keyRing.publicKeys();
+  }
+
+  // Picks up keys rotated by other instances and rotates when due
+  @Scheduled(fixedDelayString = "${jwt.key-refresh-interval-ms:60000}")
+  public void refresh() {
+    Instant now = Instant.now();
+    List<SigningKey> keys = signingKeyRepository
+        .findByCreatedAtAfterOrderByCreatedAtDesc(
+            now.minus(rotationInterval).minus(tokenLifetime));
+
+    if (keys.isEmpty() || keys.get(0).getCreatedAt()
+        .isBefore(now.minus(rotationInterval))) {
+      createKey(now, keys.isEmpty() ? null : keys.get(0).getKeyId());
+      keys = signingKeyRepository.findByCreatedAtAfterOrderByCreatedAtDesc(
+          now.minus(rotationInterval).minus(tokenLifetime));
+    }
+
+    Map<String, RSAPublicKey> publicKeys = new LinkedHashMap<>();
+    for (SigningKey key : keys) {
+      publicKeys.put(key.getKeyId(), decodePublicKey(key.getPublicKey()));
+    }
+    SigningKey active = keys.get(0);
+    keyRing = new KeyRing(active.getKeyId(), decodePrivateKey(active),
+        Collections.unmodifiableMap(publicKeys));
+  }
+
+  // With no key to replace (first start, or every key has expired) nothing
+  // stops two instances both creating one; both are published and the
+  // newer signs
+  private void createKey(Instant now, String replacesKeyId) {
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(2048);
+      KeyPair keyPair = generator.generateKeyPair();
+
+      SigningKey key = new SigningKey();
+      key.setKeyId(UUID.randomUUID().toString());
+      key.setAlgorithm(ALGORITHM);
+      key.setPrivateKey(signingKeyCipher.encrypt(key.getKeyId(),
+          keyPair.getPrivate().getEncoded()));
+      key.setPublicKey(Base64.getEncoder()
+          .encodeToString(keyPair.getPublic().getEncoded()));
+      key.setCreatedAt(now);
+      key.setReplacesKeyId(replacesKeyId);
+      signingKeyRepository.save(key);
+      log.info("Rotated JWT signing key, new key id {}", key.getKeyId());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("RSA is not available", e);
+    } catch (DataIntegrityViolationException e) {
+      // Another instance stored a successor to the same key first; the
+      // caller re-reads the keys and signs with that one
+      log.info("Signing key {} was already rotated by another instance",
+          replacesKeyId);
+    }
+  }
+
+  // Keys written before encryption was introduced are stored in plaintext;
+  // they are encrypted in place so database reads and backups no longer
+  // expose them
+  private void encryptLegacyKeys() {
+    for (SigningKey key : signingKeyRepository.findAll()) {
+      if (!signingKeyCipher.isEncrypted(key.getPrivateKey())) {
+        key.setPrivateKey(signingKeyCipher.encrypt(key.getKeyId(),
+            Base64.getDecoder().decode(key.getPrivateKey())));
+        signingKeyRepository.save(key);
+        log.info("Encrypted stored signing key {}", key.getKeyId());
+      }
+    }
+  }
+
+  private PrivateKey decodePrivateKey(SigningKey key) {
+    // A row still in plaintext was written by an instance that predates
+    // encryption, during a rolling upgrade
+    byte[] encoded = signingKeyCipher.isEncrypted(key.getPrivateKey())
+        ? signingKeyCipher.decrypt(key.getKeyId(), key.getPrivateKey())
+        : Base64.getDecoder().decode(key.getPrivateKey());
+    try {
+      return KeyFactory.getInstance("RSA").generatePrivate(
+          new PKCS8EncodedKeySpec(encoded));
+    } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+      throw new IllegalStateException("Invalid stored signing key", e);
+    }
+  }
+
+  private static RSAPublicKey decodePublicKey(String encoded) {
+    try {
+      return (RSAPublicKey) KeyFactory.getInstance("RSA").generatePublic(
+          new X509EncodedKeySpec(Base64.getDecoder().decode(encoded)));
+    } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+      throw new IllegalStateException("Invalid stored public key", e);
+    }
+  }
+
+  private record KeyRing(String activeKeyId, PrivateKey activePrivateKey,
+                         Map<String, RSAPublicKey> publicKeys) {
+  }
+}
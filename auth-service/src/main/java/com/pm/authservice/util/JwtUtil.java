@@ -1,66 +1,94 @@
 package com.pm.authservice.util;
 
+import com.pm.authservice.service.SigningKeyService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
-import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JwtUtil {
 
-  private final Key secretKey;
+  // Only used to verify HS256 tokens issued before RS256 signing was enabled
+  private final Key legacySecretKey;
+  private final SigningKeyService signingKeyService;
+  private final Duration expiration;
+  // Immutable and thread-safe; keys are looked up per token, so rotation
+  // doesn't require rebuilding it
+  private final JwtParser parser;
 
-  public JwtUtil(@Value("${jwt.secret}") String secret) {
+  public JwtUtil(@Value("${jwt.secret}") String secret,
+      SigningKeyService signingKeyService,
+      @Value("${jwt.expiration:PT10H}") Duration expiration) {
     byte[] keyBytes = Base64.getDecoder()
         .decode(secret.getBytes(StandardCharsets.UTF_8));
-    this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+    this.legacySecretKey = Keys.hmacShaKeyFor(keyBytes);
+    this.signingKeyService = signingKeyService;
+    this.expiration = expiration;
+    this.parser = buildParser();
   }
 
   public String generateToken(String email, String role) {
     return Jwts.builder()
+        .header().keyId(signingKeyService.activeKeyId()).and()
         .subject(email)
         .claim("role", role)
         .issuedAt(new Date())
-        .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 *10)) // 10 hours
-        .signWith(secretKey)
+        .expiration(new Date(System.currentTimeMillis() + expiration.toMillis()))
+        .signWith(signingKeyService.activePrivateKey(), Jwts.SIG.RS256)
         .compact();
   }
 
-  public void validateToken(String token) {
+  // Parses and verifies the token once; throws JwtException when the
+  // signature, key id or expiry is not acceptable
+  public VerifiedClaims verify(String token) {
+    Claims claims;
     try {
-      Jwts.parser().verifyWith((SecretKey) secretKey)
-          .build()
-          .parseSignedClaims(token);
+      claims = parser.parseSignedClaims(token).getPayload();
     } catch (SignatureException e) {
       throw new JwtException("Invalid JWT signature");
-    } catch (JwtException e) {
+    } catch (JwtException | IllegalArgumentException e) {
       throw new JwtException("Invalid JWT");
     }
+    return new VerifiedClaims(
+        claims.getSubject(),
+        claims.get("role", String.class),
+        toInstant(claims.getIssuedAt()),
+        toInstant(claims.getExpiration()));
   }
 
-  public String getEmailFromToken(String token) {
-    Claims claims = Jwts.parser()
-        .verifyWith((SecretKey) secretKey)
-        .build()
-        .parseSignedClaims(token)
-        .getPayload();
-    return claims.getSubject();
+  private static Instant toInstant(Date date) {
+    return date != null ? date.toInstant() : null;
   }
 
-  public String getRoleFromToken(String token) {
-    Claims claims = Jwts.parser()
-        .verifyWith((SecretKey) secretKey)
-        .build()
-        .parseSignedClaims(token)
-        .getPayload();
-    return claims.get("role", String.class);
+  private JwtParser buildParser() {
+    return Jwts.parser()
+        .keyLocator(new LocatorAdapter<Key>() {
+          @Override
+          protected Key locate(JwsHeader header) {
+            String keyId = header.getKeyId();
+            if (keyId == null) {
+              return legacySecretKey;
+            }
+            Key key = signingKeyService.publicKey(keyId);
+            if (key == null) {
+              throw new JwtException("Unknown signing key " + keyId);
+            }
+            return key;
+          }
+        })
+        .build();
   }
 }
@@ -0,0 +1,85 @@
+package com.pm.authservice.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Encrypts signing private keys at rest with AES-256-GCM under a
+// key-encryption key that is configured per deployment and never stored in
+// the database. The key id is bound as associated data, so a ciphertext
+// copied onto another row doesn't decrypt.
+@Component
+public class SigningKeyCipher {
+
+  private static final String PREFIX = "aes256gcm:";
+  private static final int IV_BYTES = 12;
+  private static final int TAG_BITS = 128;
+
+  private final SecretKey keyEncryptionKey;
+  private final SecureRandom random = new SecureRandom();
+
+  public SigningKeyCipher(
+      @Value("${jwt.key-encryption-key}") String keyEncryptionKey) {
+    byte[] keyBytes = Base64.getDecoder().decode(keyEncryptionKey);
+    if (keyBytes.length != 32) {
+      throw new IllegalArgumentException(
+          "jwt.key-encryption-key must be 32 bytes, Base64 encoded");
+    }
+    this.keyEncryptionKey = new SecretKeySpec(keyBytes, "AES");
+  }
+
+  public String encrypt(String keyId, byte[] plaintext) {
+    byte[] iv = new byte[IV_BYTES];
+    random.nextBytes(iv);
+    try {
+      Cipher cipher = cipher(Cipher.ENCRYPT_MODE, keyId, iv);
+      byte[] ciphertext = cipher.doFinal(plaintext);
+      return PREFIX + Base64.getEncoder().encodeToString(
+          ByteBuffer.allocate(iv.length + ciphertext.length)
+              .put(iv).put(ciphertext).array());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Could not encrypt signing key", e);
+    }
+  }
+
+  public byte[] decrypt(String keyId, String stored) {
+    if (!isEncrypted(stored)) {
+      throw new IllegalArgumentException("Signing key is not encrypted");
+    }
+    byte[] data = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+    if (data.length <= IV_BYTES) {
+      throw new IllegalStateException("Truncated signing key " + keyId);
+    }
+    try {
+      Cipher cipher = cipher(Cipher.DECRYPT_MODE, keyId,
+          Arrays.copyOf(data, IV_BYTES));
+      return cipher.doFinal(data, IV_BYTES, data.length - IV_BYTES);
+    } catch (GeneralSecurityException e) {
+      // Wrong key-encryption key, or the row was tampered with
+      throw new IllegalStateException("Could not decrypt signing key "
+          + keyId, e);
+    }
+  }
+
+  // Rows written before encryption hold the Base64 PKCS#8 encoding
+  public boolean isEncrypted(String stored) {
+    return stored.startsWith(PREFIX);
+  }
+
+  private Cipher cipher(int mode, String keyId, byte[] iv)
+      throws GeneralSecurityException {
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(mode, keyEncryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+    cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+    return cipher;
+  }
+}
@@ -0,0 +1,8 @@
+package com.pm.authservice.util;
+
+import java.time.Instant;
+
+// Claims of a token whose signature and expiry have already been checked
+public record VerifiedClaims(String email, String role, Instant issuedAt,
+                             Instant expiresAt) {
+}
@@ -0,0 +1,123 @@
+package com.pm.authservice.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.pm.authservice.model.SigningKey;
+import com.pm.authservice.repository.SigningKeyRepository;
+import com.pm.authservice.service.SigningKeyService;
+import com.pm.authservice.util.JwtUtil;
+import com.pm.authservice.util.SigningKeyCipher;
+import com.pm.authservice.util.VerifiedClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Compares the old validate path (a fresh parser and full verification for
+// each of validateToken/getEmailFromToken/getRoleFromToken) with a single
+// JwtUtil.verify call.
+//
+// JMH forks a JVM from java.class.path, so run it with a plain java -cp:
+//   mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+//   java -cp target/test-classes:target/classes:$(cat cp.txt) \
+//     com.pm.authservice.benchmark.JwtUtilBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+  private static final String LEGACY_SECRET =
+      "c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0";
+  private static final String KEY_ENCRYPTION_KEY =
+      "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+
+  private SigningKeyService signingKeyService;
+  private JwtUtil jwtUtil;
+  private String token;
+
+  @Setup
+  public void setUp() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    KeyPair keyPair = generator.generateKeyPair();
+
+    SigningKeyCipher cipher = new SigningKeyCipher(KEY_ENCRYPTION_KEY);
+    SigningKey key = new SigningKey();
+    key.setKeyId("benchmark");
+    key.setAlgorithm(SigningKeyService.ALGORITHM);
+    key.setPrivateKey(cipher.encrypt(key.getKeyId(),
+        keyPair.getPrivate().getEncoded()));
+    key.setPublicKey(Base64.getEncoder()
+        .encodeToString(keyPair.getPublic().getEncoded()));
+    key.setCreatedAt(Instant.now());
+
+    SigningKeyRepository repository = mock(SigningKeyRepository.class);
+    when(repository.findByCreatedAtAfterOrderByCreatedAtDesc(any()))
+        .thenReturn(List.of(key));
+
+    signingKeyService = new SigningKeyService(repository, cipher,
+        Duration.ofDays(7), Duration.ofHours(10));
+    signingKeyService.init();
+    jwtUtil = new JwtUtil(LEGACY_SECRET, signingKeyService, Duration.ofHours(10));
+    token = jwtUtil.generateToken("admin@example.com", "ADMIN");
+  }
+
+  @Benchmark
+  public void threeParsesFreshParser(Blackhole blackhole) {
+    freshParser().parseSignedClaims(token);
+    Claims emailClaims = freshParser().parseSignedClaims(token).getPayload();
+    Claims roleClaims = freshParser().parseSignedClaims(token).getPayload();
+    blackhole.consume(emailClaims.getSubject());
+    blackhole.consume(roleClaims.get("role", String.class));
+  }
+
+  @Benchmark
+  public VerifiedClaims singleVerify() {
+    return jwtUtil.verify(token);
+  }
+
+  private JwtParser freshParser() {
+    return Jwts.parser()
+        .keyLocator(new LocatorAdapter<Key>() {
+          @Override
+          protected Key locate(JwsHeader header) {
+            return signingKeyService.publicKey(header.getKeyId());
+          }
+        })
+        .build();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(JwtUtilBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,143 @@
+package com.pm.authservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.pm.authservice.model.SigningKey;
+import com.pm.authservice.repository.SigningKeyRepository;
+import com.pm.authservice.util.SigningKeyCipher;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class SigningKeyServiceTest {
+
+  private static final String KEY_ENCRYPTION_KEY =
+      "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+
+  private final SigningKeyCipher cipher =
+      new SigningKeyCipher(KEY_ENCRYPTION_KEY);
+  private final List<SigningKey> rows = new ArrayList<>();
+  private SigningKeyRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = mock(SigningKeyRepository.class);
+    when(repository.findAll()).thenReturn(rows);
+    when(repository.findByCreatedAtAfterOrderByCreatedAtDesc(any()))
+        .thenAnswer(invocation -> List.copyOf(rows));
+    when(repository.save(any())).thenAnswer(invocation -> {
+      SigningKey key = invocation.getArgument(0);
+      if (!rows.contains(key)) {
+        rows.add(key);
+      }
+      return key;
+    });
+  }
+
+  @Test
+  void storesNewKeysEncrypted() {
+    SigningKeyService service = newService();
+    service.init();
+
+    assertEquals(1, rows.size());
+    SigningKey stored = rows.get(0);
+    assertTrue(cipher.isEncrypted(stored.getPrivateKey()));
+    assertArrayEquals(service.activePrivateKey().getEncoded(),
+        cipher.decrypt(stored.getKeyId(), stored.getPrivateKey()));
+  }
+
+  @Test
+  void encryptsLegacyPlaintextKeysOnStartup() throws Exception {
+    KeyPair keyPair = keyPair();
+    SigningKey legacy = new SigningKey();
+    legacy.setKeyId("legacy");
+    legacy.setAlgorithm(SigningKeyService.ALGORITHM);
+    legacy.setPrivateKey(Base64.getEncoder()
+        .encodeToString(keyPair.getPrivate().getEncoded()));
+    legacy.setPublicKey(Base64.getEncoder()
+        .encodeToString(keyPair.getPublic().getEncoded()));
+    legacy.setCreatedAt(Instant.now());
+    rows.add(legacy);
+
+    SigningKeyService service = newService();
+    service.init();
+
+    assertTrue(cipher.isEncrypted(legacy.getPrivateKey()));
+    assertEquals("legacy", service.activeKeyId());
+    assertArrayEquals(keyPair.getPrivate().getEncoded(),
+        service.activePrivateKey().getEncoded());
+  }
+
+  @Test
+  void usesTheOtherInstancesKeyWhenRotationRaces() throws Exception {
+    SigningKey expired = storedKey("expired",
+        Instant.now().minus(Duration.ofDays(8)), null);
+    SigningKey winner = storedKey("winner", Instant.now(), "expired");
+    rows.add(expired);
+    doAnswer(invocation -> {
+      rows.add(0, winner);
+      throw new DataIntegrityViolationException("replaces_key_id");
+    }).when(repository).save(any());
+
+    SigningKeyService service = newService();
+    service.refresh();
+
+    assertEquals("winner", service.activeKeyId());
+    assertEquals(2, rows.size());
+  }
+
+  @Test
+  void rejectsCiphertextMovedToAnotherKeyOrUnderAnotherKek() {
+    String encrypted = cipher.encrypt("a", new byte[] {1, 2, 3});
+
+    assertFalse(encrypted.contains(Base64.getEncoder()
+        .encodeToString(new byte[] {1, 2, 3})));
+    assertThrows(IllegalStateException.class,
+        () -> cipher.decrypt("b", encrypted));
+    SigningKeyCipher otherKek = new SigningKeyCipher(Base64.getEncoder()
+        .encodeToString(new byte[32]));
+    assertThrows(IllegalStateException.class,
+        () -> otherKek.decrypt("a", encrypted));
+  }
+
+  private SigningKeyService newService() {
+    return new SigningKeyService(repository, cipher, Duration.ofDays(7),
+        Duration.ofHours(10));
+  }
+
+  private SigningKey storedKey(String keyId, Instant createdAt,
+      String replacesKeyId) throws Exception {
+    KeyPair keyPair = keyPair();
+    SigningKey key = new SigningKey();
+    key.setKeyId(keyId);
+    key.setAlgorithm(SigningKeyService.ALGORITHM);
+    key.setPrivateKey(cipher.encrypt(keyId,
+        keyPair.getPrivate().getEncoded()));
+    key.setPublicKey(Base64.getEncoder()
+        .encodeToString(keyPair.getPublic().getEncoded()));
+    key.setCreatedAt(createdAt);
+    key.setReplacesKeyId(replacesKeyId);
+    return key;
+  }
+
+  private static KeyPair keyPair() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    return generator.generateKeyPair();
+  }
+}
@@ -0,0 +1,28 @@
+package com.pm.billingservice.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// With spring.threads.virtual.enabled=true every gRPC call runs on its own
+// virtual thread instead of grpc-java's default cached platform-thread pool
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class GrpcServerConfig {
+
+  @Bean(destroyMethod = "close")
+  public ExecutorService grpcServerExecutor() {
+    return Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("grpc-", 0).factory());
+  }
+
+  @Bean
+  public GrpcServerConfigurer virtualThreadGrpcServerConfigurer(
+      ExecutorService grpcServerExecutor) {
+    return serverBuilder -> serverBuilder.executor(grpcServerExecutor);
+  }
+}
@@ -1,5 +1,7 @@
 package com.pm.billingservice.grpc;
 
+import billing.BillingBatchRequest;
+import billing.BillingBatchResponse;
 import billing.BillingRequest;
 import billing.BillingResponse;
 import billing.BillingServiceGrpc.BillingServiceImplBase;
@@ -20,14 +22,61 @@ public class BillingGrpcService extends BillingServiceImplBase {
 
       log.info("createBillingAccount request received {}", billingRequest.toString());
 
-      // Business logic - e.g save to database, perform calculates etc
+      responseObserver.onNext(createAccount(billingRequest));
+      responseObserver.onCompleted();
+  }
 
-      BillingResponse response = BillingResponse.newBuilder()
-          .setAccountId("12345")
-          .setStatus("ACTIVE")
-          .build();
+  @Override
+  public void createBillingAccounts(BillingBatchRequest batchRequest,
+      StreamObserver<BillingBatchResponse> responseObserver) {
 
-      responseObserver.onNext(response);
-      responseObserver.onCompleted();
+    log.info("createBillingAccounts request received for {} patients",
+        batchRequest.getRequestsCount());
+
+    BillingBatchResponse.Builder response = BillingBatchResponse.newBuilder();
+    for (BillingRequest billingRequest : batchRequest.getRequestsList()) {
+      response.addResponses(createAccount(billingRequest));
+    }
+
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public StreamObserver<BillingRequest> streamBillingAccounts(
+      StreamObserver<BillingBatchResponse> responseObserver) {
+
+    BillingBatchResponse.Builder response = BillingBatchResponse.newBuilder();
+
+    return new StreamObserver<>() {
+      @Override
+      public void onNext(BillingRequest billingRequest) {
+        response.addResponses(createAccount(billingRequest));
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        log.warn("streamBillingAccounts cancelled by client after {} requests: {}",
+            response.getResponsesCount(), t.getMessage());
+      }
+
+      @Override
+      public void onCompleted() {
+        log.info("streamBillingAccounts completed for {} patients",
+            response.getResponsesCount());
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+      }
+    };
+  }
+
+  private BillingResponse createAccount(BillingRequest billingRequest) {
+    // Business logic - e.g save to database, perform calculates etc
+
+    return BillingResponse.newBuilder()
+        .setAccountId("12345")
+        .setStatus("ACTIVE")
+        .setPatientId(billingRequest.getPatientId())
+        .build();
   }
 }
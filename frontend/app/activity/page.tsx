@@ -4,7 +4,7 @@ import { useEffect, useState } from 'react';
 import { useRouter } from 'next/navigation';
 import Link from 'next/link';
 import { isAuthenticated } from '@/lib/auth';
-import { getAllActivities, getRelativeTime, getActivityType, Activity } from '@/lib/activity';
+import { getAllActivities, subscribeToActivities, getRelativeTime, getActivityType, Activity } from '@/lib/activity';
 import ClientOnly from '@/components/ClientOnly';
 import styles from './Activity.module.css';
 
@@ -26,12 +26,10 @@ export default function ActivityPage() {
     // Load all activities
     fetchActivities();
 
-    // Auto-refresh activities every 5 seconds
-    const interval = setInterval(() => {
-      fetchActivities();
-    }, 5000);
-
-    return () => clearInterval(interval);
+    // Prepend activities pushed by the live feed
+    return subscribeToActivities((activity) => {
+      setActivities((current) => [activity, ...current].slice(0, 100));
+    });
   }, [router]);
 
   if (!isAuthenticated()) {
@@ -5,7 +5,7 @@ import { useRouter } from 'next/navigation';
 import Link from 'next/link';
 import { isAuthenticated, removeToken, getUserInfo } from '@/lib/auth';
 import axiosClient from '@/lib/axios';
-import { getRecentActivities, formatActivityMessage, getRelativeTime, getActivityType, Activity } from '@/lib/activity';
+import { getRecentActivities, subscribeToActivities, formatActivityMessage, getRelativeTime, getActivityType, Activity } from '@/lib/activity';
 import ClientOnly from '@/components/ClientOnly';
 import ThemeToggle from '@/components/ThemeToggle';
 import UserProfile from '@/components/UserProfile';
@@ -57,12 +57,10 @@ export default function DashboardPage() {
     fetchPatients();
     fetchActivities();
 
-    // Auto-refresh activities every 5 seconds
-    const interval = setInterval(() => {
-      fetchActivities();
-    }, 5000);
-
-    return () => clearInterval(interval);
+    // Prepend activities pushed by the live feed
+    return subscribeToActivities((activity) => {
+      setActivities((current) => [activity, ...current].slice(0, 3));
+    });
   }, [router]);
 
   const handleLogout = () => {
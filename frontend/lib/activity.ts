@@ -29,14 +29,32 @@ export async function getAllActivities(): Promise<Activity[]> {
   }
 }
 
-// Fetch patient-specific activities
-export async function getPatientActivities(patientId: string): Promise<Activity[]> {
+// Push new activities as analytics-service persists them. EventSource
+// reconnects on its own and resumes from the last event id it saw.
+// Returns a function that closes the stream.
+export function subscribeToActivities(onActivity: (activity: Activity) => void): () => void {
+  const source = new EventSource(`${axiosClient.defaults.baseURL}/analytics/audit/stream`);
+  source.addEventListener('audit', (event) => {
+    onActivity(JSON.parse((event as MessageEvent).data));
+  });
+  return () => source.close();
+}
+
+export interface ActivityPage {
+  events: Activity[];
+  nextCursor: string | null;
+}
+
+// Fetch a page of patient-specific activities, newest first
+export async function getPatientActivities(patientId: string, cursor?: string, size: number = 50): Promise<ActivityPage> {
   try {
-    const response = await axiosClient.get(`/analytics/audit/patient/${patientId}`);
+    const params = new URLSearchParams({ size: String(size) });
+    if (cursor) params.set('cursor', cursor);
+    const response = await axiosClient.get<ActivityPage>(`/analytics/audit/patient/${patientId}?${params}`);
     return response.data;
   } catch (error) {
     console.error('Failed to fetch patient activities:', error);
-    return [];
+    return { events: [], nextCursor: null };
   }
 }
 
@@ -68,7 +68,8 @@ public class LocalStack extends Stack {
             "auth-service",
             List.of(4005),
             authServiceDb,
-            Map.of("JWT_SECRET", "Y2hhVEc3aHJnb0hYTzMyZ2ZqVkpiZ1RkZG93YWxrUkM="));
+            Map.of("JWT_SECRET", "Y2hhVEc3aHJnb0hYTzMyZ2ZqVkpiZ1RkZG93YWxrUkM=",
+                "JWT_KEY_ENCRYPTION_KEY", "gtWz/rt1BK3IGjmtCDXJ1wuaEA7q1qBBNZ0ZPqaVsps="));
 
     authService.getNode().addDependency(authDbHealthCheck);
     authService.getNode().addDependency(authServiceDb);
@@ -204,7 +205,7 @@ public class LocalStack extends Stack {
     }
 
     if(db != null){
-      envVars.put("SPRING_DATASOURCE_URL", "jdbc:postgresql://%s:%s/%s-db".formatted(
+      envVars.put("SPRING_DATASOURCE_URL", "jdbc:postgresql://%s:%s/%s-db?reWriteBatchedInserts=true".formatted(
           db.getDbInstanceEndpointAddress(),
           db.getDbInstanceEndpointPort(),
           imageName
@@ -0,0 +1,151 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Load driver for comparing spring.threads.virtual.enabled=false/true.
+// Each client creates a patient and reads it back in a loop through the
+// gateway. Start the services once per mode, e.g.
+//   SPRING_THREADS_VIRTUAL_ENABLED=true ./start
+// then run
+//   mvn test -Dtest=VirtualThreadLoadComparisonTest -Dload.clients=1000
+// and compare the logged throughput and latency percentiles.
+@EnabledIfSystemProperty(named = "load.clients", matches = "\\d+")
+public class VirtualThreadLoadComparisonTest {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      VirtualThreadLoadComparisonTest.class);
+  private static final String BASE_URL =
+      System.getProperty("load.base-url", "http://localhost:4004");
+  private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+  private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+  @Test
+  public void measureThroughput() throws Exception {
+    int clients = Integer.getInteger("load.clients");
+    Duration duration = Duration.ofSeconds(Long.getLong("load.seconds", 60));
+
+    HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .build();
+    String token = login(httpClient);
+
+    AtomicLong errors = new AtomicLong();
+    List<long[]> latencies = new ArrayList<>();
+    long deadline = System.nanoTime() + duration.toNanos();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < clients; i++) {
+        long[] clientLatencies = new long[1 << 16];
+        latencies.add(clientLatencies);
+        executor.submit(() -> runClient(httpClient, token, deadline,
+            clientLatencies, errors));
+      }
+    }
+
+    long[] all = latencies.stream()
+        .flatMapToLong(l -> Arrays.stream(l, 1, (int) Math.min(l[0] + 1, l.length)))
+        .sorted()
+        .toArray();
+    double seconds = duration.toMillis() / 1000.0;
+    log.info(String.format("clients=%d requests=%d errors=%d "
+            + "throughput=%.1f req/s p50=%.1f ms p99=%.1f ms",
+        clients, all.length, errors.get(), all.length / seconds,
+        percentile(all, 0.50), percentile(all, 0.99)));
+  }
+
+  // Slot 0 of latencies holds the number of recorded samples
+  private static void runClient(HttpClient httpClient, String token,
+      long deadline, long[] latencies, AtomicLong errors) {
+    while (System.nanoTime() < deadline) {
+      try {
+        String email = "load-" + UUID.randomUUID() + "@example.com";
+        String body = """
+            {"name":"Load Test","email":"%s","address":"1 Load St",
+             "dateOfBirth":"1990-01-01","registeredDate":"2024-01-01"}
+            """.formatted(email);
+        HttpResponse<String> created = timed(httpClient, HttpRequest.newBuilder()
+            .uri(URI.create(BASE_URL + "/api/patients"))
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(), latencies, errors);
+        Matcher id = created != null ? ID.matcher(created.body()) : null;
+        if (id == null || !id.find()) {
+          continue;
+        }
+        timed(httpClient, HttpRequest.newBuilder()
+            .uri(URI.create(BASE_URL + "/api/patients/" + id.group(1)))
+            .header("Authorization", "Bearer " + token)
+            .GET()
+            .build(), latencies, errors);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private static HttpResponse<String> timed(HttpClient httpClient,
+      HttpRequest request, long[] latencies, AtomicLong errors)
+      throws InterruptedException {
+    long start = System.nanoTime();
+    try {
+      HttpResponse<String> response = httpClient.send(request,
+          HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() >= 400) {
+        errors.incrementAndGet();
+        return null;
+      }
+      int next = (int) ++latencies[0];
+      if (next < latencies.length) {
+        latencies[next] = System.nanoTime() - start;
+      }
+      return response;
+    } catch (java.io.IOException e) {
+      errors.incrementAndGet();
+      return null;
+    }
+  }
+
+  private static String login(HttpClient httpClient) throws Exception {
+    String body = """
+        {"email":"%s","password":"%s"}
+        """.formatted(System.getProperty("load.email", "testuser@test.com"),
+        System.getProperty("load.password", "password123"));
+    HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder()
+            .uri(URI.create(BASE_URL + "/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+    Matcher token = TOKEN.matcher(response.body());
+    if (!token.find()) {
+      throw new IllegalStateException("Login failed: " + response.statusCode());
+    }
+    return token.group(1);
+  }
+
+  private static double percentile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(quantile * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1_000_000.0;
+  }
+}
@@ -0,0 +1,50 @@
+package com.pm.patientservice.cache;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.repository.PatientRepository;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+// Preloads the most recently registered patients so a fresh instance doesn't
+// start with every lookup going to Postgres
+@Component
+public class PatientCacheWarmer {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientCacheWarmer.class);
+
+  private final PatientRepository patientRepository;
+  private final PatientNearCache patientNearCache;
+  private final int warmSize;
+
+  public PatientCacheWarmer(PatientRepository patientRepository,
+      PatientNearCache patientNearCache,
+      @Value("${patient.cache.warm-size:5000}") int warmSize) {
+    this.patientRepository = patientRepository;
+    this.patientNearCache = patientNearCache;
+    this.warmSize = warmSize;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warm() {
+    if (warmSize <= 0) {
+      return;
+    }
+    try {
+      long generation = patientNearCache.generation();
+      List<PatientResponseDTO> patients =
+          patientRepository.findMostRecent(Limit.of(warmSize));
+      patients.forEach(patient -> patientNearCache.put(patient, generation));
+      log.info("Warmed patient cache with {} patients", patients.size());
+    } catch (RuntimeException e) {
+      // A cold cache is only slower, never wrong
+      log.warn("Patient cache warm-up failed: {}", e.getMessage());
+    }
+  }
+}
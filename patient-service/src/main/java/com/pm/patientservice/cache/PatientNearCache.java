@@ -0,0 +1,105 @@
+package com.pm.patientservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Per-instance cache in front of getPatientById. Entries are stored encoded
+// (optionally in direct buffers, outside the GC-managed heap) and bounded by
+// their total size; Caffeine's W-TinyLFU policy keeps the frequently read
+// patients. Writes on any instance invalidate it through the patient topic.
+@Component
+public class PatientNearCache {
+
+  // Power of two; ids sharing a stripe only cost each other a skipped put
+  private static final int STRIPES = 4096;
+
+  private final boolean enabled;
+  private final boolean offHeap;
+  private final Cache<UUID, Object> cache;
+  // Ticks on every invalidation; each stripe remembers the tick of the last
+  // invalidation of an id hashing to it, so a put can tell whether the value
+  // it loaded was invalidated while it was being read
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicLongArray invalidatedAt = new AtomicLongArray(STRIPES);
+
+  public PatientNearCache(MeterRegistry meterRegistry,
+      @Value("${patient.cache.enabled:true}") boolean enabled,
+      @Value("${patient.cache.off-heap:false}") boolean offHeap,
+      @Value("${patient.cache.max-bytes:67108864}") long maxBytes,
+      @Value("${patient.cache.ttl:PT10M}") Duration ttl) {
+    this.enabled = enabled;
+    this.offHeap = offHeap;
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((UUID id, Object value) -> value instanceof ByteBuffer buffer
+            ? buffer.capacity() : ((byte[]) value).length)
+        // Safety net for an invalidation missed while the consumer was down
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "patient.near-cache");
+  }
+
+  public PatientResponseDTO get(UUID id) {
+    if (!enabled) {
+      return null;
+    }
+    Object value = cache.getIfPresent(id);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof ByteBuffer buffer) {
+      byte[] data = new byte[buffer.capacity()];
+      buffer.get(0, data);
+      return PatientDtoCodec.decode(data);
+    }
+    return PatientDtoCodec.decode((byte[]) value);
+  }
+
+  // Read before loading patients from the database and pass to put
+  public long generation() {
+    return clock.get();
+  }
+
+  // Skipped when the patient was invalidated after generation was read, so a
+  // read racing an update can't re-cache the old row for the whole TTL
+  public void put(PatientResponseDTO patient, long generation) {
+    if (!enabled) {
+      return;
+    }
+    byte[] data = PatientDtoCodec.encode(patient);
+    Object encoded = offHeap
+        ? ByteBuffer.allocateDirect(data.length).put(0, data) : data;
+    UUID id = UUID.fromString(patient.getId());
+    // compute serializes with invalidate() on the same id
+    cache.asMap().compute(id, (key, current) ->
+        invalidatedAt.get(stripe(key)) > generation ? current : encoded);
+  }
+
+  public void invalidate(UUID id) {
+    cache.asMap().compute(id, (key, current) -> {
+      invalidatedAt.accumulateAndGet(stripe(key), clock.incrementAndGet(),
+          Math::max);
+      return null;
+    });
+  }
+
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  private static int stripe(UUID id) {
+    int hash = id.hashCode();
+    return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+  }
+}
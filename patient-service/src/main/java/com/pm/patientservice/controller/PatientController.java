@@ -1,14 +1,26 @@
 package com.pm.patientservice.controller;
 
+import com.pm.patientservice.dto.BulkImportResponseDTO;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientSearchResponseDTO;
 import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.service.PatientImportService;
+import com.pm.patientservice.search.PatientSearchCriteria;
 import com.pm.patientservice.service.PatientService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.groups.Default;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,17 +30,25 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/patients")
 @Tag(name = "Patient", description = "API for managing Patients")
 public class PatientController {
 
+  private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+  private static final String TEXT_CSV_VALUE = "text/csv";
+
   private final PatientService patientService;
+  private final PatientImportService patientImportService;
 
-  public PatientController(PatientService patientService) {
+  public PatientController(PatientService patientService,
+      PatientImportService patientImportService) {
     this.patientService = patientService;
+    this.patientImportService = patientImportService;
   }
 
   @GetMapping
@@ -38,6 +58,44 @@ public class PatientController {
     return ResponseEntity.ok().body(patients);
   }
 
+  @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Stream all Patients as newline-delimited JSON")
+  public ResponseEntity<StreamingResponseBody> streamPatients() {
+    StreamingResponseBody body = patientService::streamPatients;
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+        .body(body);
+  }
+
+  @GetMapping("/page")
+  @Operation(summary = "Get a page of Patients using a continuation cursor")
+  public ResponseEntity<PatientPageResponseDTO> getPatientsPage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") @Min(1) @Max(500) int size) {
+    PatientPageResponseDTO page = patientService.getPatientsPage(cursor, size);
+    return ResponseEntity.ok().body(page);
+  }
+
+  @GetMapping("/search")
+  @Operation(summary = "Search Patients by name, email prefix, blood group, "
+      + "gender and date of birth range")
+  public ResponseEntity<PatientSearchResponseDTO> searchPatients(
+      @RequestParam(required = false) String name,
+      @RequestParam(required = false) String email,
+      @RequestParam(required = false) String bloodGroup,
+      @RequestParam(required = false) String gender,
+      @RequestParam(required = false)
+      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dobFrom,
+      @RequestParam(required = false)
+      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dobTo,
+      @RequestParam(defaultValue = "0") @Min(0) int page,
+      @RequestParam(defaultValue = "50") @Min(1) @Max(500) int size) {
+    PatientSearchCriteria criteria = new PatientSearchCriteria(name, email,
+        bloodGroup, gender, dobFrom, dobTo);
+    return ResponseEntity.ok().body(
+        patientService.searchPatients(criteria, page, size));
+  }
+
   @GetMapping("/{id}")
   @Operation(summary = "Get Patient by ID")
   public ResponseEntity<PatientResponseDTO> getPatientById(@PathVariable UUID id) {
@@ -57,6 +115,22 @@ public class PatientController {
     return ResponseEntity.ok().body(patientResponseDTO);
   }
 
+  @PostMapping(path = "/bulk", consumes = APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Bulk import Patients from newline-delimited JSON")
+  public ResponseEntity<BulkImportResponseDTO> importPatientsNdjson(
+      HttpServletRequest request) throws IOException {
+    return ResponseEntity.ok().body(
+        patientImportService.importNdjson(request.getInputStream()));
+  }
+
+  @PostMapping(path = "/bulk", consumes = TEXT_CSV_VALUE)
+  @Operation(summary = "Bulk import Patients from CSV with a header row")
+  public ResponseEntity<BulkImportResponseDTO> importPatientsCsv(
+      HttpServletRequest request) throws IOException {
+    return ResponseEntity.ok().body(
+        patientImportService.importCsv(request.getInputStream()));
+  }
+
   @PutMapping("/{id}")
   @Operation(summary = "Update a new Patient")
   public ResponseEntity<PatientResponseDTO> updatePatient(@PathVariable UUID id,
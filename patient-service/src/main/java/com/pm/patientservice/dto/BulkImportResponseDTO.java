@@ -0,0 +1,63 @@
+package com.pm.patientservice.dto;
+
+import java.util.List;
+
+public class BulkImportResponseDTO {
+  private long total;
+  private long created;
+  private long rejected;
+  private long durationMs;
+  private List<BulkImportRowResultDTO> results;
+
+  public BulkImportResponseDTO() {
+  }
+
+  public BulkImportResponseDTO(long total, long created, long rejected,
+      long durationMs, List<BulkImportRowResultDTO> results) {
+    this.total = total;
+    this.created = created;
+    this.rejected = rejected;
+    this.durationMs = durationMs;
+    this.results = results;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  public long getCreated() {
+    return created;
+  }
+
+  public void setCreated(long created) {
+    this.created = created;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public void setRejected(long rejected) {
+    this.rejected = rejected;
+  }
+
+  public long getDurationMs() {
+    return durationMs;
+  }
+
+  public void setDurationMs(long durationMs) {
+    this.durationMs = durationMs;
+  }
+
+  public List<BulkImportRowResultDTO> getResults() {
+    return results;
+  }
+
+  public void setResults(List<BulkImportRowResultDTO> results) {
+    this.results = results;
+  }
+}
@@ -0,0 +1,53 @@
+package com.pm.patientservice.dto;
+
+import java.util.Map;
+
+public class BulkImportRowResultDTO {
+  private long row;
+  private String status;
+  private String id;
+  private Map<String, String> errors;
+
+  public BulkImportRowResultDTO() {
+  }
+
+  public BulkImportRowResultDTO(long row, String status, String id,
+      Map<String, String> errors) {
+    this.row = row;
+    this.status = status;
+    this.id = id;
+    this.errors = errors;
+  }
+
+  public long getRow() {
+    return row;
+  }
+
+  public void setRow(long row) {
+    this.row = row;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public Map<String, String> getErrors() {
+    return errors;
+  }
+
+  public void setErrors(Map<String, String> errors) {
+    this.errors = errors;
+  }
+}
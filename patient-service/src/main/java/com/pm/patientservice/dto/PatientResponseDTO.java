@@ -1,5 +1,8 @@
 package com.pm.patientservice.dto;
 
+import java.time.LocalDate;
+import java.util.UUID;
+
 public class PatientResponseDTO {
   private String id;
   private String name;
@@ -9,6 +12,21 @@ public class PatientResponseDTO {
   private String gender;
   private String bloodGroup;
 
+  public PatientResponseDTO() {
+  }
+
+  // Used by JPQL constructor projections so rows never become managed entities
+  public PatientResponseDTO(UUID id, String name, String email, String address,
+      LocalDate dateOfBirth, String gender, String bloodGroup) {
+    this.id = id.toString();
+    this.name = name;
+    this.email = email;
+    this.address = address;
+    this.dateOfBirth = dateOfBirth.toString();
+    this.gender = gender;
+    this.bloodGroup = bloodGroup;
+  }
+
   public String getId() {
     return id;
   }
@@ -0,0 +1,53 @@
+package com.pm.patientservice.dto;
+
+import java.util.List;
+
+public class PatientSearchResponseDTO {
+  private List<PatientResponseDTO> patients;
+  private long total;
+  private int page;
+  private int size;
+
+  public PatientSearchResponseDTO() {
+  }
+
+  public PatientSearchResponseDTO(List<PatientResponseDTO> patients,
+      long total, int page, int size) {
+    this.patients = patients;
+    this.total = total;
+    this.page = page;
+    this.size = size;
+  }
+
+  public List<PatientResponseDTO> getPatients() {
+    return patients;
+  }
+
+  public void setPatients(List<PatientResponseDTO> patients) {
+    this.patients = patients;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  public int getPage() {
+    return page;
+  }
+
+  public void setPage(int page) {
+    this.page = page;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+}
@@ -4,10 +4,12 @@ import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -37,6 +39,27 @@ public class GlobalExceptionHandler {
     return ResponseEntity.badRequest().body(errors);
   }
 
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<Map<String, String>> handleInvalidCursorException(
+      InvalidCursorException ex) {
+    log.warn("Invalid pagination cursor {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Invalid cursor");
+    return ResponseEntity.badRequest().body(errors);
+  }
+
+  @ExceptionHandler(HandlerMethodValidationException.class)
+  public ResponseEntity<Map<String, String>> handleMethodValidationException(
+      HandlerMethodValidationException ex) {
+
+    Map<String, String> errors = new HashMap<>();
+    ex.getParameterValidationResults().forEach(result -> errors.put(
+        result.getMethodParameter().getParameterName(),
+        result.getResolvableErrors().get(0).getDefaultMessage()));
+    return ResponseEntity.badRequest().body(errors);
+  }
+
   @ExceptionHandler(PatientNotFoundException.class)
   public ResponseEntity<Map<String, String>> handlePatientNotFoundException(
       PatientNotFoundException ex) {
@@ -46,4 +69,14 @@ public class GlobalExceptionHandler {
     errors.put("message", "Patient not found");
     return ResponseEntity.notFound().build();
   }
+
+  @ExceptionHandler(SearchIndexUnavailableException.class)
+  public ResponseEntity<Map<String, String>> handleSearchIndexUnavailableException(
+      SearchIndexUnavailableException ex) {
+    log.warn("Search unavailable {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Search is not available yet, please retry");
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errors);
+  }
 }
@@ -0,0 +1,8 @@
+package com.pm.patientservice.exception;
+
+public class SearchIndexUnavailableException extends RuntimeException {
+
+  public SearchIndexUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,50 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+
+// Records the latency of each logical billing call (including any retries or
+// hedged attempts) by method and final status code
+class BillingMetricsInterceptor implements ClientInterceptor {
+
+  private final MeterRegistry meterRegistry;
+
+  BillingMetricsInterceptor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions,
+      Channel next) {
+    return new SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {
+        long start = System.nanoTime();
+        super.start(new SimpleForwardingClientCallListener<>(responseListener) {
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            Timer.builder("billing.grpc.client")
+                .description("Billing gRPC call latency by method and outcome")
+                .tag("method", method.getBareMethodName())
+                .tag("outcome", status.getCode().name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            super.onClose(status, trailers);
+          }
+        }, headers);
+      }
+    };
+  }
+}
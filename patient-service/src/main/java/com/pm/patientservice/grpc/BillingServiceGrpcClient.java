@@ -1,43 +1,179 @@
 package com.pm.patientservice.grpc;
 
+import billing.BillingBatchRequest;
+import billing.BillingBatchResponse;
 import billing.BillingRequest;
 import billing.BillingResponse;
 import billing.BillingServiceGrpc;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+// Non-blocking billing client. Calls go through the async stub with a
+// per-call deadline and are spread round-robin over a small pool of channels
+// so concurrent calls don't all share one connection's HTTP/2 stream limit.
+// Retries (or hedging, when enabled) are driven by the channel's service
+// config.
 @Service
 public class BillingServiceGrpcClient {
 
   private static final Logger log = LoggerFactory.getLogger(
       BillingServiceGrpcClient.class);
-  private final BillingServiceGrpc.BillingServiceBlockingStub blockingStub;
+
+  private final List<ManagedChannel> channels = new ArrayList<>();
+  private final List<BillingServiceGrpc.BillingServiceStub> stubs =
+      new ArrayList<>();
+  private final AtomicInteger nextStub = new AtomicInteger();
+  private final Duration deadline;
 
   public BillingServiceGrpcClient(
       @Value("${billing.service.address:localhost}") String serverAddress,
-      @Value("${billing.service.grpc.port:9001}") int serverPort) {
+      @Value("${billing.service.grpc.port:9001}") int serverPort,
+      @Value("${billing.service.channel-pool-size:2}") int channelPoolSize,
+      @Value("${billing.service.deadline-ms:2000}") long deadlineMs,
+      @Value("${billing.service.retry.max-attempts:3}") int maxAttempts,
+      @Value("${billing.service.hedging.enabled:false}") boolean hedging,
+      @Value("${billing.service.hedging.delay-ms:50}") long hedgingDelayMs,
+      MeterRegistry meterRegistry) {
 
-    log.info("Connecting to Billing Service GRPC service at {}:{}",
-        serverAddress, serverPort);
+    log.info("Connecting to Billing Service GRPC service at {}:{} "
+            + "({} channels, {} ms deadline, {})", serverAddress, serverPort,
+        channelPoolSize, deadlineMs, hedging ? "hedging" : "retries");
 
-    ManagedChannel channel = ManagedChannelBuilder.forAddress(serverAddress,
-        serverPort).usePlaintext().build();
+    Map<String, ?> serviceConfig = serviceConfig(maxAttempts, hedging,
+        hedgingDelayMs);
+    BillingMetricsInterceptor metrics = new BillingMetricsInterceptor(
+        meterRegistry);
+    for (int i = 0; i < channelPoolSize; i++) {
+      ManagedChannel channel = ManagedChannelBuilder.forAddress(serverAddress,
+              serverPort)
+          .usePlaintext()
+          .defaultServiceConfig(serviceConfig)
+          .enableRetry()
+          .build();
+      // Connect eagerly so the first calls don't spend their deadline on it
+      channel.getState(true);
+      Channel intercepted = ClientInterceptors.intercept(channel, metrics);
+      channels.add(channel);
+      stubs.add(BillingServiceGrpc.newStub(intercepted));
+    }
 
-    blockingStub = BillingServiceGrpc.newBlockingStub(channel);
+    this.deadline = Duration.ofMillis(deadlineMs);
   }
 
-  public BillingResponse createBillingAccount(String patientId, String name,
-      String email) {
+  public CompletableFuture<BillingResponse> createBillingAccount(
+      String patientId, String name, String email) {
 
     BillingRequest request = BillingRequest.newBuilder().setPatientId(patientId)
         .setName(name).setEmail(email).build();
 
-    BillingResponse response = blockingStub.createBillingAccount(request);
-    log.info("Received response from billing service via GRPC: {}", response);
-    return response;
+    CompletableFuture<BillingResponse> response = new CompletableFuture<>();
+    stub().createBillingAccount(request, completing(response));
+    return response.whenComplete((result, error) -> {
+      if (result != null) {
+        log.info("Received response from billing service via GRPC: {}", result);
+      }
+    });
+  }
+
+  public CompletableFuture<BillingBatchResponse> createBillingAccountsAsync(
+      BillingBatchRequest batchRequest) {
+    CompletableFuture<BillingBatchResponse> response = new CompletableFuture<>();
+    stub().createBillingAccounts(batchRequest, completing(response));
+    return response.whenComplete((result, error) -> {
+      if (result != null) {
+        log.info("Received {} billing responses via GRPC batch",
+            result.getResponsesCount());
+      }
+    });
+  }
+
+  // Blocks until the batch completes or its deadline passes
+  public List<BillingResponse> createBillingAccounts(
+      List<BillingRequest> requests) {
+    try {
+      return createBillingAccountsAsync(BillingBatchRequest.newBuilder()
+          .addAllRequests(requests).build()).join().getResponsesList();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof StatusRuntimeException statusException) {
+        throw statusException;
+      }
+      throw e;
+    }
+  }
+
+  private BillingServiceGrpc.BillingServiceStub stub() {
+    int index = Math.floorMod(nextStub.getAndIncrement(), stubs.size());
+    return stubs.get(index).withDeadlineAfter(deadline.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  private static <T> StreamObserver<T> completing(CompletableFuture<T> future) {
+    return new StreamObserver<>() {
+      @Override
+      public void onNext(T value) {
+        future.complete(value);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        future.completeExceptionally(t);
+      }
+
+      @Override
+      public void onCompleted() {
+        // Unary calls complete in onNext
+      }
+    };
+  }
+
+  // Retries only UNAVAILABLE, which billing-service returns before doing any
+  // work. Hedging sends extra attempts without waiting for a failure, so it
+  // should only be enabled while billing account creation is idempotent per
+  // patient.
+  private static Map<String, ?> serviceConfig(int maxAttempts, boolean hedging,
+      long hedgingDelayMs) {
+    Map<String, ?> policy = hedging
+        ? Map.of("hedgingPolicy", Map.of(
+            "maxAttempts", (double) maxAttempts,
+            "hedgingDelay", hedgingDelayMs / 1000.0 + "s",
+            "nonFatalStatusCodes", List.of("UNAVAILABLE")))
+        : Map.of("retryPolicy", Map.of(
+            "maxAttempts", (double) maxAttempts,
+            "initialBackoff", "0.1s",
+            "maxBackoff", "1s",
+            "backoffMultiplier", 2.0,
+            "retryableStatusCodes", List.of("UNAVAILABLE")));
+
+    Map<String, Object> methodConfig = new HashMap<>(policy);
+    methodConfig.put("name", List.of(
+        Map.of("service", BillingServiceGrpc.SERVICE_NAME)));
+    return Map.of(
+        "methodConfig", List.of(methodConfig),
+        // Stop retrying when most calls are failing anyway
+        "retryThrottling", Map.of("maxTokens", 10.0, "tokenRatio", 0.1));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    channels.forEach(ManagedChannel::shutdown);
   }
 }
@@ -1,40 +1,75 @@
 package com.pm.patientservice.kafka;
+import com.google.protobuf.Timestamp;
 import com.pm.patientservice.model.Patient;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import patient.events.PatientEvent;
 
 @Service
 public class KafkaProducer {
 
-  private static final Logger log = LoggerFactory.getLogger(
-      KafkaProducer.class);
+  private static final String TOPIC = "patient";
+  private static final int SCHEMA_VERSION = 2;
   private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final Timer successTimer;
+  private final Timer failureTimer;
 
-  public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+  public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate,
+      MeterRegistry meterRegistry) {
     this.kafkaTemplate = kafkaTemplate;
+    this.successTimer = publishTimer(meterRegistry, "success");
+    this.failureTimer = publishTimer(meterRegistry, "failure");
   }
 
-  public void sendEvent(Patient patient, String eventType) {
-    PatientEvent event = PatientEvent.newBuilder()
+  private static Timer publishTimer(MeterRegistry meterRegistry,
+      String outcome) {
+    return Timer.builder("patient.events.publish")
+        .description("Time from send to broker acknowledgement or failure")
+        .tag("outcome", outcome)
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+  }
+
+  // The event id is fixed here, so every resend of the payload carries the
+  // same id and consumers can drop the duplicates
+  public static PatientEvent toEvent(Patient patient, String eventType) {
+    Instant now = Instant.now();
+    return PatientEvent.newBuilder()
         .setPatientId(patient.getId().toString())
         .setName(patient.getName())
         .setEmail(patient.getEmail())
         .setEventType(eventType)
+        .setSchemaVersion(SCHEMA_VERSION)
+        .setEventId(UUID.randomUUID().toString())
+        .setSequence(patient.getEventSequence())
+        .setOccurredAt(Timestamp.newBuilder()
+            .setSeconds(now.getEpochSecond())
+            .setNanos(now.getNano()))
         .build();
+  }
 
+  // Keyed by patient id so every event for a patient lands on one partition.
+  // Only the outbox relay publishes; a failed send leaves the row in the
+  // outbox, which is the retry buffer.
+  public CompletableFuture<SendResult<String, byte[]>> send(String patientId,
+      byte[] payload) {
+    long start = System.nanoTime();
+    CompletableFuture<SendResult<String, byte[]>> future;
     try {
-      kafkaTemplate.send("patient", event.toByteArray());
-      log.info("Sent {} event for patient: {}", eventType, patient.getId());
-    } catch (Exception e) {
-      log.error("Error sending {} event: {}", eventType, event);
+      future = kafkaTemplate.send(TOPIC, patientId, payload);
+    } catch (RuntimeException e) {
+      failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
     }
-  }
-
-  // Convenience method for backward compatibility
-  public void sendEvent(Patient patient) {
-    sendEvent(patient, "PATIENT_CREATED");
+    return future.whenComplete((result, error) ->
+        (error == null ? successTimer : failureTimer)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
   }
 }
@@ -0,0 +1,192 @@
+package com.pm.patientservice.kafka;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.patientservice.cache.PatientNearCache;
+import com.pm.patientservice.service.OutboxService;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import patient.events.PatientEvent;
+
+// Every instance reads the whole patient topic so an update or delete on any
+// replica evicts the entry from all near caches. The consumer assigns itself
+// every partition and starts at the end instead of joining a consumer
+// group: there are no offsets to commit and nothing is left behind on the
+// broker when the instance goes away.
+@Service
+public class PatientCacheInvalidationListener {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientCacheInvalidationListener.class);
+  private static final String TOPIC = "patient";
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+  private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+  // New partitions are picked up this often
+  private static final Duration PARTITION_CHECK_INTERVAL = Duration.ofMinutes(1);
+
+  private final PatientNearCache patientNearCache;
+  private final Map<String, Object> consumerProperties;
+  private final boolean enabled;
+  private volatile boolean running;
+  private volatile Consumer<String, byte[]> consumer;
+  private Thread poller;
+
+  public PatientCacheInvalidationListener(PatientNearCache patientNearCache,
+      KafkaProperties kafkaProperties, SslBundles sslBundles,
+      @Value("${patient.cache.invalidation.enabled:true}") boolean enabled) {
+    this.patientNearCache = patientNearCache;
+    this.enabled = enabled;
+    this.consumerProperties = kafkaProperties.buildConsumerProperties(
+        sslBundles);
+    consumerProperties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+    consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
+        StringDeserializer.class);
+    consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+        ByteArrayDeserializer.class);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void start() {
+    if (!enabled || running) {
+      return;
+    }
+    running = true;
+    poller = new Thread(this::run, "patient-cache-invalidation");
+    poller.setDaemon(true);
+    poller.start();
+  }
+
+  @PreDestroy
+  public synchronized void stop() throws InterruptedException {
+    running = false;
+    Consumer<String, byte[]> current = consumer;
+    if (current != null) {
+      current.wakeup();
+    }
+    if (poller != null) {
+      poller.join(RETRY_DELAY.toMillis());
+    }
+  }
+
+  public void onPatientEvent(byte[] payload) {
+    PatientEvent event;
+    try {
+      event = PatientEvent.parseFrom(payload);
+    } catch (InvalidProtocolBufferException e) {
+      log.warn("Skipping malformed patient event: {}", e.getMessage());
+      return;
+    }
+
+    String eventType = event.getEventType();
+    if (OutboxService.PATIENT_UPDATED.equals(eventType)
+        || OutboxService.PATIENT_DELETED.equals(eventType)) {
+      try {
+        patientNearCache.invalidate(UUID.fromString(event.getPatientId()));
+      } catch (IllegalArgumentException e) {
+        log.warn("Patient event with invalid id {}", event.getPatientId());
+      }
+    }
+  }
+
+  private void run() {
+    while (running) {
+      try (Consumer<String, byte[]> kafkaConsumer =
+          new KafkaConsumer<>(consumerProperties)) {
+        consumer = kafkaConsumer;
+        poll(kafkaConsumer);
+      } catch (WakeupException e) {
+        // stop() was called
+      } catch (RuntimeException e) {
+        // Invalidations missed until the consumer is back are covered by the
+        // cache TTL
+        log.warn("Patient cache invalidation consumer failed, retrying in {}: {}",
+            RETRY_DELAY, e.getMessage());
+        sleep(RETRY_DELAY);
+      } finally {
+        consumer = null;
+      }
+    }
+  }
+
+  private void poll(Consumer<String, byte[]> kafkaConsumer) {
+    Set<TopicPartition> assigned = new HashSet<>();
+    long nextCheck = 0;
+    while (running) {
+      if (System.nanoTime() - nextCheck >= 0) {
+        assignNewPartitions(kafkaConsumer, assigned);
+        nextCheck = System.nanoTime() + PARTITION_CHECK_INTERVAL.toNanos();
+      }
+      if (assigned.isEmpty()) {
+        // The topic doesn't exist yet
+        sleep(RETRY_DELAY);
+        nextCheck = 0;
+        continue;
+      }
+      for (ConsumerRecord<String, byte[]> record
+          : kafkaConsumer.poll(POLL_TIMEOUT)) {
+        onPatientEvent(record.value());
+      }
+    }
+  }
+
+  // Partitions present at startup are read from their end; ones added later
+  // from their beginning, since everything on them is new
+  private static void assignNewPartitions(Consumer<String, byte[]> kafkaConsumer,
+      Set<TopicPartition> assigned) {
+    List<PartitionInfo> infos = kafkaConsumer.partitionsFor(TOPIC);
+    List<TopicPartition> added = new ArrayList<>();
+    if (infos != null) {
+      for (PartitionInfo info : infos) {
+        TopicPartition partition = new TopicPartition(TOPIC, info.partition());
+        if (!assigned.contains(partition)) {
+          added.add(partition);
+        }
+      }
+    }
+    if (added.isEmpty()) {
+      return;
+    }
+    boolean initial = assigned.isEmpty();
+    assigned.addAll(added);
+    kafkaConsumer.assign(assigned);
+    if (initial) {
+      kafkaConsumer.seekToEnd(added);
+    } else {
+      kafkaConsumer.seekToBeginning(added);
+    }
+    log.info("Reading {} partitions of {} for cache invalidation",
+        assigned.size(), TOPIC);
+  }
+
+  private void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
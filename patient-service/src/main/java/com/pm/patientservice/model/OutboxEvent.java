@@ -0,0 +1,146 @@
+package com.pm.patientservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "patient_outbox", indexes = @Index(
+    name = "idx_patient_outbox_status_id", columnList = "status, id"))
+public class OutboxEvent {
+
+  // Identity ordering doubles as the per-patient publish order
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "patient_id", nullable = false)
+  private UUID patientId;
+
+  @Column(name = "event_type", nullable = false)
+  private String eventType;
+
+  // Serialized PatientEvent protobuf, published as-is by the relay
+  @Column(nullable = false, length = 4096)
+  private byte[] payload;
+
+  @Column(name = "billing_pending", nullable = false)
+  private boolean billingPending;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private OutboxStatus status = OutboxStatus.PENDING;
+
+  @Column(nullable = false)
+  private int attempts;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private Instant nextAttemptAt;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Column(name = "last_error", length = 1000)
+  private String lastError;
+
+  public OutboxEvent() {
+  }
+
+  public OutboxEvent(UUID patientId, String eventType, byte[] payload,
+      boolean billingPending) {
+    this.patientId = patientId;
+    this.eventType = eventType;
+    this.payload = payload;
+    this.billingPending = billingPending;
+    this.createdAt = Instant.now();
+    this.nextAttemptAt = this.createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public UUID getPatientId() {
+    return patientId;
+  }
+
+  public void setPatientId(UUID patientId) {
+    this.patientId = patientId;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+
+  public byte[] getPayload() {
+    return payload;
+  }
+
+  public void setPayload(byte[] payload) {
+    this.payload = payload;
+  }
+
+  public boolean isBillingPending() {
+    return billingPending;
+  }
+
+  public void setBillingPending(boolean billingPending) {
+    this.billingPending = billingPending;
+  }
+
+  public OutboxStatus getStatus() {
+    return status;
+  }
+
+  public void setStatus(OutboxStatus status) {
+    this.status = status;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  public Instant getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+
+  public void setNextAttemptAt(Instant nextAttemptAt) {
+    this.nextAttemptAt = nextAttemptAt;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public void setLastError(String lastError) {
+    this.lastError = lastError;
+  }
+}
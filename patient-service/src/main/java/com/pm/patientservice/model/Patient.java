@@ -5,12 +5,17 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.util.UUID;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@Table(indexes = @Index(name = "idx_patient_registered_date_id",
+    columnList = "registeredDate, id"))
 public class Patient {
   @Id
   @GeneratedValue(strategy = GenerationType.AUTO)
@@ -38,6 +43,11 @@ public class Patient {
   @Column(length = 3)
   private String bloodGroup;
 
+  // Sequence of the latest PatientEvent; the creation event is 1
+  @ColumnDefault("1")
+  @Column(name = "event_sequence", nullable = false)
+  private long eventSequence = 1;
+
   public UUID getId() {
     return id;
   }
@@ -102,4 +112,15 @@ public class Patient {
     this.bloodGroup = bloodGroup;
   }
 
+  public long getEventSequence() {
+    return eventSequence;
+  }
+
+  public void setEventSequence(long eventSequence) {
+    this.eventSequence = eventSequence;
+  }
+
+  public long nextEventSequence() {
+    return ++eventSequence;
+  }
 }
@@ -0,0 +1,270 @@
+package com.pm.patientservice.outbox;
+
+import billing.BillingRequest;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.patientservice.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.kafka.KafkaProducer;
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.model.OutboxStatus;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import patient.events.PatientEvent;
+
+// Drains the patient outbox to billing and the patient topic. Events are
+// handled in id order; once an event for a patient fails, later events for
+// the same patient wait until it succeeds so consumers never see them
+// out of order. A FAILED event keeps blocking its patient until someone
+// resolves it, by deleting it or setting it back to PENDING.
+//
+// Each pass claims rows in a short transaction by leasing them (pushing
+// next_attempt_at past the work), does the billing call and Kafka sends
+// with no transaction or row lock held, and then deletes or reschedules
+// the rows in a second short transaction. A relay that dies mid-pass leaves
+// its rows to be picked up again once the lease runs out.
+@Component
+public class OutboxRelay {
+
+  private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final BillingServiceGrpcClient billingServiceGrpcClient;
+  private final KafkaProducer kafkaProducer;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration sendTimeout;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Duration lease;
+
+  public OutboxRelay(OutboxEventRepository outboxEventRepository,
+      BillingServiceGrpcClient billingServiceGrpcClient,
+      KafkaProducer kafkaProducer,
+      PlatformTransactionManager transactionManager,
+      @Value("${outbox.relay.batch-size:200}") int batchSize,
+      @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+      @Value("${outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs,
+      @Value("${outbox.relay.initial-backoff-ms:500}") long initialBackoffMs,
+      @Value("${outbox.relay.max-backoff-ms:60000}") long maxBackoffMs,
+      @Value("${outbox.relay.lease-ms:300000}") long leaseMs) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.billingServiceGrpcClient = billingServiceGrpcClient;
+    this.kafkaProducer = kafkaProducer;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.sendTimeout = Duration.ofMillis(sendTimeoutMs);
+    this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+    this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+    this.lease = Duration.ofMillis(leaseMs);
+  }
+
+  @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+  public void relay() {
+    Instant leaseUntil = Instant.now().plus(lease);
+    List<OutboxEvent> batch = transactionTemplate.execute(
+        status -> claim(leaseUntil));
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    Set<UUID> blockedPatients = new HashSet<>();
+    provisionBilling(batch, blockedPatients);
+
+    Map<UUID, CompletableFuture<?>> inFlight = new HashMap<>();
+    List<OutboxEvent> published = new ArrayList<>();
+    Map<OutboxEvent, CompletableFuture<?>> sends = new LinkedHashMap<>();
+
+    for (OutboxEvent event : batch) {
+      UUID patientId = event.getPatientId();
+      if (blockedPatients.contains(patientId)) {
+        continue;
+      }
+
+      // Only one send per patient is outstanding at a time
+      CompletableFuture<?> previous = inFlight.get(patientId);
+      if (previous != null && !await(previous)) {
+        blockedPatients.add(patientId);
+        continue;
+      }
+
+      try {
+        CompletableFuture<?> send = kafkaProducer.send(patientId.toString(),
+            event.getPayload());
+        inFlight.put(patientId, send);
+        sends.put(event, send);
+      } catch (Exception e) {
+        reschedule(event, e);
+        blockedPatients.add(patientId);
+      }
+    }
+
+    for (Map.Entry<OutboxEvent, CompletableFuture<?>> entry : sends.entrySet()) {
+      OutboxEvent event = entry.getKey();
+      try {
+        entry.getValue().get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        published.add(event);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        reschedule(event, e);
+      } catch (ExecutionException | TimeoutException e) {
+        reschedule(event, e);
+      }
+    }
+
+    // Rows skipped behind a failure give their lease back; the failed row
+    // ahead of them keeps the patient waiting
+    Instant now = Instant.now();
+    List<OutboxEvent> remaining = new ArrayList<>(batch.size());
+    Set<OutboxEvent> publishedSet = new HashSet<>(published);
+    for (OutboxEvent event : batch) {
+      if (publishedSet.contains(event)) {
+        continue;
+      }
+      if (event.getNextAttemptAt().equals(leaseUntil)) {
+        event.setNextAttemptAt(now);
+      }
+      remaining.add(event);
+    }
+    transactionTemplate.executeWithoutResult(status -> {
+      outboxEventRepository.deleteAllByIdInBatch(
+          published.stream().map(OutboxEvent::getId).toList());
+      outboxEventRepository.saveAll(remaining);
+    });
+    if (!published.isEmpty()) {
+      log.info("Relayed {} outbox events ({} pending in batch)",
+          published.size(), remaining.size());
+    }
+  }
+
+  // Locks due rows and leases the ones this pass may send: for each
+  // patient, the rows up to the first of its rows that wasn't locked here
+  // (another relay holds it, or it is failed or backing off), in id order
+  private List<OutboxEvent> claim(Instant leaseUntil) {
+    List<OutboxEvent> due = outboxEventRepository.lockDue(OutboxStatus.PENDING,
+        Instant.now(), Limit.of(batchSize));
+    if (due.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, OutboxEvent> byId = new HashMap<>();
+    Set<UUID> patientIds = new HashSet<>();
+    for (OutboxEvent event : due) {
+      byId.put(event.getId(), event);
+      patientIds.add(event.getPatientId());
+    }
+
+    List<OutboxEvent> claimed = new ArrayList<>(due.size());
+    Set<UUID> stopped = new HashSet<>();
+    for (Object[] row : outboxEventRepository.findPatientRows(patientIds,
+        due.get(due.size() - 1).getId())) {
+      UUID patientId = (UUID) row[0];
+      OutboxEvent event = byId.get((Long) row[1]);
+      if (event == null) {
+        stopped.add(patientId);
+      } else if (!stopped.contains(patientId)) {
+        event.setNextAttemptAt(leaseUntil);
+        claimed.add(event);
+      }
+    }
+    return claimed;
+  }
+
+  // One batch RPC covers every PATIENT_CREATED event in this relay pass
+  private void provisionBilling(List<OutboxEvent> ready,
+      Set<UUID> blockedPatients) {
+    List<BillingRequest> requests = new ArrayList<>();
+    List<OutboxEvent> requested = new ArrayList<>();
+    for (OutboxEvent event : ready) {
+      if (!event.isBillingPending()
+          || blockedPatients.contains(event.getPatientId())) {
+        continue;
+      }
+      try {
+        PatientEvent patientEvent = PatientEvent.parseFrom(event.getPayload());
+        requests.add(BillingRequest.newBuilder()
+            .setPatientId(patientEvent.getPatientId())
+            .setName(patientEvent.getName())
+            .setEmail(patientEvent.getEmail())
+            .build());
+        requested.add(event);
+      } catch (InvalidProtocolBufferException e) {
+        markFailed(event, e);
+        blockedPatients.add(event.getPatientId());
+      }
+    }
+    if (requests.isEmpty()) {
+      return;
+    }
+
+    try {
+      billingServiceGrpcClient.createBillingAccounts(requests);
+      requested.forEach(event -> event.setBillingPending(false));
+    } catch (RuntimeException e) {
+      for (OutboxEvent event : requested) {
+        reschedule(event, e);
+        blockedPatients.add(event.getPatientId());
+      }
+    }
+  }
+
+  private boolean await(CompletableFuture<?> future) {
+    try {
+      future.get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException | TimeoutException e) {
+      return false;
+    }
+  }
+
+  private void reschedule(OutboxEvent event, Exception cause) {
+    int attempts = event.getAttempts() + 1;
+    event.setAttempts(attempts);
+    event.setLastError(truncate(String.valueOf(cause.getMessage())));
+    if (attempts >= maxAttempts) {
+      markFailed(event, cause);
+      return;
+    }
+
+    long backoffMs = Math.min(maxBackoff.toMillis(),
+        initialBackoff.toMillis() << Math.min(attempts - 1, 20));
+    event.setNextAttemptAt(Instant.now().plusMillis(backoffMs));
+    log.warn("Outbox event {} for patient {} failed (attempt {}), retrying in {} ms: {}",
+        event.getId(), event.getPatientId(), attempts, backoffMs,
+        cause.getMessage());
+  }
+
+  private void markFailed(OutboxEvent event, Exception cause) {
+    event.setStatus(OutboxStatus.FAILED);
+    event.setLastError(truncate(String.valueOf(cause.getMessage())));
+    log.error("Outbox event {} for patient {} permanently failed after {} attempts",
+        event.getId(), event.getPatientId(), event.getAttempts(), cause);
+  }
+
+  private static String truncate(String message) {
+    return message.length() > 1000 ? message.substring(0, 1000) : message;
+  }
+}
@@ -0,0 +1,43 @@
+package com.pm.patientservice.repository;
+
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.model.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  // Due rows whose patient has no earlier row that is failed or still
+  // backing off. Rows another relay has locked are skipped rather than
+  // waited on (a lock timeout of -2 is SKIP LOCKED).
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout",
+      value = "-2"))
+  @Query("SELECT e FROM OutboxEvent e WHERE e.status = :pending "
+      + "AND e.nextAttemptAt <= :now AND NOT EXISTS ("
+      + "SELECT 1 FROM OutboxEvent p WHERE p.patientId = e.patientId "
+      + "AND p.id < e.id AND (p.status <> :pending OR p.nextAttemptAt > :now)) "
+      + "ORDER BY e.id")
+  List<OutboxEvent> lockDue(@Param("pending") OutboxStatus pending,
+      @Param("now") Instant now, Limit limit);
+
+  // (patient id, id) of every row of these patients up to maxId, oldest
+  // first, whatever its status
+  @Query("SELECT e.patientId, e.id FROM OutboxEvent e "
+      + "WHERE e.patientId IN :patientIds AND e.id <= :maxId ORDER BY e.id")
+  List<Object[]> findPatientRows(
+      @Param("patientIds") Collection<UUID> patientIds,
+      @Param("maxId") long maxId);
+}
@@ -1,12 +1,75 @@
 package com.pm.patientservice.repository;
 
+import com.pm.patientservice.dto.PatientResponseDTO;
 import com.pm.patientservice.model.Patient;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, UUID> {
   boolean existsByEmail(String email);
   boolean existsByEmailAndIdNot(String email, UUID id);
+
+  // Row lock for changes that bump the patient's event sequence
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT p FROM Patient p WHERE p.id = :id")
+  Optional<Patient> findByIdForUpdate(@Param("id") UUID id);
+
+  @Query("SELECT p.email FROM Patient p WHERE p.email IN :emails")
+  Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+  @Query("SELECT p FROM Patient p ORDER BY p.registeredDate, p.id")
+  List<Patient> findFirstPage(Limit limit);
+
+  @Query("SELECT p FROM Patient p WHERE p.registeredDate > :registeredDate "
+      + "OR (p.registeredDate = :registeredDate AND p.id > :id) "
+      + "ORDER BY p.registeredDate, p.id")
+  List<Patient> findPageAfter(@Param("registeredDate") LocalDate registeredDate,
+      @Param("id") UUID id, Limit limit);
+
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+  @Query("SELECT new com.pm.patientservice.dto.PatientResponseDTO(p.id, p.name, "
+      + "p.email, p.address, p.dateOfBirth, p.gender, p.bloodGroup) "
+      + "FROM Patient p ORDER BY p.registeredDate, p.id")
+  Stream<PatientResponseDTO> streamAll();
+
+  @Query("SELECT new com.pm.patientservice.dto.PatientResponseDTO(p.id, p.name, "
+      + "p.email, p.address, p.dateOfBirth, p.gender, p.bloodGroup) "
+      + "FROM Patient p ORDER BY p.registeredDate DESC, p.id DESC")
+  List<PatientResponseDTO> findMostRecent(Limit limit);
+
+  // Id-range scans used to load the search index in parallel
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+  @Query("SELECT new com.pm.patientservice.dto.PatientResponseDTO(p.id, p.name, "
+      + "p.email, p.address, p.dateOfBirth, p.gender, p.bloodGroup) "
+      + "FROM Patient p WHERE p.id >= :from AND p.id < :to")
+  Stream<PatientResponseDTO> streamIdRange(@Param("from") UUID from,
+      @Param("to") UUID to);
+
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+  @Query("SELECT new com.pm.patientservice.dto.PatientResponseDTO(p.id, p.name, "
+      + "p.email, p.address, p.dateOfBirth, p.gender, p.bloodGroup) "
+      + "FROM Patient p WHERE p.id >= :from")
+  Stream<PatientResponseDTO> streamIdsFrom(@Param("from") UUID from);
 }
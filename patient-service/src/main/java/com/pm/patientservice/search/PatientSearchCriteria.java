@@ -0,0 +1,10 @@
+package com.pm.patientservice.search;
+
+import java.time.LocalDate;
+
+// Filters for GET /patients/search; null fields are not applied
+public record PatientSearchCriteria(String name, String emailPrefix,
+                                    String bloodGroup, String gender,
+                                    LocalDate dateOfBirthFrom,
+                                    LocalDate dateOfBirthTo) {
+}
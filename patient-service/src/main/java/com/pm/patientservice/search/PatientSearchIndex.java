@@ -0,0 +1,384 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.SearchIndexUnavailableException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+// In-memory index behind GET /patients/search.
+//
+// Every patient gets an ordinal into a set of column arrays. Names are
+// indexed by trigram postings (ascending ordinal lists), emails by a sorted
+// set of (email, ordinal) entries for prefix ranges, and gender, blood
+// group and date of birth are kept as byte/int columns that are cheap to
+// scan. Updates append a new ordinal and tombstone the old one so postings
+// stay sorted; the index is compacted once tombstones outnumber live
+// entries.
+//
+// Changes committed while the startup load is running are queued and
+// replayed on top of the loaded snapshot, so none are lost.
+@Component
+public class PatientSearchIndex {
+
+  private static final int MIN_COMPACTION_TOMBSTONES = 10_000;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final List<Runnable> pendingChanges = new ArrayList<>();
+  private State state = new State();
+  private boolean ready;
+
+  public void upsert(PatientResponseDTO patient) {
+    upsertAll(List.of(patient));
+  }
+
+  public void upsertAll(Collection<PatientResponseDTO> patients) {
+    List<PatientResponseDTO> copy = List.copyOf(patients);
+    apply(() -> copy.forEach(patient -> {
+      state.remove(UUID.fromString(patient.getId()));
+      state.add(patient);
+    }));
+  }
+
+  public void remove(UUID id) {
+    apply(() -> state.remove(id));
+  }
+
+  // Replaces the contents with a freshly scanned snapshot and makes the index
+  // searchable
+  public void load(Collection<? extends Collection<PatientResponseDTO>> segments) {
+    lock.writeLock().lock();
+    try {
+      state = new State();
+      segments.forEach(segment -> segment.forEach(state::add));
+      pendingChanges.forEach(Runnable::run);
+      pendingChanges.clear();
+      compactIfNeeded();
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public boolean isReady() {
+    lock.readLock().lock();
+    try {
+      return ready;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void apply(Runnable change) {
+    lock.writeLock().lock();
+    try {
+      if (!ready) {
+        pendingChanges.add(change);
+        return;
+      }
+      change.run();
+      compactIfNeeded();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return state.live.cardinality();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // Matches in ordinal (roughly insertion) order; total counts every match
+  public SearchResult search(PatientSearchCriteria criteria, int page,
+      int size) {
+    lock.readLock().lock();
+    try {
+      if (!ready) {
+        throw new SearchIndexUnavailableException(
+            "Patient search index is still loading");
+      }
+      return state.search(criteria, page, size);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void compactIfNeeded() {
+    int live = state.live.cardinality();
+    int dead = state.size - live;
+    if (dead > MIN_COMPACTION_TOMBSTONES && dead > live) {
+      State compacted = new State();
+      for (int ordinal = state.live.nextSetBit(0); ordinal >= 0;
+          ordinal = state.live.nextSetBit(ordinal + 1)) {
+        compacted.add(state.toDTO(ordinal));
+      }
+      state = compacted;
+    }
+  }
+
+  public record SearchResult(List<PatientResponseDTO> patients, long total) {
+  }
+
+  private static final class State {
+
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final Map<Long, IntList> namePostings = new HashMap<>();
+    // Emails aren't unique once lowercased, so the ordinal is part of the key
+    private final NavigableSet<EmailEntry> emails = new TreeSet<>(
+        EmailEntry.ORDER);
+    private final Dictionary genders = new Dictionary();
+    private final Dictionary bloodGroups = new Dictionary();
+    private final BitSet live = new BitSet();
+
+    private int size;
+    private long[] idHigh = new long[1024];
+    private long[] idLow = new long[1024];
+    private String[] names = new String[1024];
+    private String[] nameKeys = new String[1024];
+    private String[] emailValues = new String[1024];
+    private String[] emailKeys = new String[1024];
+    private String[] addresses = new String[1024];
+    private int[] birthDays = new int[1024];
+    private byte[] genderCodes = new byte[1024];
+    private byte[] bloodGroupCodes = new byte[1024];
+
+    void add(PatientResponseDTO patient) {
+      if (size == idHigh.length) {
+        grow();
+      }
+      int ordinal = size++;
+      UUID id = UUID.fromString(patient.getId());
+      idHigh[ordinal] = id.getMostSignificantBits();
+      idLow[ordinal] = id.getLeastSignificantBits();
+      names[ordinal] = patient.getName();
+      nameKeys[ordinal] = normalize(patient.getName());
+      emailValues[ordinal] = patient.getEmail();
+      emailKeys[ordinal] = normalize(patient.getEmail());
+      addresses[ordinal] = patient.getAddress();
+      birthDays[ordinal] =
+          (int) LocalDate.parse(patient.getDateOfBirth()).toEpochDay();
+      genderCodes[ordinal] = genders.encode(patient.getGender());
+      bloodGroupCodes[ordinal] = bloodGroups.encode(patient.getBloodGroup());
+
+      for (long trigram : trigrams(nameKeys[ordinal])) {
+        namePostings.computeIfAbsent(trigram, t -> new IntList()).add(ordinal);
+      }
+      if (emailKeys[ordinal] != null) {
+        emails.add(new EmailEntry(emailKeys[ordinal], ordinal));
+      }
+      ordinals.put(id, ordinal);
+      live.set(ordinal);
+    }
+
+    void remove(UUID id) {
+      Integer ordinal = ordinals.remove(id);
+      if (ordinal != null) {
+        live.clear(ordinal);
+        if (emailKeys[ordinal] != null) {
+          emails.remove(new EmailEntry(emailKeys[ordinal], ordinal));
+        }
+      }
+    }
+
+    SearchResult search(PatientSearchCriteria criteria, int page, int size) {
+      String name = normalize(criteria.name());
+      String email = normalize(criteria.emailPrefix());
+      int gender = criteria.gender() != null
+          ? genders.lookup(criteria.gender()) : -1;
+      int bloodGroup = criteria.bloodGroup() != null
+          ? bloodGroups.lookup(criteria.bloodGroup()) : -1;
+      if (gender == Dictionary.UNKNOWN || bloodGroup == Dictionary.UNKNOWN) {
+        return new SearchResult(List.of(), 0);
+      }
+      int fromDay = criteria.dateOfBirthFrom() != null
+          ? (int) criteria.dateOfBirthFrom().toEpochDay() : Integer.MIN_VALUE;
+      int toDay = criteria.dateOfBirthTo() != null
+          ? (int) criteria.dateOfBirthTo().toEpochDay() : Integer.MAX_VALUE;
+
+      int[] candidates = candidates(name, email);
+      int count = candidates != null ? candidates.length : this.size;
+      long skip = (long) page * size;
+      long total = 0;
+      List<PatientResponseDTO> patients = new ArrayList<>(size);
+
+      for (int i = 0; i < count; i++) {
+        int ordinal = candidates != null ? candidates[i] : i;
+        if (!live.get(ordinal)
+            || birthDays[ordinal] < fromDay || birthDays[ordinal] > toDay
+            || (gender >= 0 && Byte.toUnsignedInt(genderCodes[ordinal]) != gender)
+            || (bloodGroup >= 0
+                && Byte.toUnsignedInt(bloodGroupCodes[ordinal]) != bloodGroup)
+            || (name != null && (nameKeys[ordinal] == null
+                || !nameKeys[ordinal].contains(name)))
+            || (email != null && (emailKeys[ordinal] == null
+                || !emailKeys[ordinal].startsWith(email)))) {
+          continue;
+        }
+        if (total >= skip && patients.size() < size) {
+          patients.add(toDTO(ordinal));
+        }
+        total++;
+      }
+      return new SearchResult(patients, total);
+    }
+
+    // Ascending ordinals that may match, or null when every row must be
+    // scanned. Name candidates still need the substring check because
+    // trigrams can match out of order.
+    private int[] candidates(String name, String email) {
+      if (name != null && name.length() >= 3) {
+        long[] trigrams = trigrams(name);
+        IntList[] lists = new IntList[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+          lists[i] = namePostings.get(trigrams[i]);
+          if (lists[i] == null) {
+            return new int[0];
+          }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        return intersect(lists);
+      }
+      if (email != null) {
+        int[] ordinalsInRange = emails
+            .subSet(new EmailEntry(email, Integer.MIN_VALUE), true,
+                new EmailEntry(email + Character.MAX_VALUE, Integer.MIN_VALUE),
+                false)
+            .stream().mapToInt(EmailEntry::ordinal).toArray();
+        Arrays.sort(ordinalsInRange);
+        return ordinalsInRange;
+      }
+      return null;
+    }
+
+    PatientResponseDTO toDTO(int ordinal) {
+      PatientResponseDTO patient = new PatientResponseDTO();
+      patient.setId(new UUID(idHigh[ordinal], idLow[ordinal]).toString());
+      patient.setName(names[ordinal]);
+      patient.setEmail(emailValues[ordinal]);
+      patient.setAddress(addresses[ordinal]);
+      patient.setDateOfBirth(LocalDate.ofEpochDay(birthDays[ordinal]).toString());
+      patient.setGender(genders.decode(genderCodes[ordinal]));
+      patient.setBloodGroup(bloodGroups.decode(bloodGroupCodes[ordinal]));
+      return patient;
+    }
+
+    private void grow() {
+      int capacity = idHigh.length * 2;
+      idHigh = Arrays.copyOf(idHigh, capacity);
+      idLow = Arrays.copyOf(idLow, capacity);
+      names = Arrays.copyOf(names, capacity);
+      nameKeys = Arrays.copyOf(nameKeys, capacity);
+      emailValues = Arrays.copyOf(emailValues, capacity);
+      emailKeys = Arrays.copyOf(emailKeys, capacity);
+      addresses = Arrays.copyOf(addresses, capacity);
+      birthDays = Arrays.copyOf(birthDays, capacity);
+      genderCodes = Arrays.copyOf(genderCodes, capacity);
+      bloodGroupCodes = Arrays.copyOf(bloodGroupCodes, capacity);
+    }
+  }
+
+  static String normalize(String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    return value.trim().toLowerCase(Locale.ROOT);
+  }
+
+  // Distinct trigrams, each packed as three 16-bit chars
+  static long[] trigrams(String key) {
+    if (key == null || key.length() < 3) {
+      return new long[0];
+    }
+    long[] trigrams = new long[key.length() - 2];
+    for (int i = 0; i < trigrams.length; i++) {
+      trigrams[i] = ((long) key.charAt(i) << 32)
+          | ((long) key.charAt(i + 1) << 16) | key.charAt(i + 2);
+    }
+    return Arrays.stream(trigrams).distinct().toArray();
+  }
+
+  // Walks the shortest list and binary-searches the others
+  private static int[] intersect(IntList[] lists) {
+    IntList shortest = lists[0];
+    int[] result = new int[shortest.size];
+    int matches = 0;
+    outer:
+    for (int i = 0; i < shortest.size; i++) {
+      int ordinal = shortest.values[i];
+      for (int l = 1; l < lists.length; l++) {
+        if (Arrays.binarySearch(lists[l].values, 0, lists[l].size, ordinal) < 0) {
+          continue outer;
+        }
+      }
+      result[matches++] = ordinal;
+    }
+    return Arrays.copyOf(result, matches);
+  }
+
+  private record EmailEntry(String key, int ordinal) {
+
+    static final Comparator<EmailEntry> ORDER = Comparator
+        .comparing(EmailEntry::key).thenComparingInt(EmailEntry::ordinal);
+  }
+
+  private static final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+  }
+
+  // Maps the few distinct values of an enumerated column to byte codes;
+  // code 0 is reserved for null
+  private static final class Dictionary {
+
+    static final int UNKNOWN = -2;
+
+    private final Map<String, Byte> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>(List.of(""));
+
+    byte encode(String value) {
+      if (value == null) {
+        return 0;
+      }
+      return codes.computeIfAbsent(value, v -> {
+        if (values.size() > 255) {
+          throw new IllegalStateException("Too many distinct values: " + v);
+        }
+        values.add(v);
+        return (byte) (values.size() - 1);
+      });
+    }
+
+    int lookup(String value) {
+      Byte code = codes.get(value);
+      return code != null ? Byte.toUnsignedInt(code) : UNKNOWN;
+    }
+
+    String decode(byte code) {
+      return code == 0 ? null : values.get(Byte.toUnsignedInt(code));
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.repository.PatientRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Fills the search index at startup. The UUID space is split into 16 ranges
+// on the first hex digit, and each range is streamed in its own read-only
+// transaction on a small thread pool. Retries until the database is reachable.
+@Component
+public class PatientSearchIndexLoader {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientSearchIndexLoader.class);
+  private static final int SEGMENTS = 16;
+
+  private final PatientRepository patientRepository;
+  private final PatientSearchIndex patientSearchIndex;
+  private final TransactionTemplate readOnlyTransaction;
+  private final int parallelism;
+  private final long retryDelayMs;
+
+  public PatientSearchIndexLoader(PatientRepository patientRepository,
+      PatientSearchIndex patientSearchIndex,
+      PlatformTransactionManager transactionManager,
+      @Value("${patient.search.load-parallelism:4}") int parallelism,
+      @Value("${patient.search.load-retry-delay-ms:10000}") long retryDelayMs) {
+    this.patientRepository = patientRepository;
+    this.patientSearchIndex = patientSearchIndex;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.parallelism = parallelism;
+    this.retryDelayMs = retryDelayMs;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadInBackground() {
+    Thread thread = new Thread(this::loadWithRetry, "patient-search-loader");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void loadWithRetry() {
+    while (true) {
+      try {
+        load();
+        return;
+      } catch (RuntimeException e) {
+        log.warn("Loading patient search index failed, retrying in {} ms: {}",
+            retryDelayMs, e.getMessage());
+      }
+      try {
+        Thread.sleep(retryDelayMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  void load() {
+    long start = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      List<CompletableFuture<List<PatientResponseDTO>>> segments =
+          new ArrayList<>(SEGMENTS);
+      for (int segment = 0; segment < SEGMENTS; segment++) {
+        UUID from = segmentStart(segment);
+        UUID to = segment + 1 < SEGMENTS ? segmentStart(segment + 1) : null;
+        segments.add(CompletableFuture.supplyAsync(
+            () -> readSegment(from, to), executor));
+      }
+      List<List<PatientResponseDTO>> rows = segments.stream()
+          .map(CompletableFuture::join)
+          .toList();
+
+      patientSearchIndex.load(rows);
+      log.info("Loaded {} patients into the search index in {} ms",
+          patientSearchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private List<PatientResponseDTO> readSegment(UUID from, UUID to) {
+    return readOnlyTransaction.execute(status -> {
+      try (Stream<PatientResponseDTO> patients = to != null
+          ? patientRepository.streamIdRange(from, to)
+          : patientRepository.streamIdsFrom(from)) {
+        return patients.toList();
+      }
+    });
+  }
+
+  // First UUID whose leading hex digit is the segment number
+  private static UUID segmentStart(int segment) {
+    return new UUID((long) segment << 60, 0L);
+  }
+}
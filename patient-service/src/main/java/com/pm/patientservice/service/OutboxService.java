@@ -0,0 +1,65 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.kafka.KafkaProducer;
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.OutboxStatus;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class OutboxService {
+
+  public static final String PATIENT_CREATED = "PATIENT_CREATED";
+  public static final String PATIENT_UPDATED = "PATIENT_UPDATED";
+  public static final String PATIENT_DELETED = "PATIENT_DELETED";
+
+  private static final String INSERT_SQL = "INSERT INTO patient_outbox "
+      + "(patient_id, event_type, payload, billing_pending, status, attempts, "
+      + "next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final JdbcTemplate jdbcTemplate;
+
+  public OutboxService(OutboxEventRepository outboxEventRepository,
+      JdbcTemplate jdbcTemplate) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  // Must join the caller's transaction so the event commits with the patient.
+  // Updates and deletes must hold the patient's row lock so two changes
+  // can't take the same sequence number.
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void record(Patient patient, String eventType) {
+    if (!PATIENT_CREATED.equals(eventType)) {
+      patient.nextEventSequence();
+    }
+    byte[] payload = KafkaProducer.toEvent(patient, eventType).toByteArray();
+    outboxEventRepository.save(new OutboxEvent(patient.getId(), eventType,
+        payload, PATIENT_CREATED.equals(eventType)));
+  }
+
+  // Plain JDBC batch: identity keys would otherwise disable Hibernate batching
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordAll(List<Patient> patients, String eventType) {
+    Timestamp now = Timestamp.from(Instant.now());
+    boolean billingPending = PATIENT_CREATED.equals(eventType);
+    jdbcTemplate.batchUpdate(INSERT_SQL, patients, patients.size(),
+        (ps, patient) -> {
+          ps.setObject(1, patient.getId());
+          ps.setString(2, eventType);
+          ps.setBytes(3, KafkaProducer.toEvent(patient, eventType).toByteArray());
+          ps.setBoolean(4, billingPending);
+          ps.setString(5, OutboxStatus.PENDING.name());
+          ps.setTimestamp(6, now);
+          ps.setTimestamp(7, now);
+        });
+  }
+}
@@ -0,0 +1,272 @@
+package com.pm.patientservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.pm.patientservice.dto.BulkImportResponseDTO;
+import com.pm.patientservice.dto.BulkImportRowResultDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.search.PatientSearchIndex;
+import com.pm.patientservice.util.CsvLineParser;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Imports patients from NDJSON or CSV in fixed-size chunks: one uniqueness
+// query, one batched insert and one batched outbox write per chunk. Billing
+// and PATIENT_CREATED events follow through the outbox relay.
+@Service
+public class PatientImportService {
+
+  public static final String CREATED = "CREATED";
+  public static final String REJECTED = "REJECTED";
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientImportService.class);
+
+  private final PatientRepository patientRepository;
+  private final OutboxService outboxService;
+  private final PatientSearchIndex patientSearchIndex;
+  private final Validator validator;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectReader patientReader;
+  private final int chunkSize;
+
+  public PatientImportService(PatientRepository patientRepository,
+      OutboxService outboxService, PatientSearchIndex patientSearchIndex,
+      Validator validator,
+      EntityManager entityManager, TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper,
+      @Value("${patient.import.chunk-size:1000}") int chunkSize) {
+    this.patientRepository = patientRepository;
+    this.outboxService = outboxService;
+    this.patientSearchIndex = patientSearchIndex;
+    this.validator = validator;
+    this.entityManager = entityManager;
+    this.transactionTemplate = transactionTemplate;
+    this.patientReader = objectMapper.readerFor(PatientRequestDTO.class);
+    this.chunkSize = chunkSize;
+  }
+
+  public BulkImportResponseDTO importNdjson(InputStream inputStream)
+      throws IOException {
+    return importLines(inputStream, false);
+  }
+
+  public BulkImportResponseDTO importCsv(InputStream inputStream)
+      throws IOException {
+    return importLines(inputStream, true);
+  }
+
+  private BulkImportResponseDTO importLines(InputStream inputStream,
+      boolean csv) throws IOException {
+    long start = System.currentTimeMillis();
+    List<BulkImportRowResultDTO> results = new ArrayList<>();
+    List<PendingRow> chunk = new ArrayList<>(chunkSize);
+
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+      List<String> header = null;
+      long row = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        if (csv && header == null) {
+          header = CsvLineParser.parse(line);
+          continue;
+        }
+
+        row++;
+        try {
+          PatientRequestDTO request = csv ? fromCsv(header, line)
+              : patientReader.readValue(line);
+          chunk.add(new PendingRow(row, request));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+          results.add(rejected(row, Map.of("row", "Malformed record")));
+        }
+
+        if (chunk.size() == chunkSize) {
+          processChunk(chunk, results);
+          chunk.clear();
+        }
+      }
+    }
+    if (!chunk.isEmpty()) {
+      processChunk(chunk, results);
+    }
+
+    long created = results.stream()
+        .filter(result -> CREATED.equals(result.getStatus())).count();
+    long duration = System.currentTimeMillis() - start;
+    log.info("Bulk import finished: {} rows, {} created in {} ms",
+        results.size(), created, duration);
+
+    results.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+    return new BulkImportResponseDTO(results.size(), created,
+        results.size() - created, duration, results);
+  }
+
+  private void processChunk(List<PendingRow> chunk,
+      List<BulkImportRowResultDTO> results) {
+    List<PendingRow> valid = new ArrayList<>(chunk.size());
+    Set<String> emailsInChunk = new HashSet<>();
+
+    for (PendingRow pending : chunk) {
+      Map<String, String> errors = validate(pending.request());
+      if (errors.isEmpty()
+          && !emailsInChunk.add(pending.request().getEmail())) {
+        errors = Map.of("email", "Duplicate email in import");
+      }
+      if (!errors.isEmpty()) {
+        results.add(rejected(pending.row(), errors));
+        continue;
+      }
+
+      try {
+        pending.setPatient(PatientMapper.toModel(pending.request()));
+        valid.add(pending);
+      } catch (DateTimeParseException e) {
+        results.add(rejected(pending.row(),
+            Map.of("date", "Dates must use the format yyyy-MM-dd")));
+      }
+    }
+    if (valid.isEmpty()) {
+      return;
+    }
+
+    // One set-based uniqueness check for the whole chunk
+    Set<String> existing = patientRepository.findExistingEmails(
+        valid.stream().map(pending -> pending.request().getEmail()).toList());
+    List<PendingRow> toInsert = new ArrayList<>(valid.size());
+    for (PendingRow pending : valid) {
+      if (existing.contains(pending.request().getEmail())) {
+        results.add(rejected(pending.row(),
+            Map.of("email", "Email address already exists")));
+      } else {
+        toInsert.add(pending);
+      }
+    }
+    if (toInsert.isEmpty()) {
+      return;
+    }
+
+    List<Patient> patients = toInsert.stream().map(PendingRow::patient).toList();
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        patientRepository.saveAll(patients);
+        entityManager.flush();
+        outboxService.recordAll(patients, OutboxService.PATIENT_CREATED);
+        entityManager.clear();
+      });
+      patientSearchIndex.upsertAll(
+          patients.stream().map(PatientMapper::toDTO).toList());
+      for (PendingRow pending : toInsert) {
+        results.add(new BulkImportRowResultDTO(pending.row(), CREATED,
+            pending.patient().getId().toString(), null));
+      }
+    } catch (RuntimeException e) {
+      log.warn("Bulk import chunk of {} rows failed: {}", toInsert.size(),
+          e.getMessage());
+      for (PendingRow pending : toInsert) {
+        results.add(rejected(pending.row(),
+            Map.of("row", "Chunk could not be stored, please retry")));
+      }
+    }
+  }
+
+  private Map<String, String> validate(PatientRequestDTO request) {
+    Set<ConstraintViolation<PatientRequestDTO>> violations = validator.validate(
+        request, Default.class, CreatePatientValidationGroup.class);
+    if (violations.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<String, String> errors = new LinkedHashMap<>();
+    violations.forEach(violation -> errors.put(
+        violation.getPropertyPath().toString(), violation.getMessage()));
+    return errors;
+  }
+
+  private static PatientRequestDTO fromCsv(List<String> header, String line) {
+    List<String> fields = CsvLineParser.parse(line);
+    if (fields.size() != header.size()) {
+      throw new IllegalArgumentException("Expected " + header.size()
+          + " columns but found " + fields.size());
+    }
+
+    PatientRequestDTO request = new PatientRequestDTO();
+    for (int i = 0; i < header.size(); i++) {
+      String value = fields.get(i).isEmpty() ? null : fields.get(i);
+      switch (header.get(i)) {
+        case "name" -> request.setName(value);
+        case "email" -> request.setEmail(value);
+        case "address" -> request.setAddress(value);
+        case "dateOfBirth" -> request.setDateOfBirth(value);
+        case "registeredDate" -> request.setRegisteredDate(value);
+        case "gender" -> request.setGender(value);
+        case "bloodGroup" -> request.setBloodGroup(value);
+        default -> {
+          // Unknown columns are ignored
+        }
+      }
+    }
+    return request;
+  }
+
+  private static BulkImportRowResultDTO rejected(long row,
+      Map<String, String> errors) {
+    return new BulkImportRowResultDTO(row, REJECTED, null, errors);
+  }
+
+  private static final class PendingRow {
+    private final long row;
+    private final PatientRequestDTO request;
+    private Patient patient;
+
+    PendingRow(long row, PatientRequestDTO request) {
+      this.row = row;
+      this.request = request;
+    }
+
+    long row() {
+      return row;
+    }
+
+    PatientRequestDTO request() {
+      return request;
+    }
+
+    Patient patient() {
+      return patient;
+    }
+
+    void setPatient(Patient patient) {
+      this.patient = patient;
+    }
+  }
+}
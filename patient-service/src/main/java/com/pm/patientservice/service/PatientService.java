@@ -1,32 +1,66 @@
 package com.pm.patientservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pm.patientservice.cache.PatientNearCache;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientSearchResponseDTO;
 import com.pm.patientservice.exception.EmailAlreadyExistsException;
 import com.pm.patientservice.exception.PatientNotFoundException;
-import com.pm.patientservice.grpc.BillingServiceGrpcClient;
-import com.pm.patientservice.kafka.KafkaProducer;
 import com.pm.patientservice.mapper.PatientMapper;
 import com.pm.patientservice.model.Patient;
 import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.search.PatientSearchCriteria;
+import com.pm.patientservice.search.PatientSearchIndex;
+import com.pm.patientservice.util.PatientCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class PatientService {
 
   private final PatientRepository patientRepository;
-  private final BillingServiceGrpcClient billingServiceGrpcClient;
-  private final KafkaProducer kafkaProducer;
+  private final OutboxService outboxService;
+  private final ObjectMapper objectMapper;
+  private final PatientNearCache patientNearCache;
+  private final PatientSearchIndex patientSearchIndex;
+  private final Timer cacheLookupTimer;
+  private final Timer databaseLookupTimer;
 
   public PatientService(PatientRepository patientRepository,
-      BillingServiceGrpcClient billingServiceGrpcClient,
-      KafkaProducer kafkaProducer) {
+      OutboxService outboxService, ObjectMapper objectMapper,
+      PatientNearCache patientNearCache, PatientSearchIndex patientSearchIndex,
+      MeterRegistry meterRegistry) {
     this.patientRepository = patientRepository;
-    this.billingServiceGrpcClient = billingServiceGrpcClient;
-    this.kafkaProducer = kafkaProducer;
+    this.outboxService = outboxService;
+    this.objectMapper = objectMapper;
+    this.patientNearCache = patientNearCache;
+    this.patientSearchIndex = patientSearchIndex;
+    this.cacheLookupTimer = lookupTimer(meterRegistry, "cache");
+    this.databaseLookupTimer = lookupTimer(meterRegistry, "database");
+  }
+
+  private static Timer lookupTimer(MeterRegistry meterRegistry, String source) {
+    return Timer.builder("patient.lookup")
+        .description("getPatientById latency by where the patient was found")
+        .tag("source", source)
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
   }
 
   public List<PatientResponseDTO> getPatients() {
@@ -35,6 +69,53 @@ public class PatientService {
     return patients.stream().map(PatientMapper::toDTO).toList();
   }
 
+  public PatientSearchResponseDTO searchPatients(PatientSearchCriteria criteria,
+      int page, int size) {
+    PatientSearchIndex.SearchResult result =
+        patientSearchIndex.search(criteria, page, size);
+    return new PatientSearchResponseDTO(result.patients(), result.total(),
+        page, size);
+  }
+
+  public PatientPageResponseDTO getPatientsPage(String cursor, int size) {
+    // Fetch one extra row to know whether another page exists
+    Limit limit = Limit.of(size + 1);
+    List<Patient> patients;
+    if (cursor == null || cursor.isBlank()) {
+      patients = patientRepository.findFirstPage(limit);
+    } else {
+      PatientCursor after = PatientCursor.decode(cursor);
+      patients = patientRepository.findPageAfter(after.registeredDate(),
+          after.id(), limit);
+    }
+
+    String nextCursor = null;
+    if (patients.size() > size) {
+      patients = patients.subList(0, size);
+      Patient last = patients.get(size - 1);
+      nextCursor = new PatientCursor(last.getRegisteredDate(), last.getId())
+          .encode();
+    }
+
+    return new PatientPageResponseDTO(
+        patients.stream().map(PatientMapper::toDTO).toList(), nextCursor);
+  }
+
+  // Writes every patient as newline-delimited JSON straight from a
+  // forward-only cursor, so heap usage does not grow with the table size
+  @Transactional(readOnly = true)
+  public void streamPatients(OutputStream outputStream) throws IOException {
+    ObjectWriter writer = objectMapper.writerFor(PatientResponseDTO.class);
+    try (Stream<PatientResponseDTO> patients = patientRepository.streamAll()) {
+      Iterator<PatientResponseDTO> iterator = patients.iterator();
+      while (iterator.hasNext()) {
+        outputStream.write(writer.writeValueAsBytes(iterator.next()));
+        outputStream.write('\n');
+      }
+    }
+  }
+
+  @Transactional
   public PatientResponseDTO createPatient(PatientRequestDTO patientRequestDTO) {
     if (patientRepository.existsByEmail(patientRequestDTO.getEmail())) {
       throw new EmailAlreadyExistsException(
@@ -45,18 +126,19 @@ public class PatientService {
     Patient newPatient = patientRepository.save(
         PatientMapper.toModel(patientRequestDTO));
 
-    billingServiceGrpcClient.createBillingAccount(newPatient.getId().toString(),
-        newPatient.getName(), newPatient.getEmail());
-
-    kafkaProducer.sendEvent(newPatient);
+    // Billing account and PATIENT_CREATED event are relayed after commit
+    outboxService.record(newPatient, OutboxService.PATIENT_CREATED);
 
-    return PatientMapper.toDTO(newPatient);
+    PatientResponseDTO patientDTO = PatientMapper.toDTO(newPatient);
+    afterCommit(() -> patientSearchIndex.upsert(patientDTO));
+    return patientDTO;
   }
 
+  @Transactional
   public PatientResponseDTO updatePatient(UUID id,
       PatientRequestDTO patientRequestDTO) {
 
-    Patient patient = patientRepository.findById(id).orElseThrow(
+    Patient patient = patientRepository.findByIdForUpdate(id).orElseThrow(
         () -> new PatientNotFoundException("Patient not found with ID: " + id));
 
     if (patientRepository.existsByEmailAndIdNot(patientRequestDTO.getEmail(),
@@ -75,28 +157,63 @@ public class PatientService {
 
     Patient updatedPatient = patientRepository.save(patient);
 
-    // Send Kafka event for patient update
-    kafkaProducer.sendEvent(updatedPatient, "PATIENT_UPDATED");
+    outboxService.record(updatedPatient, OutboxService.PATIENT_UPDATED);
 
-    return PatientMapper.toDTO(updatedPatient);
+    // Other instances evict when the outbox relays the event
+    PatientResponseDTO patientDTO = PatientMapper.toDTO(updatedPatient);
+    patientNearCache.invalidate(id);
+    afterCommit(() -> {
+      patientNearCache.invalidate(id);
+      patientSearchIndex.upsert(patientDTO);
+    });
+    return patientDTO;
   }
 
+  @Transactional
   public void deletePatient(UUID id) {
-    // Fetch patient before deletion to send Kafka event
-    Patient patient = patientRepository.findById(id).orElseThrow(
+    // Fetch patient before deletion so the event still carries its details
+    Patient patient = patientRepository.findByIdForUpdate(id).orElseThrow(
         () -> new PatientNotFoundException("Patient not found with ID: " + id));
 
-    // Send Kafka event for patient deletion
-    kafkaProducer.sendEvent(patient, "PATIENT_DELETED");
+    patientRepository.delete(patient);
 
-    // Delete the patient
-    patientRepository.deleteById(id);
+    // Only published once the delete has committed
+    outboxService.record(patient, OutboxService.PATIENT_DELETED);
+
+    patientNearCache.invalidate(id);
+    afterCommit(() -> {
+      patientNearCache.invalidate(id);
+      patientSearchIndex.remove(id);
+    });
   }
 
   public PatientResponseDTO getPatientById(UUID id) {
+    long start = System.nanoTime();
+    PatientResponseDTO cached = patientNearCache.get(id);
+    if (cached != null) {
+      cacheLookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return cached;
+    }
+    long generation = patientNearCache.generation();
+
     Patient patient = patientRepository.findById(id).orElseThrow(
         () -> new PatientNotFoundException("Patient not found with ID: " + id));
 
-    return PatientMapper.toDTO(patient);
+    PatientResponseDTO patientDTO = PatientMapper.toDTO(patient);
+    patientNearCache.put(patientDTO, generation);
+    databaseLookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    return patientDTO;
+  }
+
+  // Runs once the change is visible to other readers; rolled back writes
+  // never reach the cache or the search index
+  private static void afterCommit(Runnable action) {
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
   }
 }
@@ -0,0 +1,35 @@
+package com.pm.patientservice.util;
+
+import com.pm.patientservice.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+// Opaque continuation token for keyset pagination over (registeredDate, id)
+public record PatientCursor(LocalDate registeredDate, UUID id) {
+
+  private static final char SEPARATOR = '|';
+
+  public String encode() {
+    String raw = registeredDate.toString() + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static PatientCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token),
+          StandardCharsets.UTF_8);
+      int separator = raw.indexOf(SEPARATOR);
+      if (separator < 0) {
+        throw new InvalidCursorException("Malformed cursor: " + token);
+      }
+      return new PatientCursor(LocalDate.parse(raw.substring(0, separator)),
+          UUID.fromString(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new InvalidCursorException("Malformed cursor: " + token);
+    }
+  }
+}
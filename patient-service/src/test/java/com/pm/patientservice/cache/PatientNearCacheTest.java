@@ -0,0 +1,68 @@
+package com.pm.patientservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PatientNearCacheTest {
+
+  private static PatientResponseDTO patient(UUID id) {
+    return new PatientResponseDTO(id, "John Doe", "john.doe@example.com",
+        "123 Main St", LocalDate.of(1985, 6, 15), null, "O+");
+  }
+
+  @Test
+  void roundTripsEncodedEntries() {
+    for (boolean offHeap : new boolean[] {false, true}) {
+      PatientNearCache cache = new PatientNearCache(new SimpleMeterRegistry(),
+          true, offHeap, 1 << 20, Duration.ofMinutes(10));
+      UUID id = UUID.randomUUID();
+      cache.put(patient(id), cache.generation());
+
+      PatientResponseDTO cached = cache.get(id);
+      assertEquals(id.toString(), cached.getId());
+      assertEquals("John Doe", cached.getName());
+      assertEquals("john.doe@example.com", cached.getEmail());
+      assertEquals("123 Main St", cached.getAddress());
+      assertEquals("1985-06-15", cached.getDateOfBirth());
+      assertNull(cached.getGender());
+      assertEquals("O+", cached.getBloodGroup());
+    }
+  }
+
+  @Test
+  void invalidateRemovesEntry() {
+    PatientNearCache cache = new PatientNearCache(new SimpleMeterRegistry(),
+        true, false, 1 << 20, Duration.ofMinutes(10));
+    UUID id = UUID.randomUUID();
+    cache.put(patient(id), cache.generation());
+
+    cache.invalidate(id);
+
+    assertNull(cache.get(id));
+  }
+
+  @Test
+  void dropsPutThatRacedAnInvalidation() {
+    PatientNearCache cache = new PatientNearCache(new SimpleMeterRegistry(),
+        true, false, 1 << 20, Duration.ofMinutes(10));
+    UUID id = UUID.randomUUID();
+
+    // A reader loads the row, an update invalidates, then the reader's stale
+    // copy arrives
+    long generation = cache.generation();
+    cache.invalidate(id);
+    cache.put(patient(id), generation);
+
+    assertNull(cache.get(id));
+
+    cache.put(patient(id), cache.generation());
+    assertEquals(id.toString(), cache.get(id).getId());
+  }
+}
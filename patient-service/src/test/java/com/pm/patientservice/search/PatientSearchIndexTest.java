@@ -0,0 +1,117 @@
+package com.pm.patientservice.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.SearchIndexUnavailableException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PatientSearchIndexTest {
+
+  private final UUID johnId = UUID.randomUUID();
+  private final UUID janeId = UUID.randomUUID();
+  private final UUID aliceId = UUID.randomUUID();
+  private PatientSearchIndex index;
+
+  private static PatientResponseDTO patient(UUID id, String name, String email,
+      LocalDate dateOfBirth, String gender, String bloodGroup) {
+    return new PatientResponseDTO(id, name, email, "1 Main St", dateOfBirth,
+        gender, bloodGroup);
+  }
+
+  @BeforeEach
+  void setUp() {
+    index = new PatientSearchIndex();
+    index.load(List.of(List.of(
+        patient(johnId, "John Doe", "john.doe@example.com",
+            LocalDate.of(1985, 6, 15), "Male", "O+"),
+        patient(janeId, "Jane Doe", "jane.doe@example.com",
+            LocalDate.of(1990, 9, 23), "Female", "A+")),
+        List.of(patient(aliceId, "Alice Smith", "alice@example.com",
+            LocalDate.of(1978, 3, 12), "Female", "O+"))));
+  }
+
+  private List<String> ids(PatientSearchCriteria criteria) {
+    return index.search(criteria, 0, 50).patients().stream()
+        .map(PatientResponseDTO::getId).toList();
+  }
+
+  @Test
+  void matchesNameSubstringCaseInsensitively() {
+    assertEquals(List.of(johnId.toString(), janeId.toString()),
+        ids(new PatientSearchCriteria("DOE", null, null, null, null, null)));
+    assertEquals(List.of(aliceId.toString()),
+        ids(new PatientSearchCriteria("li", null, null, null, null, null)));
+    assertEquals(List.of(),
+        ids(new PatientSearchCriteria("doe j", null, null, null, null, null)));
+  }
+
+  @Test
+  void combinesEmailPrefixAndEnumeratedFilters() {
+    assertEquals(List.of(janeId.toString()),
+        ids(new PatientSearchCriteria(null, "ja", null, "Female", null, null)));
+    assertEquals(List.of(johnId.toString(), aliceId.toString()),
+        ids(new PatientSearchCriteria(null, null, "O+", null, null, null)));
+    assertEquals(List.of(),
+        ids(new PatientSearchCriteria(null, null, "B-", null, null, null)));
+  }
+
+  @Test
+  void filtersByDateOfBirthRangeAndPages() {
+    PatientSearchCriteria bornBefore1990 = new PatientSearchCriteria(null, null,
+        null, null, null, LocalDate.of(1989, 12, 31));
+
+    PatientSearchIndex.SearchResult firstPage = index.search(bornBefore1990, 0, 1);
+    PatientSearchIndex.SearchResult secondPage = index.search(bornBefore1990, 1, 1);
+
+    assertEquals(2, firstPage.total());
+    assertEquals(johnId.toString(), firstPage.patients().get(0).getId());
+    assertEquals(aliceId.toString(), secondPage.patients().get(0).getId());
+  }
+
+  @Test
+  void reflectsUpdatesAndDeletes() {
+    index.upsert(patient(johnId, "Johnny Walker", "johnny@example.com",
+        LocalDate.of(1985, 6, 15), "Male", "O+"));
+    index.remove(janeId);
+
+    assertEquals(List.of(),
+        ids(new PatientSearchCriteria("doe", null, null, null, null, null)));
+    assertEquals(List.of(johnId.toString()),
+        ids(new PatientSearchCriteria("walk", "johnny", null, null, null, null)));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  void queuesChangesUntilLoaded() {
+    PatientSearchIndex loading = new PatientSearchIndex();
+    loading.upsert(patient(johnId, "John Doe", "john.doe@example.com",
+        LocalDate.of(1985, 6, 15), "Male", "O+"));
+
+    assertThrows(SearchIndexUnavailableException.class, () -> loading.search(
+        new PatientSearchCriteria(null, null, null, null, null, null), 0, 10));
+
+    loading.load(List.of(List.of(patient(aliceId, "Alice Smith",
+        "alice@example.com", LocalDate.of(1978, 3, 12), "Female", "O+"))));
+    assertEquals(2, loading.size());
+  }
+
+  @Test
+  void keepsPatientsWhoseEmailsDifferOnlyInCase() {
+    UUID otherJohnId = UUID.randomUUID();
+    index.upsert(patient(otherJohnId, "John Roe", "John.Doe@Example.com",
+        LocalDate.of(1970, 1, 1), "Male", "B+"));
+
+    assertEquals(List.of(johnId.toString(), otherJohnId.toString()),
+        ids(new PatientSearchCriteria(null, "john.doe", null, null, null, null)));
+
+    index.remove(johnId);
+    assertEquals(List.of(otherJohnId.toString()),
+        ids(new PatientSearchCriteria(null, "john.doe", null, null, null, null)));
+  }
+}
@@ -0,0 +1,26 @@
+package com.pm.patientservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.pm.patientservice.exception.InvalidCursorException;
+import java.time.LocalDate;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PatientCursorTest {
+
+  @Test
+  void encodedCursorDecodesToSamePosition() {
+    PatientCursor cursor = new PatientCursor(LocalDate.of(2024, 3, 1),
+        UUID.randomUUID());
+
+    assertEquals(cursor, PatientCursor.decode(cursor.encode()));
+  }
+
+  @Test
+  void malformedCursorIsRejected() {
+    assertThrows(InvalidCursorException.class,
+        () -> PatientCursor.decode("not-a-cursor"));
+  }
+}